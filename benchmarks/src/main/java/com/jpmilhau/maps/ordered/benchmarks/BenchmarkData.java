@@ -0,0 +1,147 @@
+package com.jpmilhau.maps.ordered.benchmarks;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * 
+ * Build the maps used by the benchmarks
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+final class BenchmarkData {
+	
+	static final String LINKED_HASH_MAP = "LinkedHashMap";
+	static final String TREE_MAP = "TreeMap";
+	static final String HASH_MAP = "HashMap";
+	
+	static final String LONG = "Long";
+	static final String STRING = "String";
+	static final String DOUBLE = "Double";
+	static final String INTEGER = "Integer";
+	
+	/**
+	 * Integer values are drawn in [0, VALUE_SCALE), double values in [0, 1)
+	 */
+	static final int VALUE_SCALE = 1_000_000;
+	
+	private static final long SEED = 42L;
+	
+	private BenchmarkData() {
+		throw new IllegalStateException("Utility class");
+	}
+	
+	/**
+	 * Create a map whose keys are increasing and whose values are uniformly distributed
+	 * @param size the number of entries
+	 * @param mapType LinkedHashMap, TreeMap or HashMap
+	 * @param keyType Long or String
+	 * @param valueType Double or Integer
+	 * @return the map
+	 */
+	static Map<Object, Number> createMap(int size, String mapType, String keyType, String valueType) {
+		Map<Object, Number> map = newMap(size, mapType);
+		Random random = new Random(SEED);
+		for (int i = 0; i < size; i++) {
+			map.put(createKey(i, keyType), createValue(random.nextDouble(), valueType));
+		}
+		return map;
+	}
+	
+	/**
+	 * Threshold of a predicate on the next value which is true for the given proportion of consecutive pairs
+	 * @param selectivity the expected proportion of pairs tested true
+	 * @param valueType Double or Integer
+	 * @return the threshold
+	 */
+	static double threshold(double selectivity, String valueType) {
+		return INTEGER.equals(valueType) ? selectivity * VALUE_SCALE : selectivity;
+	}
+	
+	@SuppressWarnings("unchecked")
+	static LinkedHashMap<Object, Number> asLinkedHashMap(Map<Object, Number> map) {
+		return map instanceof LinkedHashMap ? (LinkedHashMap<Object, Number>) map : null;
+	}
+	
+	@SuppressWarnings("unchecked")
+	static SortedMap<Object, Number> asSortedMap(Map<Object, Number> map) {
+		return map instanceof SortedMap ? (SortedMap<Object, Number>) map : null;
+	}
+	
+	/**
+	 * View a map created by {@link #createMap(int, String, String, String)} with the type of its keys
+	 * @param map the map
+	 * @param <K> the key type of the map
+	 * @return the same map
+	 */
+	@SuppressWarnings("unchecked")
+	static <K> Map<K, Number> withKeyType(Map<Object, Number> map) {
+		return (Map<K, Number>) (Map<?, Number>) map;
+	}
+	
+	private static Map<Object, Number> newMap(int size, String mapType) {
+		switch (mapType) {
+		case LINKED_HASH_MAP:
+			return new LinkedHashMap<>(capacity(size));
+		case TREE_MAP:
+			return new TreeMap<>();
+		case HASH_MAP:
+			return new HashMap<>(capacity(size));
+		default:
+			throw new IllegalArgumentException("Unknown map type: " + mapType);
+		}
+	}
+	
+	private static Object createKey(int index, String keyType) {
+		switch (keyType) {
+		case LONG:
+			return Long.valueOf(index);
+		case STRING:
+			// zero-padded so that the natural order of the keys is the insertion order
+			return String.format("%010d", index);
+		default:
+			throw new IllegalArgumentException("Unknown key type: " + keyType);
+		}
+	}
+	
+	private static Number createValue(double uniform, String valueType) {
+		switch (valueType) {
+		case DOUBLE:
+			return Double.valueOf(uniform);
+		case INTEGER:
+			return Integer.valueOf((int) (uniform * VALUE_SCALE));
+		default:
+			throw new IllegalArgumentException("Unknown value type: " + valueType);
+		}
+	}
+	
+	private static int capacity(int size) {
+		return (int) Math.min(Integer.MAX_VALUE, (long) (size / 0.75f) + 1);
+	}
+	
+}
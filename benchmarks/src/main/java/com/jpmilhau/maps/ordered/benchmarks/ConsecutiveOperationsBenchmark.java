@@ -0,0 +1,132 @@
+package com.jpmilhau.maps.ordered.benchmarks;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jpmilhau.maps.ordered.Operation;
+import com.jpmilhau.maps.ordered.OrderedMapUtils;
+import com.jpmilhau.maps.ordered.Window;
+
+/**
+ * 
+ * Benchmark of the functions applied to consecutive values of an ordered map
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms6g", "-Xmx6g" })
+public class ConsecutiveOperationsBenchmark {
+	
+	private static final BiFunction<Number, Number, Double> DIFFERENCE = (v1, v2) -> v2.doubleValue() - v1.doubleValue();
+	private static final DoubleBinaryOperator DOUBLE_DIFFERENCE = (v1, v2) -> v2 - v1;
+	private static final Function<Window<Object, Number>, Double> WINDOW_AVERAGE = Window::getAverage;
+	private static final int K = 10;
+	private static final int WINDOW_SIZE = 16;
+	
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+	
+	@Param({ BenchmarkData.LINKED_HASH_MAP, BenchmarkData.TREE_MAP })
+	private String mapType;
+	
+	@Param({ BenchmarkData.LONG, BenchmarkData.STRING })
+	private String keyType;
+	
+	@Param({ BenchmarkData.DOUBLE, BenchmarkData.INTEGER })
+	private String valueType;
+	
+	private LinkedHashMap<Object, Number> linkedHashMap;
+	private SortedMap<Object, Number> sortedMap;
+	
+	@Setup
+	public void setUp() {
+		Map<Object, Number> map = BenchmarkData.createMap(size, mapType, keyType, valueType);
+		linkedHashMap = BenchmarkData.asLinkedHashMap(map);
+		sortedMap = BenchmarkData.asSortedMap(map);
+	}
+	
+	@Benchmark
+	public Map<Object, Operation<Object, Double>> apply() {
+		return sortedMap != null ? OrderedMapUtils.apply(sortedMap, DIFFERENCE) : OrderedMapUtils.apply(linkedHashMap, DIFFERENCE);
+	}
+	
+	@Benchmark
+	public Object applyAsDouble() {
+		return sortedMap != null ? OrderedMapUtils.applyAsDouble(sortedMap, DOUBLE_DIFFERENCE) : OrderedMapUtils.applyAsDouble(linkedHashMap, DOUBLE_DIFFERENCE);
+	}
+	
+	@Benchmark
+	public List<Operation<Object, Double>> filterAllMax() {
+		return sortedMap != null ? OrderedMapUtils.filterAllMax(sortedMap, DIFFERENCE) : OrderedMapUtils.filterAllMax(linkedHashMap, DIFFERENCE);
+	}
+	
+	@Benchmark
+	public List<Operation<Object, Double>> filterAllMin() {
+		return sortedMap != null ? OrderedMapUtils.filterAllMin(sortedMap, DIFFERENCE) : OrderedMapUtils.filterAllMin(linkedHashMap, DIFFERENCE);
+	}
+	
+	@Benchmark
+	public List<Operation<Object, Double>> topK() {
+		return sortedMap != null ? OrderedMapUtils.topK(sortedMap, DIFFERENCE, K, Comparator.naturalOrder()) : OrderedMapUtils.topK(linkedHashMap, DIFFERENCE, K, Comparator.naturalOrder());
+	}
+	
+	@Benchmark
+	public double average() {
+		return sortedMap != null ? OrderedMapUtils.average(sortedMap, DIFFERENCE) : OrderedMapUtils.average(linkedHashMap, DIFFERENCE);
+	}
+	
+	@Benchmark
+	public double averageAsDouble() {
+		return sortedMap != null ? OrderedMapUtils.averageAsDouble(sortedMap, DOUBLE_DIFFERENCE) : OrderedMapUtils.averageAsDouble(linkedHashMap, DOUBLE_DIFFERENCE);
+	}
+	
+	@Benchmark
+	public Map<Object, Operation<Object, Double>> applyWindow() {
+		return sortedMap != null ? OrderedMapUtils.apply(sortedMap, WINDOW_SIZE, WINDOW_AVERAGE) : OrderedMapUtils.apply(linkedHashMap, WINDOW_SIZE, WINDOW_AVERAGE);
+	}
+	
+}
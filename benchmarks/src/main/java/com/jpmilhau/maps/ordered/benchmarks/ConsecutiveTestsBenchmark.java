@@ -0,0 +1,130 @@
+package com.jpmilhau.maps.ordered.benchmarks;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jpmilhau.maps.ordered.KeyPair;
+import com.jpmilhau.maps.ordered.Operation;
+import com.jpmilhau.maps.ordered.OrderedMapUtils;
+
+/**
+ * 
+ * Benchmark of the predicates tested on consecutive values of an ordered map
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms6g", "-Xmx6g" })
+public class ConsecutiveTestsBenchmark {
+	
+	private static final int MIN_GROUP_SIZE = 2;
+	private static final int MAX_GROUP_SIZE = 8;
+	
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+	
+	@Param({ BenchmarkData.LINKED_HASH_MAP, BenchmarkData.TREE_MAP })
+	private String mapType;
+	
+	@Param({ BenchmarkData.LONG, BenchmarkData.STRING })
+	private String keyType;
+	
+	@Param({ BenchmarkData.DOUBLE, BenchmarkData.INTEGER })
+	private String valueType;
+	
+	/**
+	 * Proportion of consecutive pairs tested true
+	 */
+	@Param({ "0.01", "0.5", "0.99" })
+	private double selectivity;
+	
+	private LinkedHashMap<Object, Number> linkedHashMap;
+	private SortedMap<Object, Number> sortedMap;
+	private BiPredicate<Number, Number> biPredicate;
+	
+	@Setup
+	public void setUp() {
+		Map<Object, Number> map = BenchmarkData.createMap(size, mapType, keyType, valueType);
+		linkedHashMap = BenchmarkData.asLinkedHashMap(map);
+		sortedMap = BenchmarkData.asSortedMap(map);
+		double threshold = BenchmarkData.threshold(selectivity, valueType);
+		biPredicate = (v1, v2) -> v2.doubleValue() < threshold;
+	}
+	
+	@Benchmark
+	public Map<Object, Operation<Object, Boolean>> test() {
+		return sortedMap != null ? OrderedMapUtils.test(sortedMap, biPredicate) : OrderedMapUtils.test(linkedHashMap, biPredicate);
+	}
+	
+	@Benchmark
+	public List<KeyPair<Object>> filterTests() {
+		return sortedMap != null ? OrderedMapUtils.filterTests(sortedMap, biPredicate, true) : OrderedMapUtils.filterTests(linkedHashMap, biPredicate, true);
+	}
+	
+	@Benchmark
+	public List<List<KeyPair<Object>>> filterGroupedConsecutiveTests() {
+		return sortedMap != null ? OrderedMapUtils.filterGroupedConsecutiveTests(sortedMap, biPredicate, true) : OrderedMapUtils.filterGroupedConsecutiveTests(linkedHashMap, biPredicate, true);
+	}
+	
+	@Benchmark
+	public List<List<KeyPair<Object>>> filterGroupedConsecutiveTestsBySize() {
+		return sortedMap != null ? OrderedMapUtils.filterGroupedConsecutiveTests(sortedMap, biPredicate, true, MIN_GROUP_SIZE, MAX_GROUP_SIZE) : OrderedMapUtils.filterGroupedConsecutiveTests(linkedHashMap, biPredicate, true, MIN_GROUP_SIZE, MAX_GROUP_SIZE);
+	}
+	
+	@Benchmark
+	public List<List<KeyPair<Object>>> filterAllMaxGroupedConsecutiveTests() {
+		return sortedMap != null ? OrderedMapUtils.filterAllMaxGroupedConsecutiveTests(sortedMap, biPredicate, true) : OrderedMapUtils.filterAllMaxGroupedConsecutiveTests(linkedHashMap, biPredicate, true);
+	}
+	
+	@Benchmark
+	public List<List<KeyPair<Object>>> filterAllMinGroupedConsecutiveTests() {
+		return sortedMap != null ? OrderedMapUtils.filterAllMinGroupedConsecutiveTests(sortedMap, biPredicate, true) : OrderedMapUtils.filterAllMinGroupedConsecutiveTests(linkedHashMap, biPredicate, true);
+	}
+	
+	@Benchmark
+	public double averageGroupedConsecutiveTests() {
+		return sortedMap != null ? OrderedMapUtils.averageGroupedConsecutiveTests(sortedMap, biPredicate, true) : OrderedMapUtils.averageGroupedConsecutiveTests(linkedHashMap, biPredicate, true);
+	}
+	
+}
@@ -0,0 +1,87 @@
+package com.jpmilhau.maps.ordered.benchmarks;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jpmilhau.maps.ordered.OrderedMapUtils;
+
+/**
+ * 
+ * Benchmark of the conversions of an unordered map to an ordered map
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms6g", "-Xmx6g" })
+public class ConversionBenchmark {
+	
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+	
+	@Param({ BenchmarkData.LONG, BenchmarkData.STRING })
+	private String keyType;
+	
+	@Param({ BenchmarkData.DOUBLE, BenchmarkData.INTEGER })
+	private String valueType;
+	
+	private Map<Long, Number> longKeysMap;
+	private Map<String, Number> stringKeysMap;
+	
+	@Setup
+	public void setUp() {
+		Map<Object, Number> map = BenchmarkData.createMap(size, BenchmarkData.HASH_MAP, keyType, valueType);
+		if (BenchmarkData.LONG.equals(keyType)) {
+			longKeysMap = BenchmarkData.withKeyType(map);
+		} else {
+			stringKeysMap = BenchmarkData.withKeyType(map);
+		}
+	}
+	
+	@Benchmark
+	public Map<?, Number> toLinkedHashMap() {
+		return longKeysMap != null ? OrderedMapUtils.toLinkedHashMap(longKeysMap) : OrderedMapUtils.toLinkedHashMap(stringKeysMap);
+	}
+	
+	@Benchmark
+	public Map<?, Number> toTreeMap() {
+		return longKeysMap != null ? OrderedMapUtils.toTreeMap(longKeysMap) : OrderedMapUtils.toTreeMap(stringKeysMap);
+	}
+	
+}
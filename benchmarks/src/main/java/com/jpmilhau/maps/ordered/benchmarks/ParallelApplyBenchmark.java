@@ -0,0 +1,86 @@
+package com.jpmilhau.maps.ordered.benchmarks;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jpmilhau.maps.ordered.Operation;
+import com.jpmilhau.maps.ordered.OrderedMapUtils;
+
+/**
+ * 
+ * Benchmark of the parallel application of a function to consecutive values of a sorted map
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms6g", "-Xmx6g" })
+public class ParallelApplyBenchmark {
+	
+	private static final BiFunction<Number, Number, Double> DIFFERENCE = (v1, v2) -> v2.doubleValue() - v1.doubleValue();
+	
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+	
+	@Param({ BenchmarkData.LONG, BenchmarkData.STRING })
+	private String keyType;
+	
+	@Param({ "1024", "8192", "65536" })
+	private int threshold;
+	
+	private SortedMap<Object, Number> sortedMap;
+	
+	@Setup
+	public void setUp() {
+		sortedMap = BenchmarkData.asSortedMap(BenchmarkData.createMap(size, BenchmarkData.TREE_MAP, keyType, BenchmarkData.DOUBLE));
+	}
+	
+	@Benchmark
+	public SortedMap<Object, Operation<Object, Double>> apply() {
+		return OrderedMapUtils.apply(sortedMap, DIFFERENCE);
+	}
+	
+	@Benchmark
+	public SortedMap<Object, Operation<Object, Double>> applyParallel() {
+		return OrderedMapUtils.applyParallel(sortedMap, DIFFERENCE, ForkJoinPool.commonPool(), threshold);
+	}
+	
+}
@@ -0,0 +1,83 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Base class of the series storing the keys of an ordered map in their order, 
+ * the result of an operation applied to a key and its next key being stored at the index of the key
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of a key
+ */
+abstract class AbstractOperationSeries<K> {
+	
+	private final Object[] keys;
+	
+	AbstractOperationSeries(Object[] keys) {
+		this.keys = keys;
+	}
+	
+	/**
+	 * Get the number of operations in the series, that is the number of keys but the last one
+	 * @return the number of operations
+	 */
+	public int size() {
+		return Math.max(keys.length - 1, 0);
+	}
+	
+	/**
+	 * Get the key of an operation
+	 * @param index the index of the operation
+	 * @return the key of the operation
+	 */
+	@SuppressWarnings("unchecked")
+	public K getKey(int index) {
+		checkIndex(index);
+		return (K) keys[index];
+	}
+	
+	/**
+	 * Get the next key of an operation
+	 * @param index the index of the operation
+	 * @return the next key of the operation
+	 */
+	@SuppressWarnings("unchecked")
+	public K getNextKey(int index) {
+		checkIndex(index);
+		return (K) keys[index + 1];
+	}
+	
+	/**
+	 * Get the key and the next key of an operation
+	 * @param index the index of the operation
+	 * @return the key and the next key of the operation
+	 */
+	public KeyPair<K> getKeyPair(int index) {
+		return new KeyPair<K>(getKey(index), getNextKey(index));
+	}
+	
+	void checkIndex(int index) {
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+	}
+	
+}
@@ -0,0 +1,172 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Asynchronous application of a function to consecutive values of an ordered map.
+ * The entries are copied when the call starts, then at most maxInFlight pairs are evaluated at a time on the executor, 
+ * and the results are put in the order of the keys when all the pairs are finished.
+ * The pairs are submitted by a drain loop that a finished pair restarts, or lets the running loop continue, 
+ * so that an executor running the tasks in the calling thread does not grow the stack.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the key type of the map
+ * @param <V> the value type of the map
+ * @param <R> the type of the result of the function applied to two consecutive values
+ */
+final class AsyncConsecutiveApply<K, V, R> {
+	
+	private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+	
+	private final Map<K, V> map;
+	private final BiFunction<V, V, R> biFunction;
+	private final Executor executor;
+	private final AsyncErrorPolicy errorPolicy;
+	private final int maxInFlight;
+	private final CallMetrics callMetrics;
+	private final Object[] keys;
+	private final Object[] values;
+	private final Object[] results;
+	private final boolean[] failed;
+	private final AtomicInteger nextIndex = new AtomicInteger();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	// number of drain requests not handled yet, the thread making the first one running the drain loop
+	private final AtomicInteger drainRequests = new AtomicInteger();
+	private final AtomicInteger remaining;
+	private final CompletableFuture<Map<K, Operation<K, R>>> future = new CompletableFuture<>();
+	
+	private AsyncConsecutiveApply(Map<K, V> map, BiFunction<V, V, R> biFunction, Executor executor, int maxInFlight, AsyncErrorPolicy errorPolicy, CallMetrics callMetrics) {
+		this.map = map;
+		this.biFunction = biFunction;
+		this.executor = executor;
+		this.maxInFlight = maxInFlight;
+		this.errorPolicy = errorPolicy;
+		this.callMetrics = callMetrics;
+		this.keys = new Object[map.size()];
+		this.values = new Object[map.size()];
+		int index = 0;
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			keys[index] = entry.getKey();
+			values[index++] = entry.getValue();
+		}
+		this.results = new Object[keys.length - 1];
+		this.failed = new boolean[keys.length - 1];
+		this.remaining = new AtomicInteger(keys.length - 1);
+	}
+	
+	static <K, V, R> CompletableFuture<Map<K, Operation<K, R>>> start(Map<K, V> map, BiFunction<V, V, R> biFunction, Executor executor, int maxInFlight, AsyncErrorPolicy errorPolicy, CallMetrics callMetrics) {
+		// a map without pairs of keys has no result
+		if (map.size() < 2)
+			return CompletableFuture.completedFuture(callMetrics.stop(ResultMapFactory.sameType().create(map, 0)));
+		
+		AsyncConsecutiveApply<K, V, R> asyncApply = new AsyncConsecutiveApply<>(map, callMetrics.timeFunction(biFunction), executor, maxInFlight, errorPolicy, callMetrics);
+		asyncApply.drain();
+		return asyncApply.future;
+	}
+	
+	/*
+	 * Executor of virtual threads when the runtime has them, the common fork/join pool otherwise
+	 */
+	static Executor defaultExecutor() {
+		return DEFAULT_EXECUTOR;
+	}
+	
+	private static Executor createDefaultExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (Executor) method.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return ForkJoinPool.commonPool();
+		}
+	}
+	
+	/*
+	 * Submit the next pairs while less than maxInFlight pairs are evaluated. 
+	 * A call made while the loop runs, for example by a pair evaluated in the calling thread, only makes the loop run once more.
+	 */
+	private void drain() {
+		if (drainRequests.getAndIncrement() != 0)
+			return;
+		
+		int requests = 1;
+		do {
+			// a failed or cancelled future does not need the remaining pairs
+			while (!future.isDone() && inFlight.get() < maxInFlight && nextIndex.get() < results.length) {
+				// only the drain loop claims indices
+				int index = nextIndex.getAndIncrement();
+				inFlight.incrementAndGet();
+				try {
+					executor.execute(() -> evaluate(index));
+				} catch (RuntimeException e) {
+					future.completeExceptionally(e);
+				}
+			}
+			requests = drainRequests.addAndGet(-requests);
+		} while (requests != 0);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void evaluate(int index) {
+		try {
+			results[index] = biFunction.apply((V) values[index], (V) values[index + 1]);
+		} catch (Throwable t) {
+			// errors are not skipped
+			if (errorPolicy == AsyncErrorPolicy.FAIL || !(t instanceof Exception)) {
+				inFlight.decrementAndGet();
+				future.completeExceptionally(t);
+				return;
+			}
+			failed[index] = true;
+		}
+		inFlight.decrementAndGet();
+		// the last pair finished publishes the results written by the other pairs
+		if (remaining.decrementAndGet() == 0) {
+			complete();
+		} else {
+			drain();
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void complete() {
+		try {
+			Map<K, Operation<K, R>> resultMap = ResultMapFactory.sameType().create(map, results.length);
+			for (int i = 0; i < results.length; i++) {
+				if (!failed[i]) {
+					resultMap.put((K) keys[i], new Operation<K, R>((K) keys[i], (K) keys[i + 1], (R) results[i]));
+				}
+			}
+			future.complete(callMetrics.stop(resultMap));
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+		}
+	}
+	
+}
@@ -0,0 +1,40 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+/**
+ * Policy of an asynchronous operation when the function applied to a pair of consecutive values throws an exception
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public enum AsyncErrorPolicy {
+	
+	/**
+	 * The future completes exceptionally with the first exception, and the pairs not yet started are not evaluated
+	 */
+	FAIL,
+	
+	/**
+	 * The pairs for which the function throws an exception are left out of the result, the future completing with the other pairs
+	 */
+	SKIP
+	
+}
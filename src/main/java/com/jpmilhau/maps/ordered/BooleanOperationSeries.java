@@ -0,0 +1,63 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Class to store the boolean results of a predicate applied to the values of each key and its next key in an ordered map
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of a key
+ */
+public final class BooleanOperationSeries<K> extends AbstractOperationSeries<K> {
+	
+	private final boolean[] results;
+	
+	BooleanOperationSeries(Object[] keys, boolean[] results) {
+		super(keys);
+		this.results = results;
+	}
+	
+	/**
+	 * Get the result of an operation
+	 * @param index the index of the operation
+	 * @return the result of the operation
+	 */
+	public boolean getResult(int index) {
+		checkIndex(index);
+		return results[index];
+	}
+	
+	/**
+	 * Get an operation
+	 * @param index the index of the operation
+	 * @return the operation with its key, its next key and its result
+	 */
+	public Operation<K, Boolean> getOperation(int index) {
+		return new Operation<K, Boolean>(getKey(index), getNextKey(index), getResult(index));
+	}
+
+	@Override
+	public String toString() {
+		return "BooleanOperationSeries [size=" + size() + "]";
+	}
+	
+}
@@ -0,0 +1,297 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Metrics of a call to {@link OrderedMapUtils}: the functions given to the call are timed and counted, 
+ * and the report is sent to the recorder when the result is returned.
+ * When the metrics are disabled, the functions are not wrapped and nothing is measured.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+final class CallMetrics {
+	
+	private static final CallMetrics DISABLED = new CallMetrics(null, null, null, 0, false);
+	
+	private final MetricsRecorder recorder;
+	private final String method;
+	private final Class<?> mapType;
+	private final long mapSize;
+	// the number of entries scanned by a call stopping before the end of the map is the number of pairs evaluated plus one, at most the size of the map
+	private final boolean shortCircuit;
+	private final long startNanos;
+	// the functions may be called by several threads
+	private final LongAdder pairsEvaluated = new LongAdder();
+	private final LongAdder functionNanos = new LongAdder();
+	
+	private CallMetrics(MetricsRecorder recorder, String method, Class<?> mapType, long mapSize, boolean shortCircuit) {
+		this.recorder = recorder;
+		this.method = method;
+		this.mapType = mapType;
+		this.mapSize = mapSize;
+		this.shortCircuit = shortCircuit;
+		this.startNanos = recorder == null ? 0 : System.nanoTime();
+	}
+	
+	static CallMetrics start(String method, Map<?, ?> map) {
+		MetricsRecorder recorder = OrderedMapMetrics.currentRecorder();
+		if (recorder == null)
+			return DISABLED;
+		return new CallMetrics(recorder, method, map.getClass(), map.size(), false);
+	}
+	
+	static CallMetrics startShortCircuit(String method, Map<?, ?> map) {
+		MetricsRecorder recorder = OrderedMapMetrics.currentRecorder();
+		if (recorder == null)
+			return DISABLED;
+		return new CallMetrics(recorder, method, map.getClass(), map.size(), true);
+	}
+	
+	<V, R> BiFunction<V, V, R> timeFunction(BiFunction<V, V, R> biFunction) {
+		if (recorder == null)
+			return biFunction;
+		return (value, nextValue) -> {
+			long start = System.nanoTime();
+			try {
+				return biFunction.apply(value, nextValue);
+			} finally {
+				count(start);
+			}
+		};
+	}
+	
+	<V> BiPredicate<V, V> timePredicate(BiPredicate<V, V> biPredicate) {
+		if (recorder == null)
+			return biPredicate;
+		return (value, nextValue) -> {
+			long start = System.nanoTime();
+			try {
+				return biPredicate.test(value, nextValue);
+			} finally {
+				count(start);
+			}
+		};
+	}
+	
+	DoubleBinaryOperator timeDoubleOperator(DoubleBinaryOperator operator) {
+		if (recorder == null)
+			return operator;
+		return (value, nextValue) -> {
+			long start = System.nanoTime();
+			try {
+				return operator.applyAsDouble(value, nextValue);
+			} finally {
+				count(start);
+			}
+		};
+	}
+	
+	LongBinaryOperator timeLongOperator(LongBinaryOperator operator) {
+		if (recorder == null)
+			return operator;
+		return (value, nextValue) -> {
+			long start = System.nanoTime();
+			try {
+				return operator.applyAsLong(value, nextValue);
+			} finally {
+				count(start);
+			}
+		};
+	}
+	
+	DoubleBiPredicate timeDoublePredicate(DoubleBiPredicate predicate) {
+		if (recorder == null)
+			return predicate;
+		return (value, nextValue) -> {
+			long start = System.nanoTime();
+			try {
+				return predicate.test(value, nextValue);
+			} finally {
+				count(start);
+			}
+		};
+	}
+	
+	LongBiPredicate timeLongPredicate(LongBiPredicate predicate) {
+		if (recorder == null)
+			return predicate;
+		return (value, nextValue) -> {
+			long start = System.nanoTime();
+			try {
+				return predicate.test(value, nextValue);
+			} finally {
+				count(start);
+			}
+		};
+	}
+	
+	<K, V> PairConsumer<K, V> timeConsumer(PairConsumer<K, V> consumer) {
+		if (recorder == null)
+			return consumer;
+		return (key, nextKey, value, nextValue) -> {
+			long start = System.nanoTime();
+			try {
+				consumer.accept(key, nextKey, value, nextValue);
+			} finally {
+				count(start);
+			}
+		};
+	}
+	
+	<K> DoublePairConsumer<K> timeDoubleConsumer(DoublePairConsumer<K> consumer) {
+		if (recorder == null)
+			return consumer;
+		return (key, nextKey, value, nextValue) -> {
+			long start = System.nanoTime();
+			try {
+				consumer.accept(key, nextKey, value, nextValue);
+			} finally {
+				count(start);
+			}
+		};
+	}
+	
+	<K> LongPairConsumer<K> timeLongConsumer(LongPairConsumer<K> consumer) {
+		if (recorder == null)
+			return consumer;
+		return (key, nextKey, value, nextValue) -> {
+			long start = System.nanoTime();
+			try {
+				consumer.accept(key, nextKey, value, nextValue);
+			} finally {
+				count(start);
+			}
+		};
+	}
+	
+	<T, R> Function<T, R> timeWindowFunction(Function<T, R> function) {
+		if (recorder == null)
+			return function;
+		return window -> {
+			long start = System.nanoTime();
+			try {
+				return function.apply(window);
+			} finally {
+				count(start);
+			}
+		};
+	}
+	
+	<T> Predicate<T> timeWindowPredicate(Predicate<T> predicate) {
+		if (recorder == null)
+			return predicate;
+		return window -> {
+			long start = System.nanoTime();
+			try {
+				return predicate.test(window);
+			} finally {
+				count(start);
+			}
+		};
+	}
+	
+	<T extends Map<?, ?>> T stop(T results) {
+		report(results.size());
+		return results;
+	}
+	
+	/*
+	 * Measure a call returning a map, a collection, a series of operations or a single value: 
+	 * the call gets the metrics to time its function and the size of its result is reported
+	 */
+	static <T extends Map<?, ?>> T measureMap(String method, Map<?, ?> map, Function<CallMetrics, T> call) {
+		CallMetrics callMetrics = start(method, map);
+		return callMetrics.stop(call.apply(callMetrics));
+	}
+	
+	static <T extends Collection<?>> T measureCollection(String method, Map<?, ?> map, Function<CallMetrics, T> call) {
+		CallMetrics callMetrics = start(method, map);
+		T results = call.apply(callMetrics);
+		callMetrics.report(results.size());
+		return results;
+	}
+	
+	static <T extends AbstractOperationSeries<?>> T measureSeries(String method, Map<?, ?> map, Function<CallMetrics, T> call) {
+		CallMetrics callMetrics = start(method, map);
+		T results = call.apply(callMetrics);
+		callMetrics.report(results.size());
+		return results;
+	}
+	
+	static double measureDouble(String method, Map<?, ?> map, ToDoubleFunction<CallMetrics> call) {
+		CallMetrics callMetrics = start(method, map);
+		double result = call.applyAsDouble(callMetrics);
+		callMetrics.report(1);
+		return result;
+	}
+	
+	static void measureVoid(String method, Map<?, ?> map, Consumer<CallMetrics> call) {
+		CallMetrics callMetrics = start(method, map);
+		call.accept(callMetrics);
+		callMetrics.report(0);
+	}
+	
+	/*
+	 * Measure a call stopping at the first matching pair
+	 */
+	static boolean measureMatch(String method, Map<?, ?> map, Predicate<CallMetrics> call) {
+		CallMetrics callMetrics = startShortCircuit(method, map);
+		boolean result = call.test(callMetrics);
+		callMetrics.report(1);
+		return result;
+	}
+	
+	static <T> Optional<T> measureFind(String method, Map<?, ?> map, Function<CallMetrics, Optional<T>> call) {
+		CallMetrics callMetrics = startShortCircuit(method, map);
+		Optional<T> result = call.apply(callMetrics);
+		callMetrics.report(result.isPresent() ? 1 : 0);
+		return result;
+	}
+	
+	private void count(long start) {
+		functionNanos.add(System.nanoTime() - start);
+		pairsEvaluated.increment();
+	}
+	
+	private void report(long resultsEmitted) {
+		if (recorder == null)
+			return;
+		long totalNanos = System.nanoTime() - startNanos;
+		long pairs = pairsEvaluated.sum();
+		long entries = shortCircuit ? Math.min(pairs + 1, mapSize) : mapSize;
+		recorder.record(new CallReport(method, mapType, entries, pairs, resultsEmitted, totalNanos, functionNanos.sum()));
+	}
+	
+}
@@ -0,0 +1,111 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Class to store the metrics of a call to {@link OrderedMapUtils}
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public final class CallReport {
+	
+	private final String method;
+	private final Class<?> mapType;
+	private final long entriesScanned;
+	private final long pairsEvaluated;
+	private final long resultsEmitted;
+	private final long totalNanos;
+	private final long functionNanos;
+	
+	public CallReport(String method, Class<?> mapType, long entriesScanned, long pairsEvaluated, long resultsEmitted, long totalNanos, long functionNanos) {
+		this.method = method;
+		this.mapType = mapType;
+		this.entriesScanned = entriesScanned;
+		this.pairsEvaluated = pairsEvaluated;
+		this.resultsEmitted = resultsEmitted;
+		this.totalNanos = totalNanos;
+		this.functionNanos = functionNanos;
+	}
+	
+	/**
+	 * @return the name of the method of {@link OrderedMapUtils} called
+	 */
+	public String getMethod() {
+		return method;
+	}
+	
+	/**
+	 * @return the class of the map given to the method
+	 */
+	public Class<?> getMapType() {
+		return mapType;
+	}
+	
+	/**
+	 * @return the number of entries of the map
+	 */
+	public long getEntriesScanned() {
+		return entriesScanned;
+	}
+	
+	/**
+	 * @return the number of calls to the function or the predicate given to the method
+	 */
+	public long getPairsEvaluated() {
+		return pairsEvaluated;
+	}
+	
+	/**
+	 * @return the number of elements of the result, 1 for an average
+	 */
+	public long getResultsEmitted() {
+		return resultsEmitted;
+	}
+	
+	/**
+	 * @return the duration of the call in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+	
+	/**
+	 * @return the time spent in the function or the predicate given to the method in nanoseconds, summed over all threads
+	 */
+	public long getFunctionNanos() {
+		return functionNanos;
+	}
+	
+	/**
+	 * @return the time spent outside the function or the predicate given to the method in nanoseconds, 0 if the function ran in parallel longer than the call
+	 */
+	public long getLibraryNanos() {
+		return Math.max(0, totalNanos - functionNanos);
+	}
+	
+	@Override
+	public String toString() {
+		return "CallReport [method=" + method + ", mapType=" + mapType.getName() + ", entriesScanned=" + entriesScanned + ", pairsEvaluated=" + pairsEvaluated 
+				+ ", resultsEmitted=" + resultsEmitted + ", totalNanos=" + totalNanos + ", functionNanos=" + functionNanos + "]";
+	}
+	
+}
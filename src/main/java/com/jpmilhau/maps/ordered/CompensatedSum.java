@@ -0,0 +1,57 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Running sum and count of double values, the sum being compensated as in {@link java.util.stream.DoubleStream#average()}
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+final class CompensatedSum {
+	
+	private double sum;
+	private double compensation;
+	// the compensated sum is NaN when infinite values are added, the simple sum gives the infinite result
+	private double simpleSum;
+	private long count;
+	
+	void add(double value) {
+		double correctedValue = value - compensation;
+		double correctedSum = sum + correctedValue;
+		compensation = (correctedSum - sum) - correctedValue;
+		sum = correctedSum;
+		simpleSum += value;
+		count++;
+	}
+	
+	double getSum() {
+		double compensatedSum = sum - compensation;
+		if (Double.isNaN(compensatedSum) && Double.isInfinite(simpleSum))
+			return simpleSum;
+		return compensatedSum;
+	}
+	
+	double getAverage() {
+		return count == 0 ? 0 : getSum() / count;
+	}
+	
+}
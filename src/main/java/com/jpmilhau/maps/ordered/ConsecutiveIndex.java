@@ -0,0 +1,328 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+
+/**
+ * Index of the results of a function applied to consecutive values in a navigable map, kept up to date when the map is modified through the index.
+ * A modification only recomputes the at most two pairs of keys it touches, 
+ * and the results can be queried as with {@link OrderedMapUtils} without scanning the map.
+ * The map must only be modified through the index, and the index is not thread-safe.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the key type of the map
+ * @param <V> the value type of the map
+ * @param <R> the type of the result of the function applied to two consecutive values
+ */
+public final class ConsecutiveIndex<K, V, R> {
+	
+	// ratio between the largest value added to the sum and the sum of the absolute values above which the sum is recomputed
+	private static final double PRECISION_LOSS_RATIO = 0x1p26;
+	
+	private final NavigableMap<K, V> map;
+	private final BiFunction<V, V, R> biFunction;
+	private final TreeMap<K, Operation<K, R>> operations;
+	private final TreeMap<R, NavigableSet<K>> keysByResult;
+	private final SlidingSum sum = new SlidingSum();
+	// sum of the absolute values of the finite numeric results, and largest of them added since the sum was recomputed: 
+	// a value much larger than all the current ones has been removed and the compensated sum may have lost their precision
+	private double absoluteSum;
+	private double largestMagnitude;
+	private int sumRecomputations;
+	private int nonNumericResults;
+	
+	/**
+	 * Build an index of the results of a function applied to consecutive values in a navigable map
+	 * @param map the navigable map
+	 * @param biFunction the function to apply to consecutive values in the navigable map
+	 * @param comparator the comparator of the results
+	 */
+	public ConsecutiveIndex(NavigableMap<K, V> map, BiFunction<V, V, R> biFunction, Comparator<? super R> comparator) {
+		this.map = Objects.requireNonNull(map);
+		this.biFunction = Objects.requireNonNull(biFunction);
+		this.operations = new TreeMap<>(map.comparator());
+		this.keysByResult = new TreeMap<>(Objects.requireNonNull(comparator));
+		
+		K key = null;
+		V value = null;
+		boolean first = true;
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			if (!first) {
+				addOperation(key, entry.getKey(), biFunction.apply(value, entry.getValue()));
+			}
+			key = entry.getKey();
+			value = entry.getValue();
+			first = false;
+		}
+	}
+	
+	/**
+	 * Build an index of the results of a function applied to consecutive values in a navigable map, the results being compared by their natural order
+	 * @param map the navigable map
+	 * @param biFunction the function to apply to consecutive values in the navigable map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return the index
+	 */
+	public static <K, V, R extends Comparable<? super R>> ConsecutiveIndex<K, V, R> of(NavigableMap<K, V> map, BiFunction<V, V, R> biFunction) {
+		return new ConsecutiveIndex<>(map, biFunction, Comparator.<R>naturalOrder());
+	}
+	
+	/**
+	 * Build an index of the results of a predicate applied to consecutive values in a navigable map
+	 * @param map the navigable map
+	 * @param biPredicate the predicate to apply to consecutive values in the navigable map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the index
+	 */
+	public static <K, V> ConsecutiveIndex<K, V, Boolean> ofPredicate(NavigableMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(biPredicate);
+		return new ConsecutiveIndex<>(map, biPredicate::test, Comparator.<Boolean>naturalOrder());
+	}
+	
+	/**
+	 * Associate a value to a key in the map and update the results of the pairs of keys it belongs to
+	 * @param key the key
+	 * @param value the value
+	 * @return the previous value of the key, or null if the map did not contain the key
+	 */
+	public V put(K key, V value) {
+		V previousValue = map.put(key, value);
+		
+		K lowerKey = map.lowerKey(key);
+		if (lowerKey != null) {
+			updateOperation(lowerKey);
+		}
+		updateOperation(key);
+		return previousValue;
+	}
+	
+	/**
+	 * Remove a key from the map and update the result of the pair of keys around it
+	 * @param key the key
+	 * @return the previous value of the key, or null if the map did not contain the key
+	 */
+	public V remove(K key) {
+		if (!map.containsKey(key)) {
+			return null;
+		}
+		
+		V previousValue = map.remove(key);
+		removeOperation(key);
+		K lowerKey = map.lowerKey(key);
+		if (lowerKey != null) {
+			updateOperation(lowerKey);
+		}
+		return previousValue;
+	}
+	
+	/**
+	 * Get the indexed map, which must not be modified directly
+	 * @return an unmodifiable view of the map
+	 */
+	public NavigableMap<K, V> getMap() {
+		return Collections.unmodifiableNavigableMap(map);
+	}
+	
+	/**
+	 * Get the number of results, that is the number of keys in the map but the last one
+	 * @return the number of results
+	 */
+	public int size() {
+		return operations.size();
+	}
+	
+	/**
+	 * Get the results of the function applied to consecutive values in the map
+	 * @return an unmodifiable sorted map with the same keys of the map but the last one because it has no successor and the result of the function applied to two consecutive values
+	 */
+	public SortedMap<K, Operation<K, R>> getResults() {
+		return Collections.unmodifiableSortedMap(operations);
+	}
+	
+	/**
+	 * Get the result of the function applied to the value of a key and the value of its next key
+	 * @param key the key
+	 * @return the operation of the key, or null if the key is not in the map or is the last one
+	 */
+	public Operation<K, R> getResult(K key) {
+		return operations.get(key);
+	}
+	
+	/**
+	 * Filter all maximum results
+	 * @return a list of all maximum results in the order of the map
+	 */
+	public List<Operation<K, R>> filterAllMax() {
+		return operations.isEmpty() ? new ArrayList<>() : toOperations(keysByResult.lastEntry().getValue());
+	}
+	
+	/**
+	 * Filter all minimum results
+	 * @return a list of all minimum results in the order of the map
+	 */
+	public List<Operation<K, R>> filterAllMin() {
+		return operations.isEmpty() ? new ArrayList<>() : toOperations(keysByResult.firstEntry().getValue());
+	}
+	
+	/**
+	 * Filter all results equal to a result according to the comparator of the index
+	 * @param result the result
+	 * @return a list of results equal to the result in the order of the map
+	 */
+	public List<Operation<K, R>> filterResults(R result) {
+		NavigableSet<K> keys = keysByResult.get(result);
+		return keys == null ? new ArrayList<>() : toOperations(keys);
+	}
+	
+	/**
+	 * Find all keys and their successors for which the values match or do not match the predicate of the index. 
+	 * The results of the index must be booleans.
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return a list of keys and their successors for which the values match or do not match the predicate
+	 */
+	@SuppressWarnings("unchecked")
+	public List<KeyPair<K>> filterTests(boolean filter) {
+		NavigableSet<K> keys = keysByResult.get((R) Boolean.valueOf(filter));
+		List<KeyPair<K>> result = new ArrayList<>();
+		if (keys != null) {
+			for (K key : keys) {
+				result.add(new KeyPair<K>(key, operations.get(key).getNextKey()));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Compute the average of the results, which must be numbers
+	 * @return the average of the results
+	 */
+	public double average() {
+		if (nonNumericResults > 0)
+			throw new IllegalStateException("Results must be numbers");
+		if (operations.isEmpty())
+			return 0;
+		
+		if (largestMagnitude > absoluteSum * PRECISION_LOSS_RATIO) {
+			recomputeSum();
+		}
+		return sum.getSum() / operations.size();
+	}
+	
+	/*
+	 * Number of times the sum has been recomputed
+	 */
+	int getSumRecomputations() {
+		return sumRecomputations;
+	}
+	
+	private void updateOperation(K key) {
+		removeOperation(key);
+		Map.Entry<K, V> nextEntry = map.higherEntry(key);
+		if (nextEntry != null) {
+			addOperation(key, nextEntry.getKey(), biFunction.apply(map.get(key), nextEntry.getValue()));
+		}
+	}
+	
+	private void addOperation(K key, K nextKey, R result) {
+		operations.put(key, new Operation<K, R>(key, nextKey, result));
+		keysByResult.computeIfAbsent(result, r -> new TreeSet<K>(map.comparator())).add(key);
+		if (result instanceof Number) {
+			addToSum(((Number) result).doubleValue(), 1);
+		} else {
+			nonNumericResults++;
+		}
+	}
+	
+	private void removeOperation(K key) {
+		Operation<K, R> operation = operations.remove(key);
+		if (operation == null) {
+			return;
+		}
+		
+		R result = operation.getResult();
+		NavigableSet<K> keys = keysByResult.get(result);
+		keys.remove(key);
+		if (keys.isEmpty()) {
+			keysByResult.remove(result);
+		}
+		if (result instanceof Number) {
+			addToSum(((Number) result).doubleValue(), -1);
+		} else {
+			nonNumericResults--;
+		}
+	}
+	
+	/*
+	 * Add (sign 1) or remove (sign -1) a result to the sum
+	 */
+	private void addToSum(double value, int sign) {
+		if (sign > 0) {
+			sum.add(value);
+		} else {
+			sum.remove(value);
+		}
+		if (Double.isFinite(value)) {
+			absoluteSum += sign * Math.abs(value);
+			largestMagnitude = Math.max(largestMagnitude, Math.abs(value));
+		}
+	}
+	
+	private void recomputeSum() {
+		sum.clear();
+		absoluteSum = 0;
+		largestMagnitude = 0;
+		for (Operation<K, R> operation : operations.values()) {
+			double value = ((Number) operation.getResult()).doubleValue();
+			sum.add(value);
+			if (Double.isFinite(value)) {
+				absoluteSum += Math.abs(value);
+				largestMagnitude = Math.max(largestMagnitude, Math.abs(value));
+			}
+		}
+		sumRecomputations++;
+	}
+	
+	private List<Operation<K, R>> toOperations(NavigableSet<K> keys) {
+		List<Operation<K, R>> result = new ArrayList<>(keys.size());
+		for (K key : keys) {
+			result.add(operations.get(key));
+		}
+		return result;
+	}
+	
+}
@@ -0,0 +1,82 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterator of the results of a function applied to each entry and its next entry of an ordered iterator of entries,
+ * holding only the previous entry
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @param <T> the type of the results
+ */
+final class ConsecutivePairIterator<K, V, T> implements Iterator<T> {
+	
+	@FunctionalInterface
+	interface PairFunction<K, V, T> {
+		T apply(K key, K nextKey, V value, V nextValue);
+	}
+	
+	private final Iterator<? extends Map.Entry<K, V>> entries;
+	private final PairFunction<K, V, T> pairFunction;
+	private K key;
+	private V value;
+	private boolean started;
+	
+	ConsecutivePairIterator(Iterator<? extends Map.Entry<K, V>> entries, PairFunction<K, V, T> pairFunction) {
+		this.entries = entries;
+		this.pairFunction = pairFunction;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		if (!started) {
+			if (!entries.hasNext())
+				return false;
+			Map.Entry<K, V> entry = entries.next();
+			key = entry.getKey();
+			value = entry.getValue();
+			started = true;
+		}
+		return entries.hasNext();
+	}
+	
+	@Override
+	public T next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		
+		Map.Entry<K, V> nextEntry = entries.next();
+		K nextKey = nextEntry.getKey();
+		V nextValue = nextEntry.getValue();
+		T result = pairFunction.apply(key, nextKey, value, nextValue);
+		key = nextKey;
+		value = nextValue;
+		return result;
+	}
+	
+}
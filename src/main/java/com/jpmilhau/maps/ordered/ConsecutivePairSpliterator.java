@@ -0,0 +1,124 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator of the operations on consecutive entries of an ordered spliterator of entries.
+ * It splits where the spliterator of entries splits, the first entry of the suffix being also the fence of the prefix,
+ * so that the pair across the split is not lost.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @param <R> the type of the results
+ */
+final class ConsecutivePairSpliterator<K, V, R> implements Spliterator<Operation<K, R>> {
+	
+	private final Spliterator<? extends Map.Entry<K, V>> entries;
+	private final BiFunction<V, V, R> biFunction;
+	// the entry before the next entry of the spliterator of entries, null until the first entry is read
+	private Map.Entry<K, V> previous;
+	// the entry after the last entry of the spliterator of entries, null at the end of the map
+	private Map.Entry<K, V> fence;
+	private Map.Entry<K, V> next;
+	
+	ConsecutivePairSpliterator(Spliterator<? extends Map.Entry<K, V>> entries, BiFunction<V, V, R> biFunction) {
+		this(entries, biFunction, null, null);
+	}
+	
+	private ConsecutivePairSpliterator(Spliterator<? extends Map.Entry<K, V>> entries, BiFunction<V, V, R> biFunction, Map.Entry<K, V> previous, Map.Entry<K, V> fence) {
+		this.entries = entries;
+		this.biFunction = biFunction;
+		this.previous = previous;
+		this.fence = fence;
+	}
+	
+	@Override
+	public boolean tryAdvance(Consumer<? super Operation<K, R>> action) {
+		if (previous == null) {
+			if (!advanceEntry())
+				return false;
+			previous = next;
+		}
+		if (!advanceEntry())
+			return false;
+		
+		Map.Entry<K, V> entry = next;
+		action.accept(new Operation<K, R>(previous.getKey(), entry.getKey(), biFunction.apply(previous.getValue(), entry.getValue())));
+		previous = entry;
+		return true;
+	}
+	
+	@Override
+	public Spliterator<Operation<K, R>> trySplit() {
+		Spliterator<? extends Map.Entry<K, V>> prefix = entries.trySplit();
+		if (prefix == null)
+			return null;
+		
+		if (!entries.tryAdvance(entry -> next = entry)) {
+			// the suffix is empty, so the prefix takes all the remaining entries
+			ConsecutivePairSpliterator<K, V, R> prefixSpliterator = new ConsecutivePairSpliterator<>(prefix, biFunction, previous, fence);
+			previous = null;
+			fence = null;
+			return prefixSpliterator;
+		}
+		// the first entry of the suffix ends the prefix and starts the suffix
+		Map.Entry<K, V> middle = next;
+		ConsecutivePairSpliterator<K, V, R> prefixSpliterator = new ConsecutivePairSpliterator<>(prefix, biFunction, previous, middle);
+		previous = middle;
+		return prefixSpliterator;
+	}
+	
+	@Override
+	public long estimateSize() {
+		long entryCount = entries.estimateSize();
+		if (entryCount == Long.MAX_VALUE)
+			return Long.MAX_VALUE;
+		
+		entryCount += (previous == null ? 0 : 1) + (fence == null ? 0 : 1);
+		return Math.max(entryCount - 1, 0);
+	}
+	
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL | (entries.characteristics() & (SIZED | SUBSIZED));
+	}
+	
+	/*
+	 * Read the next entry of the spliterator of entries, or else the fence
+	 */
+	private boolean advanceEntry() {
+		if (entries.tryAdvance(entry -> next = entry))
+			return true;
+		if (fence == null)
+			return false;
+		next = fence;
+		fence = null;
+		return true;
+	}
+	
+}
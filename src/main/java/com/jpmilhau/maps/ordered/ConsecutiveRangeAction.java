@@ -0,0 +1,93 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+
+/**
+ * Fork/join action applying a function to consecutive values of ranges of keys in a sorted map.
+ * Range i starts at the key boundaries[i] and holds rangeSize pairs, its last pair ending at the first key of the next range, 
+ * so that the pair between two neighbouring ranges is evaluated once.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the key type of the map
+ * @param <V> the value type of the map
+ * @param <R> the type of the result of the function applied to two consecutive values
+ */
+final class ConsecutiveRangeAction<K, V, R> extends RecursiveAction {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final SortedMap<K, V> map;
+	private final BiFunction<V, V, R> biFunction;
+	private final Object[] boundaries;
+	private final int rangeSize;
+	private final Operation<K, R>[] results;
+	private final int fromRange;
+	private final int toRange;
+	
+	ConsecutiveRangeAction(SortedMap<K, V> map, BiFunction<V, V, R> biFunction, Object[] boundaries, int rangeSize, Operation<K, R>[] results, int fromRange, int toRange) {
+		this.map = map;
+		this.biFunction = biFunction;
+		this.boundaries = boundaries;
+		this.rangeSize = rangeSize;
+		this.results = results;
+		this.fromRange = fromRange;
+		this.toRange = toRange;
+	}
+
+	@Override
+	protected void compute() {
+		if (toRange - fromRange == 1) {
+			computeRange(fromRange);
+		} else {
+			int middleRange = (fromRange + toRange) >>> 1;
+			invokeAll(
+				new ConsecutiveRangeAction<>(map, biFunction, boundaries, rangeSize, results, fromRange, middleRange), 
+				new ConsecutiveRangeAction<>(map, biFunction, boundaries, rangeSize, results, middleRange, toRange)
+			);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void computeRange(int range) {
+		int index = range * rangeSize;
+		int toIndex = Math.min(index + rangeSize, results.length);
+		Iterator<Map.Entry<K, V>> iterator = map.tailMap((K) boundaries[range]).entrySet().iterator();
+		Map.Entry<K, V> entry = iterator.next();
+		K key = entry.getKey();
+		V value = entry.getValue();
+		for (; index < toIndex; index++) {
+			entry = iterator.next();
+			K nextKey = entry.getKey();
+			V nextValue = entry.getValue();
+			results[index] = new Operation<K, R>(key, nextKey, biFunction.apply(value, nextValue));
+			key = nextKey;
+			value = nextValue;
+		}
+	}
+	
+}
@@ -0,0 +1,346 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+
+/**
+ * Index of the results of a function applied to consecutive values in a sorted map, built once to answer queries restricted to a range of keys.
+ * The maximum and minimum (with all their ties) and the sum and average of the results are answered in O(log n) with segment trees, 
+ * and the count of successful or failed tests in O(1).
+ * A range [fromKey, toKey) holds the operations whose key is greater than or equal to fromKey and strictly less than toKey.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the key type of the map
+ * @param <R> the type of the result of the function applied to two consecutive values
+ */
+public final class ConsecutiveRangeIndex<K, R> {
+	
+	private final Object[] keys;
+	private final Object[] results;
+	private final Comparator<? super K> keyComparator;
+	private final ExtremeTree maxTree;
+	private final ExtremeTree minTree;
+	private final double[] sumTree;
+	private final int[] successfulTestCounts;
+	
+	private ConsecutiveRangeIndex(Object[] keys, Object[] results, Comparator<? super K> keyComparator, Comparator<? super R> comparator) {
+		this.keys = keys;
+		this.results = results;
+		this.keyComparator = keyComparator;
+		this.maxTree = new ExtremeTree(comparator);
+		this.minTree = new ExtremeTree(comparator.reversed());
+		this.sumTree = buildSumTree();
+		this.successfulTestCounts = buildSuccessfulTestCounts();
+	}
+	
+	/**
+	 * Build an index of the results of a function applied to consecutive values in a sorted map, the results being compared by their natural order
+	 * @param map the sorted map
+	 * @param biFunction the function to apply to consecutive values in the sorted map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return the index
+	 */
+	public static <K, V, R extends Comparable<? super R>> ConsecutiveRangeIndex<K, R> of(SortedMap<K, V> map, BiFunction<V, V, R> biFunction) {
+		return of(map, biFunction, Comparator.<R>naturalOrder());
+	}
+	
+	/**
+	 * Build an index of the results of a function applied to consecutive values in a sorted map
+	 * @param map the sorted map
+	 * @param biFunction the function to apply to consecutive values in the sorted map
+	 * @param comparator the comparator of the results
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return the index
+	 */
+	public static <K, V, R> ConsecutiveRangeIndex<K, R> of(SortedMap<K, V> map, BiFunction<V, V, R> biFunction, Comparator<? super R> comparator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		Objects.requireNonNull(comparator);
+		if (map.size() == 1)
+			throw new IllegalArgumentException("Map cannot contain one single entry");
+		
+		Object[] keys = new Object[map.size()];
+		Object[] results = new Object[Math.max(keys.length - 1, 0)];
+		int index = 0;
+		V previousValue = null;
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			if (index > 0) {
+				results[index - 1] = biFunction.apply(previousValue, entry.getValue());
+			}
+			keys[index++] = entry.getKey();
+			previousValue = entry.getValue();
+		}
+		return new ConsecutiveRangeIndex<>(keys, results, map.comparator(), comparator);
+	}
+	
+	/**
+	 * Build an index of the results of a predicate applied to consecutive values in a sorted map
+	 * @param map the sorted map
+	 * @param biPredicate the predicate to apply to consecutive values in the sorted map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the index
+	 */
+	public static <K, V> ConsecutiveRangeIndex<K, Boolean> ofPredicate(SortedMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(biPredicate);
+		return of(map, biPredicate::test);
+	}
+	
+	/**
+	 * Get the number of results, that is the number of keys in the map but the last one
+	 * @return the number of results
+	 */
+	public int size() {
+		return results.length;
+	}
+	
+	/**
+	 * Filter all maximum results in a range of keys
+	 * @param fromKey low endpoint (inclusive) of the keys
+	 * @param toKey high endpoint (exclusive) of the keys
+	 * @return a list of all maximum results in the range in the order of the map
+	 */
+	public List<Operation<K, R>> filterAllMax(K fromKey, K toKey) {
+		return maxTree.filterAll(fromIndex(fromKey, toKey), toIndex(toKey));
+	}
+	
+	/**
+	 * Filter all minimum results in a range of keys
+	 * @param fromKey low endpoint (inclusive) of the keys
+	 * @param toKey high endpoint (exclusive) of the keys
+	 * @return a list of all minimum results in the range in the order of the map
+	 */
+	public List<Operation<K, R>> filterAllMin(K fromKey, K toKey) {
+		return minTree.filterAll(fromIndex(fromKey, toKey), toIndex(toKey));
+	}
+	
+	/**
+	 * Compute the sum of the results in a range of keys, the results being numbers
+	 * @param fromKey low endpoint (inclusive) of the keys
+	 * @param toKey high endpoint (exclusive) of the keys
+	 * @return the sum of the results in the range
+	 */
+	public double sum(K fromKey, K toKey) {
+		if (sumTree == null)
+			throw new IllegalStateException("Results must be numbers");
+		return sum(1, 0, results.length - 1, fromIndex(fromKey, toKey), toIndex(toKey) - 1);
+	}
+	
+	/**
+	 * Compute the average of the results in a range of keys, the results being numbers
+	 * @param fromKey low endpoint (inclusive) of the keys
+	 * @param toKey high endpoint (exclusive) of the keys
+	 * @return the average of the results in the range, or 0 if the range is empty
+	 */
+	public double average(K fromKey, K toKey) {
+		int count = toIndex(toKey) - fromIndex(fromKey, toKey);
+		return count == 0 ? 0 : sum(fromKey, toKey) / count;
+	}
+	
+	/**
+	 * Count the successful or failed tests in a range of keys, the results being booleans
+	 * @param fromKey low endpoint (inclusive) of the keys
+	 * @param toKey high endpoint (exclusive) of the keys
+	 * @param filter whether the tests to count must be positive (true) or negative (false)
+	 * @return the number of tests matching the filter in the range
+	 */
+	public int countTests(K fromKey, K toKey, boolean filter) {
+		if (successfulTestCounts == null)
+			throw new IllegalStateException("Results must be booleans");
+		int fromIndex = fromIndex(fromKey, toKey);
+		int toIndex = toIndex(toKey);
+		int successfulTests = successfulTestCounts[toIndex] - successfulTestCounts[fromIndex];
+		return filter ? successfulTests : (toIndex - fromIndex) - successfulTests;
+	}
+	
+	private int fromIndex(K fromKey, K toKey) {
+		if (compareKeys(fromKey, toKey) > 0)
+			throw new IllegalArgumentException("fromKey > toKey");
+		return lowerBound(fromKey);
+	}
+	
+	private int toIndex(K toKey) {
+		return lowerBound(toKey);
+	}
+	
+	/*
+	 * Index of the first operation whose key is greater than or equal to the key
+	 */
+	@SuppressWarnings("unchecked")
+	private int lowerBound(K key) {
+		Objects.requireNonNull(key);
+		int index = Arrays.binarySearch(keys, 0, results.length, key, (Comparator<Object>) comparator());
+		return index >= 0 ? index : -(index + 1);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private int compareKeys(K key1, K key2) {
+		return ((Comparator<Object>) comparator()).compare(key1, key2);
+	}
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Comparator<?> comparator() {
+		return keyComparator != null ? keyComparator : (Comparator) Comparator.naturalOrder();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private Operation<K, R> getOperation(int index) {
+		return new Operation<K, R>((K) keys[index], (K) keys[index + 1], (R) results[index]);
+	}
+	
+	private double[] buildSumTree() {
+		for (Object result : results) {
+			if (!(result instanceof Number)) {
+				return null;
+			}
+		}
+		double[] tree = new double[Math.max(4 * results.length, 1)];
+		if (results.length > 0) {
+			buildSumTree(tree, 1, 0, results.length - 1);
+		}
+		return tree;
+	}
+	
+	private void buildSumTree(double[] tree, int node, int low, int high) {
+		if (low == high) {
+			tree[node] = ((Number) results[low]).doubleValue();
+			return;
+		}
+		int middle = (low + high) >>> 1;
+		buildSumTree(tree, 2 * node, low, middle);
+		buildSumTree(tree, 2 * node + 1, middle + 1, high);
+		tree[node] = tree[2 * node] + tree[2 * node + 1];
+	}
+	
+	private double sum(int node, int low, int high, int from, int to) {
+		if (from > high || to < low || from > to) {
+			return 0;
+		}
+		if (from <= low && high <= to) {
+			return sumTree[node];
+		}
+		int middle = (low + high) >>> 1;
+		return sum(2 * node, low, middle, from, to) + sum(2 * node + 1, middle + 1, high, from, to);
+	}
+	
+	private int[] buildSuccessfulTestCounts() {
+		int[] counts = new int[results.length + 1];
+		for (int i = 0; i < results.length; i++) {
+			if (!(results[i] instanceof Boolean)) {
+				return null;
+			}
+			counts[i + 1] = counts[i] + (((Boolean) results[i]) ? 1 : 0);
+		}
+		return counts;
+	}
+	
+	/*
+	 * Segment tree storing in each node the index of the greatest result of its range according to a comparator
+	 */
+	private final class ExtremeTree {
+		
+		private final Comparator<Object> comparator;
+		private final int[] tree;
+		
+		@SuppressWarnings("unchecked")
+		private ExtremeTree(Comparator<? super R> comparator) {
+			this.comparator = (Comparator<Object>) comparator;
+			this.tree = new int[Math.max(4 * results.length, 1)];
+			if (results.length > 0) {
+				build(1, 0, results.length - 1);
+			}
+		}
+		
+		private List<Operation<K, R>> filterAll(int fromIndex, int toIndex) {
+			List<Operation<K, R>> extremes = new ArrayList<>();
+			if (fromIndex < toIndex) {
+				int extremeIndex = find(1, 0, results.length - 1, fromIndex, toIndex - 1);
+				collect(1, 0, results.length - 1, fromIndex, toIndex - 1, results[extremeIndex], extremes);
+			}
+			return extremes;
+		}
+		
+		private void build(int node, int low, int high) {
+			if (low == high) {
+				tree[node] = low;
+				return;
+			}
+			int middle = (low + high) >>> 1;
+			build(2 * node, low, middle);
+			build(2 * node + 1, middle + 1, high);
+			tree[node] = greatest(tree[2 * node], tree[2 * node + 1]);
+		}
+		
+		private int find(int node, int low, int high, int from, int to) {
+			if (from <= low && high <= to) {
+				return tree[node];
+			}
+			int middle = (low + high) >>> 1;
+			if (to <= middle) {
+				return find(2 * node, low, middle, from, to);
+			}
+			if (from > middle) {
+				return find(2 * node + 1, middle + 1, high, from, to);
+			}
+			return greatest(find(2 * node, low, middle, from, to), find(2 * node + 1, middle + 1, high, from, to));
+		}
+		
+		/*
+		 * A node inside the range whose greatest result is not the extreme has no tie and is pruned
+		 */
+		private void collect(int node, int low, int high, int from, int to, Object extreme, List<Operation<K, R>> extremes) {
+			if (from > high || to < low) {
+				return;
+			}
+			boolean inside = from <= low && high <= to;
+			if (inside && comparator.compare(results[tree[node]], extreme) != 0) {
+				return;
+			}
+			if (low == high) {
+				extremes.add(getOperation(low));
+				return;
+			}
+			int middle = (low + high) >>> 1;
+			collect(2 * node, low, middle, from, to, extreme, extremes);
+			collect(2 * node + 1, middle + 1, high, from, to, extreme, extremes);
+		}
+		
+		private int greatest(int index1, int index2) {
+			return comparator.compare(results[index1], results[index2]) >= 0 ? index1 : index2;
+		}
+		
+	}
+	
+}
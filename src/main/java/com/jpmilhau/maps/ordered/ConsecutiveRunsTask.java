@@ -0,0 +1,221 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiPredicate;
+
+/**
+ * Fork/join task finding the groups of consecutive keys and their successors for which the values match or do not match a predicate 
+ * in ranges of keys of a sorted map.
+ * Range i starts at the key boundaries[i] and holds rangeSize pairs, as in {@link ConsecutiveRangeAction}.
+ * Each range is summarized by its prefix run, its interior runs and its suffix run, and the summaries of neighbouring ranges are merged, 
+ * joining the suffix run of the left range and the prefix run of the right range, so that the runs are the same as a sequential scan.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the key type of the map
+ * @param <V> the value type of the map
+ */
+final class ConsecutiveRunsTask<K, V> extends RecursiveTask<ConsecutiveRunsTask.RunSummary<K>> {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final SortedMap<K, V> map;
+	private final BiPredicate<V, V> biPredicate;
+	private final boolean filter;
+	private final int minGroupSize;
+	private final int maxGroupSize;
+	private final Object[] boundaries;
+	private final int rangeSize;
+	private final int size;
+	private final int fromRange;
+	private final int toRange;
+	
+	ConsecutiveRunsTask(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter, int minGroupSize, int maxGroupSize, Object[] boundaries, int rangeSize, int size, int fromRange, int toRange) {
+		this.map = map;
+		this.biPredicate = biPredicate;
+		this.filter = filter;
+		this.minGroupSize = minGroupSize;
+		this.maxGroupSize = maxGroupSize;
+		this.boundaries = boundaries;
+		this.rangeSize = rangeSize;
+		this.size = size;
+		this.fromRange = fromRange;
+		this.toRange = toRange;
+	}
+	
+	@Override
+	protected RunSummary<K> compute() {
+		if (toRange - fromRange == 1) {
+			return computeRange(fromRange);
+		}
+		int middleRange = (fromRange + toRange) >>> 1;
+		ConsecutiveRunsTask<K, V> right = new ConsecutiveRunsTask<>(map, biPredicate, filter, minGroupSize, maxGroupSize, boundaries, rangeSize, size, middleRange, toRange);
+		right.fork();
+		RunSummary<K> left = new ConsecutiveRunsTask<>(map, biPredicate, filter, minGroupSize, maxGroupSize, boundaries, rangeSize, size, fromRange, middleRange).compute();
+		return left.merge(right.join());
+	}
+	
+	@SuppressWarnings("unchecked")
+	private RunSummary<K> computeRange(int range) {
+		int index = range * rangeSize;
+		int toIndex = Math.min(index + rangeSize, size);
+		Iterator<Map.Entry<K, V>> iterator = map.tailMap((K) boundaries[range]).entrySet().iterator();
+		Map.Entry<K, V> entry = iterator.next();
+		K key = entry.getKey();
+		V value = entry.getValue();
+		RunSummary<K> summary = new RunSummary<>(key, toIndex - index, minGroupSize, maxGroupSize);
+		boolean inPrefix = true;
+		K runStartKey = null;
+		int runLength = 0;
+		for (; index < toIndex; index++) {
+			entry = iterator.next();
+			K nextKey = entry.getKey();
+			V nextValue = entry.getValue();
+			if (biPredicate.test(value, nextValue) == filter) {
+				if (inPrefix) {
+					summary.prefixLength++;
+					summary.prefixEndKey = nextKey;
+				} else {
+					if (runLength == 0) {
+						runStartKey = key;
+					}
+					runLength++;
+				}
+			} else {
+				if (runLength > 0) {
+					summary.addRun(runStartKey, key, runLength);
+				}
+				inPrefix = false;
+				runLength = 0;
+			}
+			key = nextKey;
+			value = nextValue;
+		}
+		summary.lastKey = key;
+		if (inPrefix) {
+			summary.suffixLength = summary.prefixLength;
+			summary.suffixStartKey = summary.firstKey;
+		} else if (runLength > 0) {
+			summary.suffixLength = runLength;
+			summary.suffixStartKey = runStartKey;
+		}
+		return summary;
+	}
+	
+	/**
+	 * Summary of the runs of a range of consecutive pairs of keys: 
+	 * the run starting at the first key, the run ending at the last key and the complete runs between them.
+	 * When all the pairs of the range match, the prefix run and the suffix run are the whole range.
+	 *
+	 * @param <K> the key type of the map
+	 */
+	static final class RunSummary<K> {
+		
+		private final K firstKey;
+		private final int minGroupSize;
+		private final int maxGroupSize;
+		private final List<RunSpan<K>> runs = new ArrayList<>();
+		private K lastKey;
+		private int pairs;
+		private int prefixLength;
+		private K prefixEndKey;
+		private int suffixLength;
+		private K suffixStartKey;
+		
+		private RunSummary(K firstKey, int pairs, int minGroupSize, int maxGroupSize) {
+			this.firstKey = firstKey;
+			this.pairs = pairs;
+			this.minGroupSize = minGroupSize;
+			this.maxGroupSize = maxGroupSize;
+		}
+		
+		/*
+		 * Merge the summary of the range starting at the last key of this range, reusing this summary
+		 */
+		private RunSummary<K> merge(RunSummary<K> right) {
+			boolean full = isFull();
+			boolean rightFull = right.isFull();
+			if (!full && !rightFull && suffixLength + right.prefixLength > 0) {
+				addRun(suffixLength > 0 ? suffixStartKey : lastKey, right.prefixLength > 0 ? right.prefixEndKey : lastKey, suffixLength + right.prefixLength);
+			}
+			runs.addAll(right.runs);
+			
+			if (full) {
+				prefixLength += right.prefixLength;
+				prefixEndKey = right.prefixLength > 0 ? right.prefixEndKey : prefixEndKey;
+			}
+			if (rightFull) {
+				suffixStartKey = suffixLength > 0 ? suffixStartKey : right.suffixStartKey;
+				suffixLength += right.suffixLength;
+			} else {
+				suffixStartKey = right.suffixStartKey;
+				suffixLength = right.suffixLength;
+			}
+			pairs += right.pairs;
+			lastKey = right.lastKey;
+			return this;
+		}
+		
+		/*
+		 * The runs of the whole map, the prefix run and the suffix run being complete
+		 */
+		List<RunSpan<K>> getRuns() {
+			if (isFull()) {
+				List<RunSpan<K>> fullRun = new ArrayList<>(1);
+				if (inRange(pairs)) {
+					fullRun.add(new RunSpan<K>(firstKey, lastKey, pairs));
+				}
+				return fullRun;
+			}
+			List<RunSpan<K>> allRuns = new ArrayList<>(runs.size() + 2);
+			if (inRange(prefixLength)) {
+				allRuns.add(new RunSpan<K>(firstKey, prefixEndKey, prefixLength));
+			}
+			allRuns.addAll(runs);
+			if (inRange(suffixLength)) {
+				allRuns.add(new RunSpan<K>(suffixStartKey, lastKey, suffixLength));
+			}
+			return allRuns;
+		}
+		
+		private boolean isFull() {
+			return prefixLength == pairs;
+		}
+		
+		private boolean inRange(int length) {
+			return length > 0 && length >= minGroupSize && length <= maxGroupSize;
+		}
+		
+		private void addRun(K startKey, K endKey, int length) {
+			if (inRange(length)) {
+				runs.add(new RunSpan<K>(startKey, endKey, length));
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,73 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * Class to store the double results of an operation applied to the values of each key and its next key in an ordered map
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of a key
+ */
+public final class DoubleOperationSeries<K> extends AbstractOperationSeries<K> {
+	
+	private final double[] results;
+	
+	DoubleOperationSeries(Object[] keys, double[] results) {
+		super(keys);
+		this.results = results;
+	}
+	
+	/**
+	 * Get the result of an operation
+	 * @param index the index of the operation
+	 * @return the result of the operation
+	 */
+	public double getResult(int index) {
+		checkIndex(index);
+		return results[index];
+	}
+	
+	/**
+	 * Get an operation
+	 * @param index the index of the operation
+	 * @return the operation with its key, its next key and its boxed result
+	 */
+	public Operation<K, Double> getOperation(int index) {
+		return new Operation<K, Double>(getKey(index), getNextKey(index), getResult(index));
+	}
+	
+	/**
+	 * Get a copy of the results
+	 * @return the results in the order of the keys
+	 */
+	public double[] toArray() {
+		return Arrays.copyOf(results, results.length);
+	}
+
+	@Override
+	public String toString() {
+		return "DoubleOperationSeries [size=" + size() + "]";
+	}
+	
+}
@@ -0,0 +1,75 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterator of the groups of consecutive tests of an iterator of tests, holding only the current group
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of the keys
+ */
+final class GroupedConsecutiveTestIterator<K> implements Iterator<List<KeyPair<K>>> {
+	
+	private final Iterator<Operation<K, Boolean>> tests;
+	private final boolean filter;
+	private List<KeyPair<K>> nextGroup;
+	
+	GroupedConsecutiveTestIterator(Iterator<Operation<K, Boolean>> tests, boolean filter) {
+		this.tests = tests;
+		this.filter = filter;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		if (nextGroup == null) {
+			List<KeyPair<K>> group = new ArrayList<>();
+			while (tests.hasNext()) {
+				Operation<K, Boolean> test = tests.next();
+				if (test.getResult() == filter) {
+					group.add(new KeyPair<K>(test.getKey(), test.getNextKey()));
+				} else if (!group.isEmpty()) {
+					break;
+				}
+			}
+			if (!group.isEmpty()) {
+				nextGroup = group;
+			}
+		}
+		return nextGroup != null;
+	}
+	
+	@Override
+	public List<KeyPair<K>> next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		
+		List<KeyPair<K>> group = nextGroup;
+		nextGroup = null;
+		return group;
+	}
+	
+}
@@ -0,0 +1,191 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recorder keeping in memory the metrics of the calls to {@link OrderedMapUtils} aggregated by method and map type, 
+ * with a histogram of the durations of the calls in power of two buckets of nanoseconds.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public final class InMemoryMetricsRecorder implements MetricsRecorder {
+	
+	private static final Statistics EMPTY_STATISTICS = new Statistics();
+	
+	private final Map<String, Map<Class<?>, Statistics>> statistics = new ConcurrentHashMap<>();
+	
+	@Override
+	public void record(CallReport report) {
+		Objects.requireNonNull(report);
+		statistics.computeIfAbsent(report.getMethod(), method -> new ConcurrentHashMap<>())
+			.computeIfAbsent(report.getMapType(), mapType -> new Statistics())
+			.add(report);
+	}
+	
+	/**
+	 * @param method the name of the method of {@link OrderedMapUtils}
+	 * @param mapType the class of the map given to the method
+	 * @return the statistics of the calls to the method with a map of the type, empty if there were no calls
+	 */
+	public Statistics getStatistics(String method, Class<?> mapType) {
+		Map<Class<?>, Statistics> statisticsByMapType = statistics.get(method);
+		Statistics methodStatistics = statisticsByMapType == null ? null : statisticsByMapType.get(mapType);
+		return methodStatistics == null ? EMPTY_STATISTICS : methodStatistics;
+	}
+	
+	/**
+	 * @param method the name of the method of {@link OrderedMapUtils}
+	 * @return the statistics of the calls to the method with any type of map, empty if there were no calls
+	 */
+	public Statistics getStatistics(String method) {
+		Statistics methodStatistics = new Statistics();
+		Map<Class<?>, Statistics> statisticsByMapType = statistics.get(method);
+		if (statisticsByMapType != null) {
+			statisticsByMapType.values().forEach(methodStatistics::add);
+		}
+		return methodStatistics;
+	}
+	
+	/**
+	 * Forget all the calls recorded
+	 */
+	public void reset() {
+		statistics.clear();
+	}
+	
+	/**
+	 * 
+	 * Statistics of the calls to a method
+	 *
+	 */
+	public static final class Statistics {
+		
+		private static final int BUCKET_COUNT = Long.SIZE;
+		
+		private final LongAdder callCount = new LongAdder();
+		private final LongAdder entriesScanned = new LongAdder();
+		private final LongAdder pairsEvaluated = new LongAdder();
+		private final LongAdder resultsEmitted = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAdder functionNanos = new LongAdder();
+		private final AtomicLongArray latencyHistogram = new AtomicLongArray(BUCKET_COUNT);
+		
+		private Statistics() {
+		}
+		
+		private void add(CallReport report) {
+			callCount.increment();
+			entriesScanned.add(report.getEntriesScanned());
+			pairsEvaluated.add(report.getPairsEvaluated());
+			resultsEmitted.add(report.getResultsEmitted());
+			totalNanos.add(report.getTotalNanos());
+			functionNanos.add(report.getFunctionNanos());
+			latencyHistogram.incrementAndGet(bucket(report.getTotalNanos()));
+		}
+		
+		private void add(Statistics statistics) {
+			callCount.add(statistics.getCallCount());
+			entriesScanned.add(statistics.getEntriesScanned());
+			pairsEvaluated.add(statistics.getPairsEvaluated());
+			resultsEmitted.add(statistics.getResultsEmitted());
+			totalNanos.add(statistics.getTotalNanos());
+			functionNanos.add(statistics.getFunctionNanos());
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				latencyHistogram.addAndGet(i, statistics.latencyHistogram.get(i));
+			}
+		}
+		
+		public long getCallCount() {
+			return callCount.sum();
+		}
+		
+		public long getEntriesScanned() {
+			return entriesScanned.sum();
+		}
+		
+		public long getPairsEvaluated() {
+			return pairsEvaluated.sum();
+		}
+		
+		public long getResultsEmitted() {
+			return resultsEmitted.sum();
+		}
+		
+		public long getTotalNanos() {
+			return totalNanos.sum();
+		}
+		
+		public long getFunctionNanos() {
+			return functionNanos.sum();
+		}
+		
+		public long getLibraryNanos() {
+			return Math.max(0, getTotalNanos() - getFunctionNanos());
+		}
+		
+		/**
+		 * @return the number of calls by bucket of duration, the bucket i counting the calls lasting less than 2^i nanoseconds but not less than 2^(i-1)
+		 */
+		public long[] getLatencyHistogram() {
+			long[] histogram = new long[BUCKET_COUNT];
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				histogram[i] = latencyHistogram.get(i);
+			}
+			return histogram;
+		}
+		
+		/**
+		 * @param percentile the percentile, between 0 and 100
+		 * @return the upper bound in nanoseconds of the bucket of duration containing the percentile of the calls, 0 if there were no calls
+		 */
+		public long getLatencyPercentile(double percentile) {
+			if (percentile < 0 || percentile > 100)
+				throw new IllegalArgumentException("Percentile must be between 0 and 100");
+			
+			long[] histogram = getLatencyHistogram();
+			long count = 0;
+			for (long bucketCount : histogram) {
+				count += bucketCount;
+			}
+			long rank = (long) Math.ceil(percentile / 100 * count);
+			long cumulatedCount = 0;
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				cumulatedCount += histogram[i];
+				if (cumulatedCount > 0 && cumulatedCount >= rank)
+					return i == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << i;
+			}
+			return 0;
+		}
+		
+		private static int bucket(long nanos) {
+			return nanos <= 0 ? 0 : Math.min(BUCKET_COUNT - 1, BUCKET_COUNT - Long.numberOfLeadingZeros(nanos));
+		}
+		
+	}
+	
+}
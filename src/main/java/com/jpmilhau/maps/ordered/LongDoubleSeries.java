@@ -0,0 +1,403 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Sorted and immutable series of long keys and double values backed by two parallel arrays.
+ * It provides the operations of {@link OrderedMapUtils} on consecutive elements without boxing the keys and the values.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public final class LongDoubleSeries {
+	
+	private final long[] keys;
+	private final double[] values;
+	
+	private LongDoubleSeries(long[] keys, double[] values) {
+		this.keys = keys;
+		this.values = values;
+	}
+	
+	/**
+	 * Build a series from arrays of keys and values, the arrays being copied
+	 * @param keys the keys in strictly increasing order
+	 * @param values the value of each key
+	 * @return the series
+	 */
+	public static LongDoubleSeries of(long[] keys, double[] values) {
+		Objects.requireNonNull(keys);
+		Objects.requireNonNull(values);
+		if (keys.length != values.length)
+			throw new IllegalArgumentException("Keys and values must have the same length");
+		checkStrictlyIncreasing(keys);
+		
+		return new LongDoubleSeries(Arrays.copyOf(keys, keys.length), Arrays.copyOf(values, values.length));
+	}
+	
+	/**
+	 * Build a series from a sorted map
+	 * @param map a sorted map whose keys are in increasing order
+	 * @return the series
+	 */
+	public static LongDoubleSeries of(SortedMap<Long, Double> map) {
+		Objects.requireNonNull(map);
+		
+		long[] keys = new long[map.size()];
+		double[] values = new double[map.size()];
+		int index = 0;
+		for (Map.Entry<Long, Double> entry : map.entrySet()) {
+			keys[index] = entry.getKey();
+			values[index] = entry.getValue();
+			index++;
+		}
+		checkStrictlyIncreasing(keys);
+		
+		return new LongDoubleSeries(keys, values);
+	}
+	
+	/**
+	 * Get the number of keys in the series
+	 * @return the number of keys
+	 */
+	public int size() {
+		return keys.length;
+	}
+	
+	/**
+	 * Get a key
+	 * @param index the index of the key
+	 * @return the key
+	 */
+	public long getKey(int index) {
+		return keys[index];
+	}
+	
+	/**
+	 * Get a value
+	 * @param index the index of the key
+	 * @return the value of the key
+	 */
+	public double getValue(int index) {
+		return values[index];
+	}
+	
+	/**
+	 * Find the index of a key
+	 * @param key the key to search
+	 * @return the index of the key if it is in the series, otherwise (-(insertion point) - 1) as in {@link Arrays#binarySearch(long[], long)}
+	 */
+	public int indexOf(long key) {
+		return Arrays.binarySearch(keys, key);
+	}
+	
+	/**
+	 * Apply a function to consecutive values
+	 * @param operator the function to apply to consecutive values
+	 * @return a series with the same keys but the last one because it has no successor and the result of the function applied to two consecutive values
+	 */
+	public LongDoubleSeries apply(DoubleBinaryOperator operator) {
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry();
+		
+		int size = operationCount();
+		double[] results = new double[size];
+		for (int i = 0; i < size; i++) {
+			results[i] = operator.applyAsDouble(values[i], values[i + 1]);
+		}
+		return new LongDoubleSeries(Arrays.copyOf(keys, size), results);
+	}
+	
+	/**
+	 * Filter all maximum after a function be applied to consecutive values
+	 * @param operator the function to apply to consecutive values
+	 * @return a list of all maximum after a function be applied to consecutive values
+	 */
+	public List<Operation<Long, Double>> filterAllMax(DoubleBinaryOperator operator) {
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry();
+		
+		return filterAllExtremes(operator, 1);
+	}
+	
+	/**
+	 * Filter all minimum after a function be applied to consecutive values
+	 * @param operator the function to apply to consecutive values
+	 * @return a list of all minimum after a function be applied to consecutive values
+	 */
+	public List<Operation<Long, Double>> filterAllMin(DoubleBinaryOperator operator) {
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry();
+		
+		return filterAllExtremes(operator, -1);
+	}
+	
+	/**
+	 * Compute the average after a function be applied to consecutive values
+	 * @param operator the function to apply to consecutive values
+	 * @return the average after a function be applied to consecutive values
+	 */
+	public double average(DoubleBinaryOperator operator) {
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry();
+		
+		CompensatedSum sum = new CompensatedSum();
+		for (int i = 0; i < operationCount(); i++) {
+			sum.add(operator.applyAsDouble(values[i], values[i + 1]));
+		}
+		return sum.getAverage();
+	}
+	
+	/**
+	 * Apply a predicate to consecutive values
+	 * @param predicate the predicate to apply to consecutive values
+	 * @return a bit set where the bit at the index of a key is set if the values of the key and its next key match the predicate
+	 */
+	public BitSet test(DoubleBiPredicate predicate) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		
+		BitSet results = new BitSet(operationCount());
+		for (int i = 0; i < operationCount(); i++) {
+			if (predicate.test(values[i], values[i + 1])) {
+				results.set(i);
+			}
+		}
+		return results;
+	}
+	
+	/**
+	 * Find all keys and its successors for which the values match or do not match a predicate
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return a list of keys and its successor for which the values match or do not match the predicate
+	 */
+	public List<KeyPair<Long>> filterTests(DoubleBiPredicate predicate, boolean filter) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		
+		List<KeyPair<Long>> result = new ArrayList<>();
+		for (int i = 0; i < operationCount(); i++) {
+			if (predicate.test(values[i], values[i + 1]) == filter) {
+				result.add(new KeyPair<Long>(keys[i], keys[i + 1]));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Find all groups of keys and its successors for which the values match or do not match consecutively a predicate
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return a list of list of keys and its successor for which the values match or do not match consecutively the predicate
+	 */
+	public List<List<KeyPair<Long>>> filterGroupedConsecutiveTests(DoubleBiPredicate predicate, boolean filter) {
+		return filterGroupedConsecutiveTests(predicate, filter, 1, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Find all groups of keys and its successors for which the values match or do not match consecutively a predicate.
+	 * The groups must have a minimum and a maximum size.
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param minGroupSize minimum size of the group
+	 * @param maxGroupSize maximum size of the group
+	 * @return a list of list of keys and its successor, matching min and max size, for which the values match or do not match consecutively the predicate
+	 */
+	public List<List<KeyPair<Long>>> filterGroupedConsecutiveTests(DoubleBiPredicate predicate, boolean filter, int minGroupSize, int maxGroupSize) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		
+		List<List<KeyPair<Long>>> result = new ArrayList<>();
+		Runs runs = findRuns(predicate, filter);
+		for (int i = 0; i < runs.size(); i++) {
+			if (runs.getLength(i) >= minGroupSize && runs.getLength(i) <= maxGroupSize) {
+				result.add(toKeyPairs(runs.getStart(i), runs.getLength(i)));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Filter all groups of keys and its successors with maximum size for which the values match or do not match consecutively a predicate
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return a list of list of keys and its successor with maximum size for which the values match or do not match consecutively the predicate
+	 */
+	public List<List<KeyPair<Long>>> filterAllMaxGroupedConsecutiveTests(DoubleBiPredicate predicate, boolean filter) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		
+		Runs runs = findRuns(predicate, filter);
+		int maxLength = 0;
+		for (int i = 0; i < runs.size(); i++) {
+			maxLength = Math.max(maxLength, runs.getLength(i));
+		}
+		return filterRuns(runs, maxLength);
+	}
+	
+	/**
+	 * Filter all groups of keys and its successors with minimum size for which the values match or do not match consecutively a predicate
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return a list of list of keys and its successor with minimum size for which the values match or do not match consecutively the predicate
+	 */
+	public List<List<KeyPair<Long>>> filterAllMinGroupedConsecutiveTests(DoubleBiPredicate predicate, boolean filter) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		
+		Runs runs = findRuns(predicate, filter);
+		int minLength = Integer.MAX_VALUE;
+		for (int i = 0; i < runs.size(); i++) {
+			minLength = Math.min(minLength, runs.getLength(i));
+		}
+		return filterRuns(runs, minLength);
+	}
+	
+	/**
+	 * Find the average size of groups of keys and its successors for which the values match or do not match consecutively a predicate
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return the average size of groups of keys and its successors for which the values match or do not match consecutively the predicate
+	 */
+	public double averageGroupedConsecutiveTests(DoubleBiPredicate predicate, boolean filter) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		
+		Runs runs = findRuns(predicate, filter);
+		long totalLength = 0;
+		for (int i = 0; i < runs.size(); i++) {
+			totalLength += runs.getLength(i);
+		}
+		return runs.size() == 0 ? 0 : (double) totalLength / runs.size();
+	}
+	
+	/**
+	 * Give each key, its next key and their values to a consumer, without creating an object for each pair
+	 * @param consumer the consumer of consecutive keys and values
+	 */
+	public void forEachPair(LongDoublePairConsumer consumer) {
+		Objects.requireNonNull(consumer);
+		
+		int size = operationCount();
+		for (int i = 0; i < size; i++) {
+			consumer.accept(keys[i], keys[i + 1], values[i], values[i + 1]);
+		}
+	}
+	
+	/**
+	 * Convert the series to a TreeMap (SortedMap)
+	 * @return a sorted map with the keys and the values of the series
+	 */
+	public TreeMap<Long, Double> toTreeMap() {
+		TreeMap<Long, Double> map = new TreeMap<>();
+		for (int i = 0; i < keys.length; i++) {
+			map.put(keys[i], values[i]);
+		}
+		return map;
+	}
+
+	@Override
+	public String toString() {
+		return "LongDoubleSeries [size=" + keys.length + "]";
+	}
+	
+	private List<Operation<Long, Double>> filterAllExtremes(DoubleBinaryOperator operator, int sign) {
+		List<Operation<Long, Double>> extremes = new ArrayList<>();
+		double extreme = 0;
+		for (int i = 0; i < operationCount(); i++) {
+			double result = operator.applyAsDouble(values[i], values[i + 1]);
+			int comparison = extremes.isEmpty() ? 1 : sign * Double.compare(result, extreme);
+			if (comparison > 0) {
+				extremes.clear();
+				extreme = result;
+			}
+			if (comparison >= 0) {
+				extremes.add(new Operation<Long, Double>(keys[i], keys[i + 1], result));
+			}
+		}
+		return extremes;
+	}
+	
+	private Runs findRuns(DoubleBiPredicate predicate, boolean filter) {
+		Runs runs = new Runs();
+		int start = -1;
+		for (int i = 0; i < operationCount(); i++) {
+			if (predicate.test(values[i], values[i + 1]) == filter) {
+				if (start < 0) {
+					start = i;
+				}
+			} else if (start >= 0) {
+				runs.add(start, i - start);
+				start = -1;
+			}
+		}
+		if (start >= 0) {
+			runs.add(start, operationCount() - start);
+		}
+		return runs;
+	}
+	
+	private List<List<KeyPair<Long>>> filterRuns(Runs runs, int length) {
+		List<List<KeyPair<Long>>> result = new ArrayList<>();
+		for (int i = 0; i < runs.size(); i++) {
+			if (runs.getLength(i) == length) {
+				result.add(toKeyPairs(runs.getStart(i), runs.getLength(i)));
+			}
+		}
+		return result;
+	}
+	
+	private List<KeyPair<Long>> toKeyPairs(int start, int length) {
+		List<KeyPair<Long>> keyPairs = new ArrayList<>(length);
+		for (int i = start; i < start + length; i++) {
+			keyPairs.add(new KeyPair<Long>(keys[i], keys[i + 1]));
+		}
+		return keyPairs;
+	}
+	
+	private int operationCount() {
+		return Math.max(keys.length - 1, 0);
+	}
+	
+	private void checkNotSingleEntry() {
+		if (keys.length == 1)
+			throw new IllegalArgumentException("Series cannot contain one single entry");
+	}
+	
+	private static void checkStrictlyIncreasing(long[] keys) {
+		for (int i = 1; i < keys.length; i++) {
+			if (keys[i - 1] >= keys[i])
+				throw new IllegalArgumentException("Keys must be in strictly increasing order");
+		}
+	}
+	
+}
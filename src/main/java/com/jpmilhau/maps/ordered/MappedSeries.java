@@ -0,0 +1,485 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Sorted and immutable series of long keys and double values read from a binary file of records of 16 bytes, 
+ * a key as a 64-bit integer followed by its value as a 64-bit float, mapped in memory without being copied in the heap.
+ * The keys must be in strictly increasing order, which is not checked when the file is mapped so that it is not read entirely: 
+ * the binary search of {@link #indexOf(long)} gives wrong results on a file whose keys are not sorted.
+ * The file is mapped in chunks of at most 1 GB, so there is no limit on its size.
+ * It provides the operations of {@link LongDoubleSeries} evaluated directly on the mapped file.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public final class MappedSeries {
+	
+	/**
+	 * Number of bytes of a record of a key and its value
+	 */
+	public static final int RECORD_SIZE = Long.BYTES + Double.BYTES;
+	
+	static final int DEFAULT_RECORDS_PER_CHUNK = (1 << 30) / RECORD_SIZE;
+	
+	private final Path path;
+	private final ByteOrder byteOrder;
+	private final ByteBuffer[] chunks;
+	private final int recordsPerChunk;
+	private final long size;
+	
+	private MappedSeries(Path path, ByteOrder byteOrder, ByteBuffer[] chunks, int recordsPerChunk, long size) {
+		this.path = path;
+		this.byteOrder = byteOrder;
+		this.chunks = chunks;
+		this.recordsPerChunk = recordsPerChunk;
+		this.size = size;
+	}
+	
+	/**
+	 * Map a file of records in big-endian byte order, the keys being in strictly increasing order, which is not checked
+	 * @param path the path of the file
+	 * @return the series
+	 * @throws IOException if the file cannot be read
+	 */
+	public static MappedSeries open(Path path) throws IOException {
+		return open(path, ByteOrder.BIG_ENDIAN);
+	}
+	
+	/**
+	 * Map a file of records, the keys being in strictly increasing order, which is not checked
+	 * @param path the path of the file
+	 * @param byteOrder the byte order of the keys and the values in the file
+	 * @return the series
+	 * @throws IOException if the file cannot be read
+	 */
+	public static MappedSeries open(Path path, ByteOrder byteOrder) throws IOException {
+		return open(path, byteOrder, DEFAULT_RECORDS_PER_CHUNK);
+	}
+	
+	static MappedSeries open(Path path, ByteOrder byteOrder, int recordsPerChunk) throws IOException {
+		Objects.requireNonNull(path);
+		Objects.requireNonNull(byteOrder);
+		
+		// the mappings stay valid once the channel is closed
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			if (fileSize % RECORD_SIZE != 0)
+				throw new IllegalArgumentException("File size must be a multiple of " + RECORD_SIZE + " bytes");
+			
+			long size = fileSize / RECORD_SIZE;
+			ByteBuffer[] chunks = new ByteBuffer[(int) ((size + recordsPerChunk - 1) / recordsPerChunk)];
+			for (int i = 0; i < chunks.length; i++) {
+				long position = (long) i * recordsPerChunk * RECORD_SIZE;
+				chunks[i] = channel.map(MapMode.READ_ONLY, position, Math.min((long) recordsPerChunk * RECORD_SIZE, fileSize - position)).order(byteOrder);
+			}
+			return new MappedSeries(path, byteOrder, chunks, recordsPerChunk, size);
+		}
+	}
+	
+	/**
+	 * Get the number of keys in the series
+	 * @return the number of keys
+	 */
+	public long size() {
+		return size;
+	}
+	
+	/**
+	 * Get a key
+	 * @param index the index of the key
+	 * @return the key
+	 */
+	public long getKey(long index) {
+		checkIndex(index);
+		return chunks[(int) (index / recordsPerChunk)].getLong((int) (index % recordsPerChunk) * RECORD_SIZE);
+	}
+	
+	/**
+	 * Get a value
+	 * @param index the index of the key
+	 * @return the value of the key
+	 */
+	public double getValue(long index) {
+		checkIndex(index);
+		return chunks[(int) (index / recordsPerChunk)].getDouble((int) (index % recordsPerChunk) * RECORD_SIZE + Long.BYTES);
+	}
+	
+	/**
+	 * Find the index of a key by binary search
+	 * @param key the key to search
+	 * @return the index of the key if it is in the series, otherwise (-(insertion point) - 1) as in {@link java.util.Arrays#binarySearch(long[], long)}
+	 */
+	public long indexOf(long key) {
+		long low = 0;
+		long high = size - 1;
+		while (low <= high) {
+			long middle = (low + high) >>> 1;
+			long middleKey = getKey(middle);
+			if (middleKey < key) {
+				low = middle + 1;
+			} else if (middleKey > key) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+	
+	/**
+	 * Apply a function to consecutive values and write the results to a file of records with the byte order of this series
+	 * @param operator the function to apply to consecutive values
+	 * @param target the path of the file of the results, replaced if it exists, which cannot be the file of this series
+	 * @return a series mapping the file with the same keys but the last one because it has no successor and the result of the function applied to two consecutive values
+	 * @throws IOException if the file cannot be written
+	 */
+	public MappedSeries apply(DoubleBinaryOperator operator, Path target) throws IOException {
+		Objects.requireNonNull(operator);
+		Objects.requireNonNull(target);
+		checkNotSingleEntry();
+		// truncating the file still mapped by this series would make its reads fail
+		if (Files.exists(target) && Files.isSameFile(target, path))
+			throw new IllegalArgumentException("Target cannot be the file of the series");
+		
+		long operationCount = operationCount();
+		try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long index = 0;
+			double value = operationCount > 0 ? getValue(0) : 0;
+			while (index < operationCount) {
+				int chunkSize = (int) Math.min(recordsPerChunk, operationCount - index);
+				ByteBuffer chunk = channel.map(MapMode.READ_WRITE, index * RECORD_SIZE, (long) chunkSize * RECORD_SIZE).order(byteOrder);
+				for (int i = 0; i < chunkSize; i++, index++) {
+					double nextValue = getValue(index + 1);
+					chunk.putLong(getKey(index));
+					chunk.putDouble(operator.applyAsDouble(value, nextValue));
+					value = nextValue;
+				}
+			}
+		}
+		return open(target, byteOrder, recordsPerChunk);
+	}
+	
+	/**
+	 * Filter all maximum after a function be applied to consecutive values
+	 * @param operator the function to apply to consecutive values
+	 * @return a list of all maximum after a function be applied to consecutive values
+	 */
+	public List<Operation<Long, Double>> filterAllMax(DoubleBinaryOperator operator) {
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry();
+		
+		return filterAllExtremes(operator, 1);
+	}
+	
+	/**
+	 * Filter all minimum after a function be applied to consecutive values
+	 * @param operator the function to apply to consecutive values
+	 * @return a list of all minimum after a function be applied to consecutive values
+	 */
+	public List<Operation<Long, Double>> filterAllMin(DoubleBinaryOperator operator) {
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry();
+		
+		return filterAllExtremes(operator, -1);
+	}
+	
+	/**
+	 * Compute the average after a function be applied to consecutive values
+	 * @param operator the function to apply to consecutive values
+	 * @return the average after a function be applied to consecutive values
+	 */
+	public double average(DoubleBinaryOperator operator) {
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry();
+		
+		CompensatedSum sum = new CompensatedSum();
+		double value = size > 0 ? getValue(0) : 0;
+		for (long i = 0; i < operationCount(); i++) {
+			double nextValue = getValue(i + 1);
+			sum.add(operator.applyAsDouble(value, nextValue));
+			value = nextValue;
+		}
+		return sum.getAverage();
+	}
+	
+	/**
+	 * Apply a predicate to consecutive values
+	 * @param predicate the predicate to apply to consecutive values
+	 * @return a bit set where the bit at the index of a key is set if the values of the key and its next key match the predicate
+	 * @throws IllegalStateException if the series has more than {@link Integer#MAX_VALUE} pairs of keys
+	 */
+	public BitSet test(DoubleBiPredicate predicate) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		if (operationCount() > Integer.MAX_VALUE)
+			throw new IllegalStateException("Series is too large for a bit set");
+		
+		int operationCount = (int) operationCount();
+		BitSet results = new BitSet(operationCount);
+		double value = size > 0 ? getValue(0) : 0;
+		for (int i = 0; i < operationCount; i++) {
+			double nextValue = getValue(i + 1);
+			if (predicate.test(value, nextValue)) {
+				results.set(i);
+			}
+			value = nextValue;
+		}
+		return results;
+	}
+	
+	/**
+	 * Count the keys and its successors for which the values match or do not match a predicate
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return the number of keys and its successor for which the values match or do not match the predicate
+	 */
+	public long countTests(DoubleBiPredicate predicate, boolean filter) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		
+		long count = 0;
+		double value = size > 0 ? getValue(0) : 0;
+		for (long i = 0; i < operationCount(); i++) {
+			double nextValue = getValue(i + 1);
+			if (predicate.test(value, nextValue) == filter) {
+				count++;
+			}
+			value = nextValue;
+		}
+		return count;
+	}
+	
+	/**
+	 * Find all keys and its successors for which the values match or do not match a predicate
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return a list of keys and its successor for which the values match or do not match the predicate
+	 */
+	public List<KeyPair<Long>> filterTests(DoubleBiPredicate predicate, boolean filter) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		
+		List<KeyPair<Long>> result = new ArrayList<>();
+		double value = size > 0 ? getValue(0) : 0;
+		for (long i = 0; i < operationCount(); i++) {
+			double nextValue = getValue(i + 1);
+			if (predicate.test(value, nextValue) == filter) {
+				result.add(new KeyPair<Long>(getKey(i), getKey(i + 1)));
+			}
+			value = nextValue;
+		}
+		return result;
+	}
+	
+	/**
+	 * Find all groups of keys and its successors for which the values match or do not match consecutively a predicate
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group
+	 */
+	public List<RunSpan<Long>> filterGroupedConsecutiveRuns(DoubleBiPredicate predicate, boolean filter) {
+		return filterGroupedConsecutiveRuns(predicate, filter, 1, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Find all groups of keys and its successors for which the values match or do not match consecutively a predicate.
+	 * The groups must have a minimum and a maximum size.
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param minGroupSize minimum size of the group
+	 * @param maxGroupSize maximum size of the group
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group matching min and max size
+	 */
+	public List<RunSpan<Long>> filterGroupedConsecutiveRuns(DoubleBiPredicate predicate, boolean filter, int minGroupSize, int maxGroupSize) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		
+		List<RunSpan<Long>> result = new ArrayList<>();
+		forEachRun(predicate, filter, (start, length) -> {
+			if (length >= minGroupSize && length <= maxGroupSize) {
+				result.add(toRunSpan(start, length));
+			}
+		});
+		return result;
+	}
+	
+	/**
+	 * Filter all groups of keys and its successors with maximum size for which the values match or do not match consecutively a predicate
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group with maximum size
+	 */
+	public List<RunSpan<Long>> filterAllMaxGroupedConsecutiveRuns(DoubleBiPredicate predicate, boolean filter) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		
+		return filterExtremeRuns(predicate, filter, 1);
+	}
+	
+	/**
+	 * Filter all groups of keys and its successors with minimum size for which the values match or do not match consecutively a predicate
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group with minimum size
+	 */
+	public List<RunSpan<Long>> filterAllMinGroupedConsecutiveRuns(DoubleBiPredicate predicate, boolean filter) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		
+		return filterExtremeRuns(predicate, filter, -1);
+	}
+	
+	/**
+	 * Find the average size of groups of keys and its successors for which the values match or do not match consecutively a predicate
+	 * @param predicate the predicate to apply to consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return the average size of groups of keys and its successors for which the values match or do not match consecutively the predicate
+	 */
+	public double averageGroupedConsecutiveTests(DoubleBiPredicate predicate, boolean filter) {
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry();
+		
+		long[] totals = new long[2];
+		forEachRun(predicate, filter, (start, length) -> {
+			totals[0]++;
+			totals[1] += length;
+		});
+		return totals[0] == 0 ? 0 : (double) totals[1] / totals[0];
+	}
+	
+	/**
+	 * Copy the series in the heap
+	 * @return a series with the keys and the values of this series
+	 * @throws IllegalStateException if the series has more than {@link Integer#MAX_VALUE} keys
+	 */
+	public LongDoubleSeries toLongDoubleSeries() {
+		if (size > Integer.MAX_VALUE)
+			throw new IllegalStateException("Series is too large for arrays");
+		
+		long[] keys = new long[(int) size];
+		double[] values = new double[(int) size];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = getKey(i);
+			values[i] = getValue(i);
+		}
+		return LongDoubleSeries.of(keys, values);
+	}
+	
+	@Override
+	public String toString() {
+		return "MappedSeries [path=" + path + ", size=" + size + "]";
+	}
+	
+	@FunctionalInterface
+	private interface RunConsumer {
+		void accept(long start, long length);
+	}
+	
+	private void forEachRun(DoubleBiPredicate predicate, boolean filter, RunConsumer runConsumer) {
+		long start = -1;
+		double value = size > 0 ? getValue(0) : 0;
+		for (long i = 0; i < operationCount(); i++) {
+			double nextValue = getValue(i + 1);
+			if (predicate.test(value, nextValue) == filter) {
+				if (start < 0) {
+					start = i;
+				}
+			} else if (start >= 0) {
+				runConsumer.accept(start, i - start);
+				start = -1;
+			}
+			value = nextValue;
+		}
+		if (start >= 0) {
+			runConsumer.accept(start, operationCount() - start);
+		}
+	}
+	
+	private List<RunSpan<Long>> filterExtremeRuns(DoubleBiPredicate predicate, boolean filter, int sign) {
+		List<RunSpan<Long>> extremes = new ArrayList<>();
+		long[] extreme = new long[1];
+		forEachRun(predicate, filter, (start, length) -> {
+			int comparison = extremes.isEmpty() ? 1 : sign * Long.compare(length, extreme[0]);
+			if (comparison > 0) {
+				extremes.clear();
+				extreme[0] = length;
+			}
+			if (comparison >= 0) {
+				extremes.add(toRunSpan(start, length));
+			}
+		});
+		return extremes;
+	}
+	
+	private List<Operation<Long, Double>> filterAllExtremes(DoubleBinaryOperator operator, int sign) {
+		List<Operation<Long, Double>> extremes = new ArrayList<>();
+		double extreme = 0;
+		double value = size > 0 ? getValue(0) : 0;
+		for (long i = 0; i < operationCount(); i++) {
+			double nextValue = getValue(i + 1);
+			double result = operator.applyAsDouble(value, nextValue);
+			int comparison = extremes.isEmpty() ? 1 : sign * Double.compare(result, extreme);
+			if (comparison > 0) {
+				extremes.clear();
+				extreme = result;
+			}
+			if (comparison >= 0) {
+				extremes.add(new Operation<Long, Double>(getKey(i), getKey(i + 1), result));
+			}
+			value = nextValue;
+		}
+		return extremes;
+	}
+	
+	private RunSpan<Long> toRunSpan(long start, long length) {
+		return new RunSpan<Long>(getKey(start), getKey(start + length), Math.toIntExact(length));
+	}
+	
+	private long operationCount() {
+		return Math.max(size - 1, 0);
+	}
+	
+	private void checkIndex(long index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+	
+	private void checkNotSingleEntry() {
+		if (size == 1)
+			throw new IllegalArgumentException("Series cannot contain one single entry");
+	}
+	
+}
@@ -0,0 +1,39 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Recorder of the metrics of the calls to {@link OrderedMapUtils}, registered with {@link OrderedMapMetrics}.
+ * Implementations must be thread-safe since calls are recorded from any thread.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+@FunctionalInterface
+public interface MetricsRecorder {
+	
+	/**
+	 * Record the metrics of a call
+	 * @param report the metrics of the call
+	 */
+	void record(CallReport report);
+	
+}
@@ -0,0 +1,166 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+
+/**
+ * Class to store the results of an operation applied to the values of each key and its next key in an ordered map
+ * in two arrays, the next key of an operation being the key of the next operation. 
+ * Operations are created on demand.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of a key
+ * @param <R> the type of a result
+ */
+public final class OperationSeries<K, R> extends AbstractOperationSeries<K> {
+	
+	private final Object[] results;
+	private final boolean sorted;
+	private final Comparator<? super K> comparator;
+	
+	OperationSeries(Object[] keys, Object[] results, boolean sorted, Comparator<? super K> comparator) {
+		super(keys);
+		this.results = results;
+		this.sorted = sorted;
+		this.comparator = comparator;
+	}
+	
+	/**
+	 * Get the result of an operation
+	 * @param index the index of the operation
+	 * @return the result of the operation
+	 */
+	@SuppressWarnings("unchecked")
+	public R getResult(int index) {
+		checkIndex(index);
+		return (R) results[index];
+	}
+	
+	/**
+	 * Get an operation
+	 * @param index the index of the operation
+	 * @return the operation with its key, its next key and its result
+	 */
+	public Operation<K, R> getOperation(int index) {
+		return new Operation<K, R>(getKey(index), getNextKey(index), getResult(index));
+	}
+	
+	/**
+	 * Find the index of the operation of a key, by binary search when the keys come from a sorted map
+	 * @param key the key of the operation
+	 * @return the index of the operation, -1 if there is no operation for the key
+	 */
+	@SuppressWarnings("unchecked")
+	public int indexOf(K key) {
+		int size = size();
+		if (sorted) {
+			int low = 0;
+			int high = size - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				K middleKey = getKey(middle);
+				int comparison = comparator == null ? ((Comparable<? super K>) middleKey).compareTo(key) : comparator.compare(middleKey, key);
+				if (comparison < 0) {
+					low = middle + 1;
+				} else if (comparison > 0) {
+					high = middle - 1;
+				} else {
+					return middle;
+				}
+			}
+			return -1;
+		}
+		for (int i = 0; i < size; i++) {
+			if (key == null ? getKey(i) == null : key.equals(getKey(i)))
+				return i;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Get the operation of a key
+	 * @param key the key of the operation
+	 * @return the operation of the key, null if there is no operation for the key
+	 */
+	public Operation<K, R> getOperation(K key) {
+		int index = indexOf(key);
+		return index < 0 ? null : getOperation(index);
+	}
+	
+	/**
+	 * Get the operations as a read-only list whose operations are created on demand
+	 * @return the operations in the order of the keys
+	 */
+	public List<Operation<K, R>> asList() {
+		return new OperationList();
+	}
+	
+	/**
+	 * Convert the series to the map returned by {@link OrderedMapUtils#apply(LinkedHashMap, java.util.function.BiFunction)}
+	 * @return a LinkedHashMap of the operations by key
+	 */
+	public LinkedHashMap<K, Operation<K, R>> toLinkedHashMap() {
+		LinkedHashMap<K, Operation<K, R>> map = new LinkedHashMap<>((int) (size() / 0.75f) + 1);
+		for (int i = 0; i < size(); i++) {
+			map.put(getKey(i), getOperation(i));
+		}
+		return map;
+	}
+	
+	/**
+	 * Convert the series to the map returned by {@link OrderedMapUtils#apply(java.util.SortedMap, java.util.function.BiFunction)}
+	 * @return a TreeMap of the operations by key with the comparator of the ordered map when it is a sorted map
+	 */
+	public TreeMap<K, Operation<K, R>> toTreeMap() {
+		TreeMap<K, Operation<K, R>> map = new TreeMap<>(comparator);
+		for (int i = 0; i < size(); i++) {
+			map.put(getKey(i), getOperation(i));
+		}
+		return map;
+	}
+	
+	@Override
+	public String toString() {
+		return "OperationSeries [size=" + size() + "]";
+	}
+	
+	private final class OperationList extends AbstractList<Operation<K, R>> implements RandomAccess {
+		
+		@Override
+		public Operation<K, R> get(int index) {
+			return getOperation(index);
+		}
+		
+		@Override
+		public int size() {
+			return OperationSeries.this.size();
+		}
+		
+	}
+	
+}
@@ -0,0 +1,123 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Registration of the {@link MetricsRecorder} of the calls to {@link OrderedMapUtils}.
+ * A recorder is registered globally or for the calls made by a thread inside {@link #record(MetricsRecorder, Supplier)}, 
+ * which takes precedence over the global recorder.
+ * Nothing is measured while no recorder is registered.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public final class OrderedMapMetrics {
+	
+	private static final MetricsRecorder NO_OP = report -> { };
+	
+	private static volatile MetricsRecorder globalRecorder = NO_OP;
+	private static final ThreadLocal<MetricsRecorder> scopedRecorder = new ThreadLocal<>();
+	// avoid reading the thread local when no scoped recorder is registered
+	private static final AtomicInteger scopeCount = new AtomicInteger();
+	
+	private OrderedMapMetrics() {
+		throw new IllegalStateException("Utility class");
+	}
+	
+	/**
+	 * @return the recorder doing nothing, registered globally by default
+	 */
+	public static MetricsRecorder noOp() {
+		return NO_OP;
+	}
+	
+	/**
+	 * Register a recorder for the calls made by all threads
+	 * @param recorder the recorder, {@link #noOp()} to disable the metrics
+	 */
+	public static void setGlobalRecorder(MetricsRecorder recorder) {
+		globalRecorder = Objects.requireNonNull(recorder);
+	}
+	
+	/**
+	 * @return the recorder registered for the calls made by all threads
+	 */
+	public static MetricsRecorder getGlobalRecorder() {
+		return globalRecorder;
+	}
+	
+	/**
+	 * Record the calls to {@link OrderedMapUtils} made by the current thread during a call
+	 * @param recorder the recorder of the calls
+	 * @param call the call
+	 * @param <T> the type of the result of the call
+	 * @return the result of the call
+	 */
+	public static <T> T record(MetricsRecorder recorder, Supplier<T> call) {
+		Objects.requireNonNull(recorder);
+		Objects.requireNonNull(call);
+		
+		MetricsRecorder previousRecorder = scopedRecorder.get();
+		scopedRecorder.set(recorder);
+		scopeCount.incrementAndGet();
+		try {
+			return call.get();
+		} finally {
+			scopeCount.decrementAndGet();
+			if (previousRecorder == null) {
+				scopedRecorder.remove();
+			} else {
+				scopedRecorder.set(previousRecorder);
+			}
+		}
+	}
+	
+	/**
+	 * Record the calls to {@link OrderedMapUtils} made by the current thread during a call
+	 * @param recorder the recorder of the calls
+	 * @param call the call
+	 * @return the result of the call
+	 */
+	public static double recordAsDouble(MetricsRecorder recorder, DoubleSupplier call) {
+		Objects.requireNonNull(call);
+		return record(recorder, call::getAsDouble);
+	}
+	
+	/*
+	 * The recorder of a call starting in the current thread, null when the metrics are disabled
+	 */
+	static MetricsRecorder currentRecorder() {
+		MetricsRecorder recorder = null;
+		if (scopeCount.get() != 0) {
+			recorder = scopedRecorder.get();
+		}
+		if (recorder == null) {
+			recorder = globalRecorder;
+		}
+		return recorder == NO_OP ? null : recorder;
+	}
+	
+}
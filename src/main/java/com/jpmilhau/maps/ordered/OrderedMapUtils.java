@@ -1,7 +1,5 @@
 package com.jpmilhau.maps.ordered;
 
-import java.lang.reflect.InvocationTargetException;
-
 /*-
  * #%L
  * OrderedMapUtils
@@ -23,18 +21,33 @@ import java.lang.reflect.InvocationTargetException;
  */
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
-import java.util.function.Supplier;
+import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-
-import org.paumard.streams.StreamsUtils;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Provide utils to work on consecutive elements in an ordered map ({@link java.util.LinkedHashMap} or {@link java.util.SortedMap}). 
@@ -44,6 +57,17 @@ import org.paumard.streams.StreamsUtils;
  */
 public class OrderedMapUtils {
 	
+	/**
+	 * Default minimum number of consecutive pairs of keys processed by a task of {@link #applyParallel(SortedMap, BiFunction)} 
+	 * and of the parallel grouped consecutive tests
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 13;
+	
+	/**
+	 * Default maximum number of consecutive pairs of keys evaluated at the same time by {@link #applyAsync(SortedMap, BiFunction)}
+	 */
+	public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+	
 	private OrderedMapUtils() {
 		throw new IllegalStateException("Utility class");
 	}
@@ -62,7 +86,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biFunction);
 		checkNotSingleEntry(map);
 		
-		return (LinkedHashMap<K, Operation<K, R>>) applyFunctionToConsecutiveElements(map, biFunction);
+		return (LinkedHashMap<K, Operation<K, R>>) CallMetrics.measureMap("apply", map, metrics -> applyFunctionToConsecutiveElements(map, metrics.timeFunction(biFunction), ResultMapFactory.sameType()));
 	}
 	
 	/**
@@ -79,9 +103,247 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biFunction);
 		checkNotSingleEntry(map);
 		
-		return (SortedMap<K, Operation<K, R>>) applyFunctionToConsecutiveElements(map, biFunction);
+		return (SortedMap<K, Operation<K, R>>) CallMetrics.measureMap("apply", map, metrics -> applyFunctionToConsecutiveElements(map, metrics.timeFunction(biFunction), ResultMapFactory.sameType()));
+	}
+		
+	/**
+	 * Apply a function to consecutive values in an ordered map and put the results in a map created by a factory
+	 * @param map the ordered map
+	 * @param biFunction the function to apply to consecutive values in the ordered map
+	 * @param resultMapFactory the factory of the map receiving the results
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a map created by the factory with the same keys of the input map but the last one because it has no successor and the result of the function applied to two consecutive values
+	 */
+	public static <K, V, R> Map<K, Operation<K, R>> apply(LinkedHashMap<K, V> map, BiFunction<V, V, R> biFunction, ResultMapFactory resultMapFactory) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		Objects.requireNonNull(resultMapFactory);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureMap("apply", map, metrics -> applyFunctionToConsecutiveElements(map, metrics.timeFunction(biFunction), resultMapFactory));
+	}
+	
+	/**
+	 * Apply a function to consecutive values in an ordered map and put the results in a map created by a factory
+	 * @param map the ordered map
+	 * @param biFunction the function to apply to consecutive values in the ordered map
+	 * @param resultMapFactory the factory of the map receiving the results
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a map created by the factory with the same keys of the input map but the last one because it has no successor and the result of the function applied to two consecutive values
+	 */
+	public static <K, V, R> Map<K, Operation<K, R>> apply(SortedMap<K, V> map, BiFunction<V, V, R> biFunction, ResultMapFactory resultMapFactory) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		Objects.requireNonNull(resultMapFactory);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureMap("apply", map, metrics -> applyFunctionToConsecutiveElements(map, metrics.timeFunction(biFunction), resultMapFactory));
+	}
+	
+	/**
+	 * Apply a function to consecutive values in an ordered map and store the keys and the results in arrays
+	 * @param map the ordered map
+	 * @param biFunction the function to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a series with the keys of the input map and the result of the function applied to each key and its next key
+	 */
+	public static <K, V, R> OperationSeries<K, R> applyAsSeries(LinkedHashMap<K, V> map, BiFunction<V, V, R> biFunction) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureSeries("applyAsSeries", map, metrics -> applyFunctionToConsecutiveElementsAsSeries(map, metrics.timeFunction(biFunction), false, null));
+	}
+	
+	/**
+	 * Apply a function to consecutive values in an ordered map and store the keys and the results in arrays
+	 * @param map the ordered map
+	 * @param biFunction the function to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a series with the keys of the input map and the result of the function applied to each key and its next key
+	 */
+	public static <K, V, R> OperationSeries<K, R> applyAsSeries(SortedMap<K, V> map, BiFunction<V, V, R> biFunction) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureSeries("applyAsSeries", map, metrics -> applyFunctionToConsecutiveElementsAsSeries(map, metrics.timeFunction(biFunction), true, map.comparator()));
+	}
+	
+	/**
+	 * Apply a function to consecutive values in a sorted map in parallel on the common fork/join pool.
+	 * The map must not be modified during the call.
+	 * @param map the sorted map
+	 * @param biFunction the function to apply to consecutive values in the sorted map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a sorted map with the same keys of the input map but the last one because it has no successor and the result of the function applied to two consecutive values
+	 */
+	public static <K, V, R> SortedMap<K, Operation<K, R>> applyParallel(SortedMap<K, V> map, BiFunction<V, V, R> biFunction) {
+		return applyParallel(map, biFunction, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+	}
+	
+	/**
+	 * Apply a function to consecutive values in a sorted map in parallel.
+	 * The map is split into ranges of keys processed as fork/join tasks, and the result is the same as {@link #apply(SortedMap, BiFunction)}.
+	 * The first key of each range is found by a sequential walk of the keys before the tasks start, 
+	 * so the speedup is limited by this walk when the function is cheap.
+	 * The result of a tree map or a skip list map is built from the sorted results in linear time, other maps having each result put.
+	 * The map must not be modified during the call.
+	 * @param map the sorted map
+	 * @param biFunction the function to apply to consecutive values in the sorted map
+	 * @param pool the pool running the tasks
+	 * @param threshold the number of consecutive pairs of keys processed by a task
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a sorted map with the same keys of the input map but the last one because it has no successor and the result of the function applied to two consecutive values
+	 */
+	public static <K, V, R> SortedMap<K, Operation<K, R>> applyParallel(SortedMap<K, V> map, BiFunction<V, V, R> biFunction, ForkJoinPool pool, int threshold) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		Objects.requireNonNull(pool);
+		if (threshold < 1)
+			throw new IllegalArgumentException("Threshold must be positive");
+		checkNotSingleEntry(map);
+		
+		return (SortedMap<K, Operation<K, R>>) CallMetrics.measureMap("applyParallel", map, metrics -> {
+			if (map.size() - 1 <= threshold) {
+				return applyFunctionToConsecutiveElements(map, metrics.timeFunction(biFunction), ResultMapFactory.sameType());
+			}
+			return applyFunctionToConsecutiveRanges(map, metrics.timeFunction(biFunction), pool, threshold);
+		});
+	}
+		
+	/**
+	 * Apply a function to consecutive values in an ordered map asynchronously, 
+	 * on virtual threads when the runtime has them or on the common fork/join pool otherwise, 
+	 * at most {@link #DEFAULT_MAX_IN_FLIGHT} pairs being evaluated at the same time.
+	 * The future completes exceptionally with the first exception thrown by the function.
+	 * @param map the ordered map
+	 * @param biFunction the function to apply to consecutive values in the map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a future of an ordered map with the same keys of the input map but the last one because it has no successor and the result of the function applied to two consecutive values
+	 */
+	public static <K, V, R> CompletableFuture<LinkedHashMap<K, Operation<K, R>>> applyAsync(LinkedHashMap<K, V> map, BiFunction<V, V, R> biFunction) {
+		return applyAsync(map, biFunction, AsyncConsecutiveApply.defaultExecutor(), DEFAULT_MAX_IN_FLIGHT, AsyncErrorPolicy.FAIL);
+	}
+	
+	/**
+	 * Apply a function to consecutive values in an ordered map asynchronously on an executor, 
+	 * at most maxInFlight pairs being evaluated at the same time.
+	 * The future completes exceptionally with the first exception thrown by the function.
+	 * @param map the ordered map
+	 * @param biFunction the function to apply to consecutive values in the map
+	 * @param executor the executor evaluating the pairs
+	 * @param maxInFlight the maximum number of pairs evaluated at the same time
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a future of an ordered map with the same keys of the input map but the last one because it has no successor and the result of the function applied to two consecutive values
+	 */
+	public static <K, V, R> CompletableFuture<LinkedHashMap<K, Operation<K, R>>> applyAsync(LinkedHashMap<K, V> map, BiFunction<V, V, R> biFunction, Executor executor, int maxInFlight) {
+		return applyAsync(map, biFunction, executor, maxInFlight, AsyncErrorPolicy.FAIL);
+	}
+	
+	/**
+	 * Apply a function to consecutive values in an ordered map asynchronously on an executor, 
+	 * at most maxInFlight pairs being evaluated at the same time.
+	 * The entries are copied when the call starts, and the results are in the order of the keys whatever the order the pairs finish.
+	 * @param map the ordered map
+	 * @param biFunction the function to apply to consecutive values in the map
+	 * @param executor the executor evaluating the pairs
+	 * @param maxInFlight the maximum number of pairs evaluated at the same time
+	 * @param errorPolicy whether an exception thrown by the function fails the future or leaves the pair out of the result
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a future of an ordered map with the same keys of the input map but the last one because it has no successor and the result of the function applied to two consecutive values
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static <K, V, R> CompletableFuture<LinkedHashMap<K, Operation<K, R>>> applyAsync(LinkedHashMap<K, V> map, BiFunction<V, V, R> biFunction, Executor executor, int maxInFlight, AsyncErrorPolicy errorPolicy) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		Objects.requireNonNull(executor);
+		Objects.requireNonNull(errorPolicy);
+		if (maxInFlight < 1)
+			throw new IllegalArgumentException("Max in flight must be positive");
+		checkNotSingleEntry(map);
+		
+		return (CompletableFuture<LinkedHashMap<K, Operation<K, R>>>) (CompletableFuture) AsyncConsecutiveApply.start(map, biFunction, executor, maxInFlight, errorPolicy, CallMetrics.start("applyAsync", map));
+	}
+	
+	/**
+	 * Apply a function to consecutive values in a sorted map asynchronously, 
+	 * on virtual threads when the runtime has them or on the common fork/join pool otherwise, 
+	 * at most {@link #DEFAULT_MAX_IN_FLIGHT} pairs being evaluated at the same time.
+	 * The future completes exceptionally with the first exception thrown by the function.
+	 * @param map the sorted map
+	 * @param biFunction the function to apply to consecutive values in the map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a future of a sorted map with the same keys of the input map but the last one because it has no successor and the result of the function applied to two consecutive values
+	 */
+	public static <K, V, R> CompletableFuture<SortedMap<K, Operation<K, R>>> applyAsync(SortedMap<K, V> map, BiFunction<V, V, R> biFunction) {
+		return applyAsync(map, biFunction, AsyncConsecutiveApply.defaultExecutor(), DEFAULT_MAX_IN_FLIGHT, AsyncErrorPolicy.FAIL);
+	}
+	
+	/**
+	 * Apply a function to consecutive values in a sorted map asynchronously on an executor, 
+	 * at most maxInFlight pairs being evaluated at the same time.
+	 * The future completes exceptionally with the first exception thrown by the function.
+	 * @param map the sorted map
+	 * @param biFunction the function to apply to consecutive values in the map
+	 * @param executor the executor evaluating the pairs
+	 * @param maxInFlight the maximum number of pairs evaluated at the same time
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a future of a sorted map with the same keys of the input map but the last one because it has no successor and the result of the function applied to two consecutive values
+	 */
+	public static <K, V, R> CompletableFuture<SortedMap<K, Operation<K, R>>> applyAsync(SortedMap<K, V> map, BiFunction<V, V, R> biFunction, Executor executor, int maxInFlight) {
+		return applyAsync(map, biFunction, executor, maxInFlight, AsyncErrorPolicy.FAIL);
 	}
+	
+	/**
+	 * Apply a function to consecutive values in a sorted map asynchronously on an executor, 
+	 * at most maxInFlight pairs being evaluated at the same time.
+	 * The entries are copied when the call starts, and the results are in the order of the keys whatever the order the pairs finish.
+	 * @param map the sorted map
+	 * @param biFunction the function to apply to consecutive values in the map
+	 * @param executor the executor evaluating the pairs
+	 * @param maxInFlight the maximum number of pairs evaluated at the same time
+	 * @param errorPolicy whether an exception thrown by the function fails the future or leaves the pair out of the result
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a future of a sorted map with the same keys of the input map but the last one because it has no successor and the result of the function applied to two consecutive values
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static <K, V, R> CompletableFuture<SortedMap<K, Operation<K, R>>> applyAsync(SortedMap<K, V> map, BiFunction<V, V, R> biFunction, Executor executor, int maxInFlight, AsyncErrorPolicy errorPolicy) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		Objects.requireNonNull(executor);
+		Objects.requireNonNull(errorPolicy);
+		if (maxInFlight < 1)
+			throw new IllegalArgumentException("Max in flight must be positive");
+		checkNotSingleEntry(map);
 		
+		return (CompletableFuture<SortedMap<K, Operation<K, R>>>) (CompletableFuture) AsyncConsecutiveApply.start(map, biFunction, executor, maxInFlight, errorPolicy, CallMetrics.start("applyAsync", map));
+	}
+	
 	/**
 	 * Filter all maximum after a function be applied to consecutive values in an ordered map
 	 * @param map the ordered map
@@ -96,7 +358,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biFunction);
 		checkNotSingleEntry(map);
 		
-		return filterMaxResults(applyFunctionToConsecutiveElements(map, biFunction));
+		return CallMetrics.measureCollection("filterAllMax", map, metrics -> filterAllExtremes(map, metrics.timeFunction(biFunction), Comparator.<R>naturalOrder()));
 	}
 	
 	/**
@@ -113,7 +375,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biFunction);
 		checkNotSingleEntry(map);
 		
-		return filterMaxResults(applyFunctionToConsecutiveElements(map, biFunction));
+		return CallMetrics.measureCollection("filterAllMax", map, metrics -> filterAllExtremes(map, metrics.timeFunction(biFunction), Comparator.<R>naturalOrder()));
 	}
 	
 	/**
@@ -130,7 +392,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biFunction);
 		checkNotSingleEntry(map);
 		
-		return filterMinResults(applyFunctionToConsecutiveElements(map, biFunction));
+		return CallMetrics.measureCollection("filterAllMin", map, metrics -> filterAllExtremes(map, metrics.timeFunction(biFunction), Comparator.<R>reverseOrder()));
 	}
 	
 	/**
@@ -147,7 +409,99 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biFunction);
 		checkNotSingleEntry(map);
 		
-		return filterMinResults(applyFunctionToConsecutiveElements(map, biFunction));
+		return CallMetrics.measureCollection("filterAllMin", map, metrics -> filterAllExtremes(map, metrics.timeFunction(biFunction), Comparator.<R>reverseOrder()));
+	}
+	
+	/**
+	 * Filter the k greatest results after a function be applied to consecutive values in an ordered map.
+	 * Only k operations are kept while the map is scanned once.
+	 * @param map the ordered map
+	 * @param biFunction the function to apply to consecutive values in the ordered map
+	 * @param k the maximum number of operations to return
+	 * @param comparator the comparator of the results
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a list of at most k operations sorted from the greatest to the smallest result, equal results being in the order of the map
+	 */
+	public static <K, V, R> List<Operation<K, R>> topK(LinkedHashMap<K, V> map, BiFunction<V, V, R> biFunction, int k, Comparator<? super R> comparator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		Objects.requireNonNull(comparator);
+		if (k < 0)
+			throw new IllegalArgumentException("k cannot be negative");
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureCollection("topK", map, metrics -> filterTopResults(map, metrics.timeFunction(biFunction), k, comparator));
+	}
+	
+	/**
+	 * Filter the k greatest results after a function be applied to consecutive values in an ordered map.
+	 * Only k operations are kept while the map is scanned once.
+	 * @param map the ordered map
+	 * @param biFunction the function to apply to consecutive values in the ordered map
+	 * @param k the maximum number of operations to return
+	 * @param comparator the comparator of the results
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a list of at most k operations sorted from the greatest to the smallest result, equal results being in the order of the map
+	 */
+	public static <K, V, R> List<Operation<K, R>> topK(SortedMap<K, V> map, BiFunction<V, V, R> biFunction, int k, Comparator<? super R> comparator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		Objects.requireNonNull(comparator);
+		if (k < 0)
+			throw new IllegalArgumentException("k cannot be negative");
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureCollection("topK", map, metrics -> filterTopResults(map, metrics.timeFunction(biFunction), k, comparator));
+	}
+	
+	/**
+	 * Filter the k smallest results after a function be applied to consecutive values in an ordered map.
+	 * Only k operations are kept while the map is scanned once.
+	 * @param map the ordered map
+	 * @param biFunction the function to apply to consecutive values in the ordered map
+	 * @param k the maximum number of operations to return
+	 * @param comparator the comparator of the results
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a list of at most k operations sorted from the smallest to the greatest result, equal results being in the order of the map
+	 */
+	public static <K, V, R> List<Operation<K, R>> bottomK(LinkedHashMap<K, V> map, BiFunction<V, V, R> biFunction, int k, Comparator<? super R> comparator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		Objects.requireNonNull(comparator);
+		if (k < 0)
+			throw new IllegalArgumentException("k cannot be negative");
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureCollection("bottomK", map, metrics -> filterTopResults(map, metrics.timeFunction(biFunction), k, comparator.reversed()));
+	}
+	
+	/**
+	 * Filter the k smallest results after a function be applied to consecutive values in an ordered map.
+	 * Only k operations are kept while the map is scanned once.
+	 * @param map the ordered map
+	 * @param biFunction the function to apply to consecutive values in the ordered map
+	 * @param k the maximum number of operations to return
+	 * @param comparator the comparator of the results
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a list of at most k operations sorted from the smallest to the greatest result, equal results being in the order of the map
+	 */
+	public static <K, V, R> List<Operation<K, R>> bottomK(SortedMap<K, V> map, BiFunction<V, V, R> biFunction, int k, Comparator<? super R> comparator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		Objects.requireNonNull(comparator);
+		if (k < 0)
+			throw new IllegalArgumentException("k cannot be negative");
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureCollection("bottomK", map, metrics -> filterTopResults(map, metrics.timeFunction(biFunction), k, comparator.reversed()));
 	}
 	
 	/**
@@ -164,7 +518,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biFunction);
 		checkNotSingleEntry(map);
 
-		return averageResults(applyFunctionToConsecutiveElements(map, biFunction));
+		return CallMetrics.measureDouble("average", map, metrics -> averageResults(map, metrics.timeFunction(biFunction)));
 	}
 	
 	/**
@@ -181,7 +535,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biFunction);
 		checkNotSingleEntry(map);
 
-		return averageResults(applyFunctionToConsecutiveElements(map, biFunction));
+		return CallMetrics.measureDouble("average", map, metrics -> averageResults(map, metrics.timeFunction(biFunction)));
 	}
 	
 	/**
@@ -197,7 +551,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 
-		return (LinkedHashMap<K, Operation<K, Boolean>>) applyPredicateToConsecutiveElements(map, biPredicate);
+		return (LinkedHashMap<K, Operation<K, Boolean>>) CallMetrics.measureMap("test", map, metrics -> applyPredicateToConsecutiveElements(map, metrics.timePredicate(biPredicate), ResultMapFactory.sameType()));
 	}
 	
 	/**
@@ -213,7 +567,43 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 
-		return (SortedMap<K, Operation<K, Boolean>>) applyPredicateToConsecutiveElements(map, biPredicate);
+		return (SortedMap<K, Operation<K, Boolean>>) CallMetrics.measureMap("test", map, metrics -> applyPredicateToConsecutiveElements(map, metrics.timePredicate(biPredicate), ResultMapFactory.sameType()));
+	}
+	
+	/**
+	 * Test a predicate on consecutive values in an ordered map and put the results in a map created by a factory
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to test on consecutive values in the ordered map
+	 * @param resultMapFactory the factory of the map receiving the results
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a map created by the factory with the same keys of the input map but the last one because it has no successor and the result of the predicate tested on two consecutive values
+	 */
+	public static <K, V> Map<K, Operation<K, Boolean>> test(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate, ResultMapFactory resultMapFactory) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		Objects.requireNonNull(resultMapFactory);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureMap("test", map, metrics -> applyPredicateToConsecutiveElements(map, metrics.timePredicate(biPredicate), resultMapFactory));
+	}
+	
+	/**
+	 * Test a predicate on consecutive values in an ordered map and put the results in a map created by a factory
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to test on consecutive values in the ordered map
+	 * @param resultMapFactory the factory of the map receiving the results
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a map created by the factory with the same keys of the input map but the last one because it has no successor and the result of the predicate tested on two consecutive values
+	 */
+	public static <K, V> Map<K, Operation<K, Boolean>> test(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, ResultMapFactory resultMapFactory) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		Objects.requireNonNull(resultMapFactory);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureMap("test", map, metrics -> applyPredicateToConsecutiveElements(map, metrics.timePredicate(biPredicate), resultMapFactory));
 	}
 	
 	/**
@@ -230,7 +620,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 
-		return filterTests(applyPredicateToConsecutiveElements(map, biPredicate), filter);
+		return CallMetrics.measureCollection("filterTests", map, metrics -> findTests(map, metrics.timePredicate(biPredicate), filter));
 	}
 	
 	/**
@@ -247,7 +637,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 
-		return filterTests(applyPredicateToConsecutiveElements(map, biPredicate), filter);
+		return CallMetrics.measureCollection("filterTests", map, metrics -> findTests(map, metrics.timePredicate(biPredicate), filter));
 	}
 
 	/**
@@ -264,7 +654,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 
-		return findConsecutiveTests(map, biPredicate, filter);
+		return CallMetrics.measureCollection("filterGroupedConsecutiveTests", map, metrics -> findConsecutiveTests(map, metrics.timePredicate(biPredicate), filter));
 	}
 	
 	/**
@@ -281,7 +671,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 
-		return findConsecutiveTests(map, biPredicate, filter);
+		return CallMetrics.measureCollection("filterGroupedConsecutiveTests", map, metrics -> findConsecutiveTests(map, metrics.timePredicate(biPredicate), filter));
 	}
 	
 	/**
@@ -301,7 +691,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 
-		return findConsecutiveTests(map, biPredicate, filter, minGroupSize, maxGroupSize);
+		return CallMetrics.measureCollection("filterGroupedConsecutiveTests", map, metrics -> findConsecutiveTests(map, metrics.timePredicate(biPredicate), filter, minGroupSize, maxGroupSize));
 	}
 	
 	/**
@@ -321,7 +711,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 
-		return findConsecutiveTests(map, biPredicate, filter, minGroupSize, maxGroupSize);
+		return CallMetrics.measureCollection("filterGroupedConsecutiveTests", map, metrics -> findConsecutiveTests(map, metrics.timePredicate(biPredicate), filter, minGroupSize, maxGroupSize));
 	}
 	
 	/**
@@ -338,7 +728,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 		
-		return findLongestLists(findConsecutiveTests(map, biPredicate, filter));
+		return CallMetrics.measureCollection("filterAllMaxGroupedConsecutiveTests", map, metrics -> findExtremeConsecutiveTests(map, metrics.timePredicate(biPredicate), filter, 1));
 	}
 	
 	/**
@@ -355,7 +745,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 		
-		return findLongestLists(findConsecutiveTests(map, biPredicate, filter));
+		return CallMetrics.measureCollection("filterAllMaxGroupedConsecutiveTests", map, metrics -> findExtremeConsecutiveTests(map, metrics.timePredicate(biPredicate), filter, 1));
 	}
 	
 	/**
@@ -372,7 +762,7 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 		
-		return findShortestLists(findConsecutiveTests(map, biPredicate, filter));
+		return CallMetrics.measureCollection("filterAllMinGroupedConsecutiveTests", map, metrics -> findExtremeConsecutiveTests(map, metrics.timePredicate(biPredicate), filter, -1));
 	}
 	
 	/**
@@ -389,59 +779,1212 @@ public class OrderedMapUtils {
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 		
-		return findShortestLists(findConsecutiveTests(map, biPredicate, filter));
+		return CallMetrics.measureCollection("filterAllMinGroupedConsecutiveTests", map, metrics -> findExtremeConsecutiveTests(map, metrics.timePredicate(biPredicate), filter, -1));
 	}
 	
 	/**
-	 * Find the average size of groups keys and its successors in an ordered map for which the values match or do not match consecutively a predicate
+	 * Find all groups of keys and its successors in an ordered map for which the values match or do not match consecutively a predicate,
+	 * keeping only the first key, the last key and the number of pairs of keys of each group
 	 * @param map the ordered map
 	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
 	 * @param filter whether the result must be positive (true) or negative (false)
 	 * @param <K> the key type of the map
 	 * @param <V> the value type of the map
-	 * @return the average size of groups keys and its successors in the ordered map for which the values match or do not match consecutively the predicate
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group
 	 */
-	public static <K, V> double averageGroupedConsecutiveTests(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+	public static <K, V> List<RunSpan<K>> filterGroupedConsecutiveRuns(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		return filterGroupedConsecutiveRuns(map, biPredicate, filter, 1, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Find all groups of keys and its successors in an ordered map for which the values match or do not match consecutively a predicate,
+	 * keeping only the first key, the last key and the number of pairs of keys of each group
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group
+	 */
+	public static <K, V> List<RunSpan<K>> filterGroupedConsecutiveRuns(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		return filterGroupedConsecutiveRuns(map, biPredicate, filter, 1, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Find all groups of keys and its successors in an ordered map for which the values match or do not match consecutively a predicate,
+	 * keeping only the first key, the last key and the number of pairs of keys of each group.
+	 * The groups must have a minimum and a maximum size.
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param minGroupSize minimum size of the group
+	 * @param maxGroupSize maximum size of the group
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group matching min and max size
+	 */
+	public static <K, V> List<RunSpan<K>> filterGroupedConsecutiveRuns(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter, int minGroupSize, int maxGroupSize) {
 		Objects.requireNonNull(map);
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 		
-		return averageListSize(findConsecutiveTests(map, biPredicate, filter));
+		return CallMetrics.measureCollection("filterGroupedConsecutiveRuns", map, metrics -> findConsecutiveRuns(map, metrics.timePredicate(biPredicate), filter, minGroupSize, maxGroupSize));
 	}
 	
 	/**
-	 * Find the average size of groups keys and its successors in an ordered map for which the values match or do not match consecutively a predicate
+	 * Find all groups of keys and its successors in an ordered map for which the values match or do not match consecutively a predicate,
+	 * keeping only the first key, the last key and the number of pairs of keys of each group.
+	 * The groups must have a minimum and a maximum size.
 	 * @param map the ordered map
 	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
 	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param minGroupSize minimum size of the group
+	 * @param maxGroupSize maximum size of the group
 	 * @param <K> the key type of the map
 	 * @param <V> the value type of the map
-	 * @return the average size of groups keys and its successors in the ordered map for which the values match or do not match consecutively the predicate
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group matching min and max size
 	 */
-	public static <K, V> double averageGroupedConsecutiveTests(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+	public static <K, V> List<RunSpan<K>> filterGroupedConsecutiveRuns(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter, int minGroupSize, int maxGroupSize) {
 		Objects.requireNonNull(map);
 		Objects.requireNonNull(biPredicate);
 		checkNotSingleEntry(map);
 		
-		return averageListSize(findConsecutiveTests(map, biPredicate, filter));
+		return CallMetrics.measureCollection("filterGroupedConsecutiveRuns", map, metrics -> findConsecutiveRuns(map, metrics.timePredicate(biPredicate), filter, minGroupSize, maxGroupSize));
 	}
-		
+	
 	/**
-	 * Sort a map by key and build a LinkedHashMap
-	 * @deprecated use {@link #toLinkedHashMap(Map)} instead
-	 * @param map a map
+	 * Filter all groups of keys and its successors with maximum size in an ordered map for which the values match or do not match consecutively a predicate,
+	 * keeping only the first key, the last key and the number of pairs of keys of each group
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
+	 * @param filter whether the result must be positive (true) or negative (false)
 	 * @param <K> the key type of the map
 	 * @param <V> the value type of the map
-	 * @return an ordered map sorted by key as a LinkedHashMap
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group with maximum size
 	 */
-	@Deprecated
-	public static <K extends Comparable<? super K>, V> LinkedHashMap<K, V> sortByKey(Map<K, V> map) {
-		return toLinkedHashMap(map);
+	public static <K, V> List<RunSpan<K>> filterAllMaxGroupedConsecutiveRuns(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureCollection("filterAllMaxGroupedConsecutiveRuns", map, metrics -> findExtremeConsecutiveRuns(map, metrics.timePredicate(biPredicate), filter, 1));
 	}
 	
 	/**
-	 * Sort a map by key and build a LinkedHashMap
-	 * @param map a map
+	 * Filter all groups of keys and its successors with maximum size in an ordered map for which the values match or do not match consecutively a predicate,
+	 * keeping only the first key, the last key and the number of pairs of keys of each group
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group with maximum size
+	 */
+	public static <K, V> List<RunSpan<K>> filterAllMaxGroupedConsecutiveRuns(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureCollection("filterAllMaxGroupedConsecutiveRuns", map, metrics -> findExtremeConsecutiveRuns(map, metrics.timePredicate(biPredicate), filter, 1));
+	}
+	
+	/**
+	 * Filter all groups of keys and its successors with minimum size in an ordered map for which the values match or do not match consecutively a predicate,
+	 * keeping only the first key, the last key and the number of pairs of keys of each group
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group with minimum size
+	 */
+	public static <K, V> List<RunSpan<K>> filterAllMinGroupedConsecutiveRuns(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureCollection("filterAllMinGroupedConsecutiveRuns", map, metrics -> findExtremeConsecutiveRuns(map, metrics.timePredicate(biPredicate), filter, -1));
+	}
+	
+	/**
+	 * Filter all groups of keys and its successors with minimum size in an ordered map for which the values match or do not match consecutively a predicate,
+	 * keeping only the first key, the last key and the number of pairs of keys of each group
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group with minimum size
+	 */
+	public static <K, V> List<RunSpan<K>> filterAllMinGroupedConsecutiveRuns(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureCollection("filterAllMinGroupedConsecutiveRuns", map, metrics -> findExtremeConsecutiveRuns(map, metrics.timePredicate(biPredicate), filter, -1));
+	}
+	
+	/**
+	 * Find all groups of keys and its successors in a sorted map for which the values match or do not match consecutively a predicate 
+	 * in parallel on the common fork/join pool.
+	 * The map must not be modified during the call.
+	 * @param map the sorted map
+	 * @param biPredicate the predicate to apply to consecutive values in the sorted map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group
+	 */
+	public static <K, V> List<RunSpan<K>> filterGroupedConsecutiveRunsParallel(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		return filterGroupedConsecutiveRunsParallel(map, biPredicate, filter, 1, Integer.MAX_VALUE, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+	}
+	
+	/**
+	 * Find all groups of keys and its successors in a sorted map for which the values match or do not match consecutively a predicate in parallel.
+	 * The groups must have a minimum and a maximum size.
+	 * The map is split into ranges of keys processed as fork/join tasks, the runs crossing two ranges being joined, 
+	 * and the result is the same as the sequential method.
+	 * The first key of each range is found by a sequential walk of the keys before the tasks start, 
+	 * so the speedup is limited by this walk when the predicate is cheap.
+	 * The map must not be modified during the call.
+	 * @param map the sorted map
+	 * @param biPredicate the predicate to apply to consecutive values in the sorted map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param minGroupSize minimum size of the group
+	 * @param maxGroupSize maximum size of the group
+	 * @param pool the pool running the tasks
+	 * @param threshold the number of consecutive pairs of keys processed by a task
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group matching min and max size
+	 */
+	public static <K, V> List<RunSpan<K>> filterGroupedConsecutiveRunsParallel(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter, int minGroupSize, int maxGroupSize, ForkJoinPool pool, int threshold) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		Objects.requireNonNull(pool);
+		if (threshold < 1)
+			throw new IllegalArgumentException("Threshold must be positive");
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureCollection("filterGroupedConsecutiveRunsParallel", map, metrics -> findConsecutiveRunsParallel(map, metrics.timePredicate(biPredicate), filter, minGroupSize, maxGroupSize, pool, threshold));
+	}
+	
+	/**
+	 * Filter all groups of keys and its successors with maximum size in a sorted map for which the values match or do not match consecutively a predicate 
+	 * in parallel on the common fork/join pool.
+	 * The map must not be modified during the call.
+	 * @param map the sorted map
+	 * @param biPredicate the predicate to apply to consecutive values in the sorted map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group with maximum size
+	 */
+	public static <K, V> List<RunSpan<K>> filterAllMaxGroupedConsecutiveRunsParallel(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		return filterAllMaxGroupedConsecutiveRunsParallel(map, biPredicate, filter, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+	}
+	
+	/**
+	 * Filter all groups of keys and its successors with maximum size in a sorted map for which the values match or do not match consecutively a predicate in parallel.
+	 * The map is split into ranges of keys processed as fork/join tasks, the runs crossing two ranges being joined, 
+	 * and the result is the same as the sequential method.
+	 * The first key of each range is found by a sequential walk of the keys before the tasks start, 
+	 * so the speedup is limited by this walk when the predicate is cheap.
+	 * The map must not be modified during the call.
+	 * @param map the sorted map
+	 * @param biPredicate the predicate to apply to consecutive values in the sorted map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param pool the pool running the tasks
+	 * @param threshold the number of consecutive pairs of keys processed by a task
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group with maximum size
+	 */
+	public static <K, V> List<RunSpan<K>> filterAllMaxGroupedConsecutiveRunsParallel(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter, ForkJoinPool pool, int threshold) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		Objects.requireNonNull(pool);
+		if (threshold < 1)
+			throw new IllegalArgumentException("Threshold must be positive");
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureCollection("filterAllMaxGroupedConsecutiveRunsParallel", map, metrics -> filterExtremeRuns(findConsecutiveRunsParallel(map, metrics.timePredicate(biPredicate), filter, 1, Integer.MAX_VALUE, pool, threshold), 1));
+	}
+	
+	/**
+	 * Filter all groups of keys and its successors with minimum size in a sorted map for which the values match or do not match consecutively a predicate 
+	 * in parallel on the common fork/join pool.
+	 * The map must not be modified during the call.
+	 * @param map the sorted map
+	 * @param biPredicate the predicate to apply to consecutive values in the sorted map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group with minimum size
+	 */
+	public static <K, V> List<RunSpan<K>> filterAllMinGroupedConsecutiveRunsParallel(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		return filterAllMinGroupedConsecutiveRunsParallel(map, biPredicate, filter, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+	}
+	
+	/**
+	 * Filter all groups of keys and its successors with minimum size in a sorted map for which the values match or do not match consecutively a predicate in parallel.
+	 * The map is split into ranges of keys processed as fork/join tasks, the runs crossing two ranges being joined, 
+	 * and the result is the same as the sequential method.
+	 * The first key of each range is found by a sequential walk of the keys before the tasks start, 
+	 * so the speedup is limited by this walk when the predicate is cheap.
+	 * The map must not be modified during the call.
+	 * @param map the sorted map
+	 * @param biPredicate the predicate to apply to consecutive values in the sorted map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param pool the pool running the tasks
+	 * @param threshold the number of consecutive pairs of keys processed by a task
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group with minimum size
+	 */
+	public static <K, V> List<RunSpan<K>> filterAllMinGroupedConsecutiveRunsParallel(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter, ForkJoinPool pool, int threshold) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		Objects.requireNonNull(pool);
+		if (threshold < 1)
+			throw new IllegalArgumentException("Threshold must be positive");
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureCollection("filterAllMinGroupedConsecutiveRunsParallel", map, metrics -> filterExtremeRuns(findConsecutiveRunsParallel(map, metrics.timePredicate(biPredicate), filter, 1, Integer.MAX_VALUE, pool, threshold), -1));
+	}
+	
+	/**
+	 * Find the average size of groups keys and its successors in a sorted map for which the values match or do not match consecutively a predicate 
+	 * in parallel on the common fork/join pool.
+	 * The map must not be modified during the call.
+	 * @param map the sorted map
+	 * @param biPredicate the predicate to apply to consecutive values in the sorted map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the average size of groups keys and its successors in the sorted map for which the values match or do not match consecutively the predicate
+	 */
+	public static <K, V> double averageGroupedConsecutiveTestsParallel(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		return averageGroupedConsecutiveTestsParallel(map, biPredicate, filter, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+	}
+	
+	/**
+	 * Find the average size of groups keys and its successors in a sorted map for which the values match or do not match consecutively a predicate in parallel.
+	 * The map is split into ranges of keys processed as fork/join tasks, the runs crossing two ranges being joined, 
+	 * and the result is the same as the sequential method.
+	 * The first key of each range is found by a sequential walk of the keys before the tasks start, 
+	 * so the speedup is limited by this walk when the predicate is cheap.
+	 * The map must not be modified during the call.
+	 * @param map the sorted map
+	 * @param biPredicate the predicate to apply to consecutive values in the sorted map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param pool the pool running the tasks
+	 * @param threshold the number of consecutive pairs of keys processed by a task
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the average size of groups keys and its successors in the sorted map for which the values match or do not match consecutively the predicate
+	 */
+	public static <K, V> double averageGroupedConsecutiveTestsParallel(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter, ForkJoinPool pool, int threshold) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		Objects.requireNonNull(pool);
+		if (threshold < 1)
+			throw new IllegalArgumentException("Threshold must be positive");
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureDouble("averageGroupedConsecutiveTestsParallel", map, metrics -> averageRunLength(findConsecutiveRunsParallel(map, metrics.timePredicate(biPredicate), filter, 1, Integer.MAX_VALUE, pool, threshold)));
+	}
+	
+	/**
+	 * Find the average size of groups keys and its successors in an ordered map for which the values match or do not match consecutively a predicate
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the average size of groups keys and its successors in the ordered map for which the values match or do not match consecutively the predicate
+	 */
+	public static <K, V> double averageGroupedConsecutiveTests(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureDouble("averageGroupedConsecutiveTests", map, metrics -> averageGroupSize(map, metrics.timePredicate(biPredicate), filter));
+	}
+	
+	/**
+	 * Find the average size of groups keys and its successors in an ordered map for which the values match or do not match consecutively a predicate
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the average size of groups keys and its successors in the ordered map for which the values match or do not match consecutively the predicate
+	 */
+	public static <K, V> double averageGroupedConsecutiveTests(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureDouble("averageGroupedConsecutiveTests", map, metrics -> averageGroupSize(map, metrics.timePredicate(biPredicate), filter));
+	}
+		
+	/**
+	 * Apply a function to consecutive double values in an ordered map without boxing the values and the results
+	 * @param map the ordered map
+	 * @param operator the function to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a series with the keys of the input map and the result of the function applied to each key and its next key
+	 */
+	public static <K, V extends Number> DoubleOperationSeries<K> applyAsDouble(LinkedHashMap<K, V> map, DoubleBinaryOperator operator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureSeries("applyAsDouble", map, metrics -> applyDoubleOperatorToConsecutiveElements(map, metrics.timeDoubleOperator(operator)));
+	}
+	
+	/**
+	 * Apply a function to consecutive double values in an ordered map without boxing the values and the results
+	 * @param map the ordered map
+	 * @param operator the function to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a series with the keys of the input map and the result of the function applied to each key and its next key
+	 */
+	public static <K, V extends Number> DoubleOperationSeries<K> applyAsDouble(SortedMap<K, V> map, DoubleBinaryOperator operator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureSeries("applyAsDouble", map, metrics -> applyDoubleOperatorToConsecutiveElements(map, metrics.timeDoubleOperator(operator)));
+	}
+	
+	/**
+	 * Compute the average after a function be applied to consecutive double values in an ordered map without boxing the values and the results
+	 * @param map the ordered map
+	 * @param operator the function to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the average after a function be applied to consecutive values in an ordered map
+	 */
+	public static <K, V extends Number> double averageAsDouble(LinkedHashMap<K, V> map, DoubleBinaryOperator operator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureDouble("averageAsDouble", map, metrics -> averageDoubleResults(map, metrics.timeDoubleOperator(operator)));
+	}
+	
+	/**
+	 * Compute the average after a function be applied to consecutive double values in an ordered map without boxing the values and the results
+	 * @param map the ordered map
+	 * @param operator the function to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the average after a function be applied to consecutive values in an ordered map
+	 */
+	public static <K, V extends Number> double averageAsDouble(SortedMap<K, V> map, DoubleBinaryOperator operator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureDouble("averageAsDouble", map, metrics -> averageDoubleResults(map, metrics.timeDoubleOperator(operator)));
+	}
+	
+	/**
+	 * Apply a predicate to consecutive double values in an ordered map without boxing the values and the results
+	 * @param map the ordered map
+	 * @param predicate the predicate to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a series with the keys of the input map and the result of the predicate applied to each key and its next key
+	 */
+	public static <K, V extends Number> BooleanOperationSeries<K> testDouble(LinkedHashMap<K, V> map, DoubleBiPredicate predicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureSeries("testDouble", map, metrics -> applyDoublePredicateToConsecutiveElements(map, metrics.timeDoublePredicate(predicate)));
+	}
+	
+	/**
+	 * Apply a predicate to consecutive double values in an ordered map without boxing the values and the results
+	 * @param map the ordered map
+	 * @param predicate the predicate to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a series with the keys of the input map and the result of the predicate applied to each key and its next key
+	 */
+	public static <K, V extends Number> BooleanOperationSeries<K> testDouble(SortedMap<K, V> map, DoubleBiPredicate predicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureSeries("testDouble", map, metrics -> applyDoublePredicateToConsecutiveElements(map, metrics.timeDoublePredicate(predicate)));
+	}
+	
+	/**
+	 * Apply a function to consecutive long values in an ordered map without boxing the values and the results
+	 * @param map the ordered map
+	 * @param operator the function to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a series with the keys of the input map and the result of the function applied to each key and its next key
+	 */
+	public static <K, V extends Number> LongOperationSeries<K> applyAsLong(LinkedHashMap<K, V> map, LongBinaryOperator operator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureSeries("applyAsLong", map, metrics -> applyLongOperatorToConsecutiveElements(map, metrics.timeLongOperator(operator)));
+	}
+	
+	/**
+	 * Apply a function to consecutive long values in an ordered map without boxing the values and the results
+	 * @param map the ordered map
+	 * @param operator the function to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a series with the keys of the input map and the result of the function applied to each key and its next key
+	 */
+	public static <K, V extends Number> LongOperationSeries<K> applyAsLong(SortedMap<K, V> map, LongBinaryOperator operator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureSeries("applyAsLong", map, metrics -> applyLongOperatorToConsecutiveElements(map, metrics.timeLongOperator(operator)));
+	}
+	
+	/**
+	 * Compute the average after a function be applied to consecutive long values in an ordered map without boxing the values and the results
+	 * @param map the ordered map
+	 * @param operator the function to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the average after a function be applied to consecutive values in an ordered map
+	 */
+	public static <K, V extends Number> double averageAsLong(LinkedHashMap<K, V> map, LongBinaryOperator operator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureDouble("averageAsLong", map, metrics -> averageLongResults(map, metrics.timeLongOperator(operator)));
+	}
+	
+	/**
+	 * Compute the average after a function be applied to consecutive long values in an ordered map without boxing the values and the results
+	 * @param map the ordered map
+	 * @param operator the function to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the average after a function be applied to consecutive values in an ordered map
+	 */
+	public static <K, V extends Number> double averageAsLong(SortedMap<K, V> map, LongBinaryOperator operator) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(operator);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureDouble("averageAsLong", map, metrics -> averageLongResults(map, metrics.timeLongOperator(operator)));
+	}
+	
+	/**
+	 * Apply a predicate to consecutive long values in an ordered map without boxing the values and the results
+	 * @param map the ordered map
+	 * @param predicate the predicate to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a series with the keys of the input map and the result of the predicate applied to each key and its next key
+	 */
+	public static <K, V extends Number> BooleanOperationSeries<K> testLong(LinkedHashMap<K, V> map, LongBiPredicate predicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureSeries("testLong", map, metrics -> applyLongPredicateToConsecutiveElements(map, metrics.timeLongPredicate(predicate)));
+	}
+	
+	/**
+	 * Apply a predicate to consecutive long values in an ordered map without boxing the values and the results
+	 * @param map the ordered map
+	 * @param predicate the predicate to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return a series with the keys of the input map and the result of the predicate applied to each key and its next key
+	 */
+	public static <K, V extends Number> BooleanOperationSeries<K> testLong(SortedMap<K, V> map, LongBiPredicate predicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(predicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureSeries("testLong", map, metrics -> applyLongPredicateToConsecutiveElements(map, metrics.timeLongPredicate(predicate)));
+	}
+	
+	/**
+	 * Apply a function to windows of consecutive values in an ordered map. 
+	 * The window slides one key at a time and its sum, average, minimum and maximum are maintained incrementally.
+	 * @param map the ordered map
+	 * @param windowSize the number of consecutive keys in a window
+	 * @param function the function to apply to each window, which must not keep the window
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to a window
+	 * @return an ordered map with the first key of each window and an operation with the first key, the last key of the window and the result of the function applied to the window
+	 */
+	public static <K, V extends Number, R> LinkedHashMap<K, Operation<K, R>> apply(LinkedHashMap<K, V> map, int windowSize, Function<Window<K, V>, R> function) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(function);
+		checkWindowSize(map, windowSize);
+		
+		return (LinkedHashMap<K, Operation<K, R>>) CallMetrics.measureMap("apply", map, metrics -> applyFunctionToWindows(map, windowSize, metrics.timeWindowFunction(function)));
+	}
+	
+	/**
+	 * Apply a function to windows of consecutive values in an ordered map. 
+	 * The window slides one key at a time and its sum, average, minimum and maximum are maintained incrementally.
+	 * @param map the ordered map
+	 * @param windowSize the number of consecutive keys in a window
+	 * @param function the function to apply to each window, which must not keep the window
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to a window
+	 * @return an ordered map with the first key of each window and an operation with the first key, the last key of the window and the result of the function applied to the window
+	 */
+	public static <K, V extends Number, R> SortedMap<K, Operation<K, R>> apply(SortedMap<K, V> map, int windowSize, Function<Window<K, V>, R> function) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(function);
+		checkWindowSize(map, windowSize);
+		
+		return (SortedMap<K, Operation<K, R>>) CallMetrics.measureMap("apply", map, metrics -> applyFunctionToWindows(map, windowSize, metrics.timeWindowFunction(function)));
+	}
+	
+	/**
+	 * Filter all maximum after a function be applied to windows of consecutive values in an ordered map
+	 * @param map the ordered map
+	 * @param windowSize the number of consecutive keys in a window
+	 * @param function the function to apply to each window, which must not keep the window
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to a window
+	 * @return a list of all maximum after a function be applied to windows of consecutive values in the ordered map, with the first and the last key of each window
+	 */
+	public static <K, V extends Number, R extends Comparable<? super R>> List<Operation<K, R>> filterAllMax(LinkedHashMap<K, V> map, int windowSize, Function<Window<K, V>, R> function) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(function);
+		checkWindowSize(map, windowSize);
+		
+		return CallMetrics.measureCollection("filterAllMax", map, metrics -> filterAllWindowExtremes(map, windowSize, metrics.timeWindowFunction(function), Comparator.<R>naturalOrder()));
+	}
+	
+	/**
+	 * Filter all maximum after a function be applied to windows of consecutive values in an ordered map
+	 * @param map the ordered map
+	 * @param windowSize the number of consecutive keys in a window
+	 * @param function the function to apply to each window, which must not keep the window
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to a window
+	 * @return a list of all maximum after a function be applied to windows of consecutive values in the ordered map, with the first and the last key of each window
+	 */
+	public static <K, V extends Number, R extends Comparable<? super R>> List<Operation<K, R>> filterAllMax(SortedMap<K, V> map, int windowSize, Function<Window<K, V>, R> function) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(function);
+		checkWindowSize(map, windowSize);
+		
+		return CallMetrics.measureCollection("filterAllMax", map, metrics -> filterAllWindowExtremes(map, windowSize, metrics.timeWindowFunction(function), Comparator.<R>naturalOrder()));
+	}
+	
+	/**
+	 * Filter all minimum after a function be applied to windows of consecutive values in an ordered map
+	 * @param map the ordered map
+	 * @param windowSize the number of consecutive keys in a window
+	 * @param function the function to apply to each window, which must not keep the window
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to a window
+	 * @return a list of all minimum after a function be applied to windows of consecutive values in the ordered map, with the first and the last key of each window
+	 */
+	public static <K, V extends Number, R extends Comparable<? super R>> List<Operation<K, R>> filterAllMin(LinkedHashMap<K, V> map, int windowSize, Function<Window<K, V>, R> function) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(function);
+		checkWindowSize(map, windowSize);
+		
+		return CallMetrics.measureCollection("filterAllMin", map, metrics -> filterAllWindowExtremes(map, windowSize, metrics.timeWindowFunction(function), Comparator.<R>reverseOrder()));
+	}
+	
+	/**
+	 * Filter all minimum after a function be applied to windows of consecutive values in an ordered map
+	 * @param map the ordered map
+	 * @param windowSize the number of consecutive keys in a window
+	 * @param function the function to apply to each window, which must not keep the window
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to a window
+	 * @return a list of all minimum after a function be applied to windows of consecutive values in the ordered map, with the first and the last key of each window
+	 */
+	public static <K, V extends Number, R extends Comparable<? super R>> List<Operation<K, R>> filterAllMin(SortedMap<K, V> map, int windowSize, Function<Window<K, V>, R> function) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(function);
+		checkWindowSize(map, windowSize);
+		
+		return CallMetrics.measureCollection("filterAllMin", map, metrics -> filterAllWindowExtremes(map, windowSize, metrics.timeWindowFunction(function), Comparator.<R>reverseOrder()));
+	}
+	
+	/**
+	 * Compute the average after a function be applied to windows of consecutive values in an ordered map
+	 * @param map the ordered map
+	 * @param windowSize the number of consecutive keys in a window
+	 * @param function the function to apply to each window, which must not keep the window
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to a window
+	 * @return the average after a function be applied to windows of consecutive values in the ordered map
+	 */
+	public static <K, V extends Number, R extends Number> double average(LinkedHashMap<K, V> map, int windowSize, Function<Window<K, V>, R> function) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(function);
+		checkWindowSize(map, windowSize);
+		
+		return CallMetrics.measureDouble("average", map, metrics -> averageWindowResults(map, windowSize, metrics.timeWindowFunction(function)));
+	}
+	
+	/**
+	 * Compute the average after a function be applied to windows of consecutive values in an ordered map
+	 * @param map the ordered map
+	 * @param windowSize the number of consecutive keys in a window
+	 * @param function the function to apply to each window, which must not keep the window
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to a window
+	 * @return the average after a function be applied to windows of consecutive values in the ordered map
+	 */
+	public static <K, V extends Number, R extends Number> double average(SortedMap<K, V> map, int windowSize, Function<Window<K, V>, R> function) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(function);
+		checkWindowSize(map, windowSize);
+		
+		return CallMetrics.measureDouble("average", map, metrics -> averageWindowResults(map, windowSize, metrics.timeWindowFunction(function)));
+	}
+	
+	/**
+	 * Apply a predicate to windows of consecutive values in an ordered map
+	 * @param map the ordered map
+	 * @param windowSize the number of consecutive keys in a window
+	 * @param predicate the predicate to apply to each window, which must not keep the window
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return an ordered map with the first key of each window and an operation with the first key, the last key of the window and the result of the predicate applied to the window
+	 */
+	public static <K, V extends Number> LinkedHashMap<K, Operation<K, Boolean>> test(LinkedHashMap<K, V> map, int windowSize, Predicate<Window<K, V>> predicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(predicate);
+		checkWindowSize(map, windowSize);
+		
+		return (LinkedHashMap<K, Operation<K, Boolean>>) CallMetrics.measureMap("test", map, metrics -> applyFunctionToWindows(map, windowSize, metrics.timeWindowPredicate(predicate)::test));
+	}
+	
+	/**
+	 * Apply a predicate to windows of consecutive values in an ordered map
+	 * @param map the ordered map
+	 * @param windowSize the number of consecutive keys in a window
+	 * @param predicate the predicate to apply to each window, which must not keep the window
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return an ordered map with the first key of each window and an operation with the first key, the last key of the window and the result of the predicate applied to the window
+	 */
+	public static <K, V extends Number> SortedMap<K, Operation<K, Boolean>> test(SortedMap<K, V> map, int windowSize, Predicate<Window<K, V>> predicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(predicate);
+		checkWindowSize(map, windowSize);
+		
+		return (SortedMap<K, Operation<K, Boolean>>) CallMetrics.measureMap("test", map, metrics -> applyFunctionToWindows(map, windowSize, metrics.timeWindowPredicate(predicate)::test));
+	}
+	
+	/**
+	 * Check whether the values of any key and its successor in an ordered map match a predicate, stopping at the first match
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to test on consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return true if the values of a key and its successor match the predicate
+	 */
+	public static <K, V> boolean anyMatch(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureMatch("anyMatch", map, metrics -> findFirstTest(map, metrics.timePredicate(biPredicate), true) != null);
+	}
+	
+	/**
+	 * Check whether the values of any key and its successor in an ordered map match a predicate, stopping at the first match
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to test on consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return true if the values of a key and its successor match the predicate
+	 */
+	public static <K, V> boolean anyMatch(SortedMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureMatch("anyMatch", map, metrics -> findFirstTest(map, metrics.timePredicate(biPredicate), true) != null);
+	}
+	
+	/**
+	 * Check whether the values of all keys and their successor in an ordered map match a predicate, stopping at the first mismatch
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to test on consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return true if the values of all keys and their successor match the predicate
+	 */
+	public static <K, V> boolean allMatch(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureMatch("allMatch", map, metrics -> findFirstTest(map, metrics.timePredicate(biPredicate), false) == null);
+	}
+	
+	/**
+	 * Check whether the values of all keys and their successor in an ordered map match a predicate, stopping at the first mismatch
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to test on consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return true if the values of all keys and their successor match the predicate
+	 */
+	public static <K, V> boolean allMatch(SortedMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureMatch("allMatch", map, metrics -> findFirstTest(map, metrics.timePredicate(biPredicate), false) == null);
+	}
+	
+	/**
+	 * Check whether the values of no key and its successor in an ordered map match a predicate, stopping at the first match
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to test on consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return true if the values of no key and its successor match the predicate
+	 */
+	public static <K, V> boolean noneMatch(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureMatch("noneMatch", map, metrics -> findFirstTest(map, metrics.timePredicate(biPredicate), true) == null);
+	}
+	
+	/**
+	 * Check whether the values of no key and its successor in an ordered map match a predicate, stopping at the first match
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to test on consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return true if the values of no key and its successor match the predicate
+	 */
+	public static <K, V> boolean noneMatch(SortedMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureMatch("noneMatch", map, metrics -> findFirstTest(map, metrics.timePredicate(biPredicate), true) == null);
+	}
+	
+	/**
+	 * Find the first key and its successor in an ordered map whose values match a predicate, stopping at the first match
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to test on consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the first key and its successor whose values match the predicate, empty if there is none
+	 */
+	public static <K, V> Optional<KeyPair<K>> findFirst(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureFind("findFirst", map, metrics -> Optional.ofNullable(findFirstTest(map, metrics.timePredicate(biPredicate), true)));
+	}
+	
+	/**
+	 * Find the first key and its successor in an ordered map whose values match a predicate, stopping at the first match
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to test on consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the first key and its successor whose values match the predicate, empty if there is none
+	 */
+	public static <K, V> Optional<KeyPair<K>> findFirst(SortedMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureFind("findFirst", map, metrics -> Optional.ofNullable(findFirstTest(map, metrics.timePredicate(biPredicate), true)));
+	}
+	
+	/**
+	 * Find the last key and its successor in an ordered map whose values match a predicate.
+	 * A navigable map is read from its last key, stopping at the first match, other maps are read entirely.
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to test on consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the last key and its successor whose values match the predicate, empty if there is none
+	 */
+	public static <K, V> Optional<KeyPair<K>> findLast(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureFind("findLast", map, metrics -> Optional.ofNullable(findLastTest(map, metrics.timePredicate(biPredicate))));
+	}
+	
+	/**
+	 * Find the last key and its successor in an ordered map whose values match a predicate.
+	 * A navigable map is read from its last key, stopping at the first match, other maps are read entirely.
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to test on consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the last key and its successor whose values match the predicate, empty if there is none
+	 */
+	public static <K, V> Optional<KeyPair<K>> findLast(SortedMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureFind("findLast", map, metrics -> Optional.ofNullable(findLastTest(map, metrics.timePredicate(biPredicate))));
+	}
+	
+	/**
+	 * Give each key, its next key and their values in an ordered map to a consumer, without creating an object for each pair
+	 * @param map the ordered map
+	 * @param consumer the consumer of consecutive keys and values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 */
+	public static <K, V> void forEachPair(LinkedHashMap<K, V> map, PairConsumer<K, V> consumer) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(consumer);
+		
+		CallMetrics.measureVoid("forEachPair", map, metrics -> forEachConsecutiveElements(map, metrics.timeConsumer(consumer)));
+	}
+	
+	/**
+	 * Give each key, its next key and their values in an ordered map to a consumer, without creating an object for each pair
+	 * @param map the ordered map
+	 * @param consumer the consumer of consecutive keys and values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 */
+	public static <K, V> void forEachPair(SortedMap<K, V> map, PairConsumer<K, V> consumer) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(consumer);
+		
+		CallMetrics.measureVoid("forEachPair", map, metrics -> forEachConsecutiveElements(map, metrics.timeConsumer(consumer)));
+	}
+	
+	/**
+	 * Give each key, its next key and their values as double in an ordered map to a consumer, without creating an object for each pair
+	 * @param map the ordered map
+	 * @param consumer the consumer of consecutive keys and values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 */
+	public static <K, V extends Number> void forEachDoublePair(LinkedHashMap<K, V> map, DoublePairConsumer<K> consumer) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(consumer);
+		
+		CallMetrics.measureVoid("forEachDoublePair", map, metrics -> forEachConsecutiveDoubleElements(map, metrics.timeDoubleConsumer(consumer)));
+	}
+	
+	/**
+	 * Give each key, its next key and their values as double in an ordered map to a consumer, without creating an object for each pair
+	 * @param map the ordered map
+	 * @param consumer the consumer of consecutive keys and values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 */
+	public static <K, V extends Number> void forEachDoublePair(SortedMap<K, V> map, DoublePairConsumer<K> consumer) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(consumer);
+		
+		CallMetrics.measureVoid("forEachDoublePair", map, metrics -> forEachConsecutiveDoubleElements(map, metrics.timeDoubleConsumer(consumer)));
+	}
+	
+	/**
+	 * Give each key, its next key and their values as long in an ordered map to a consumer, without creating an object for each pair
+	 * @param map the ordered map
+	 * @param consumer the consumer of consecutive keys and values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 */
+	public static <K, V extends Number> void forEachLongPair(LinkedHashMap<K, V> map, LongPairConsumer<K> consumer) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(consumer);
+		
+		CallMetrics.measureVoid("forEachLongPair", map, metrics -> forEachConsecutiveLongElements(map, metrics.timeLongConsumer(consumer)));
+	}
+	
+	/**
+	 * Give each key, its next key and their values as long in an ordered map to a consumer, without creating an object for each pair
+	 * @param map the ordered map
+	 * @param consumer the consumer of consecutive keys and values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 */
+	public static <K, V extends Number> void forEachLongPair(SortedMap<K, V> map, LongPairConsumer<K> consumer) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(consumer);
+		
+		CallMetrics.measureVoid("forEachLongPair", map, metrics -> forEachConsecutiveLongElements(map, metrics.timeLongConsumer(consumer)));
+	}
+	
+	/**
+	 * Apply a predicate to consecutive values in an ordered map, storing the results in a bit set.
+	 * The keys are copied into an array, see {@link PairTestResult} for the footprint of the result.
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the keys of the input map in their order and the result of the predicate applied to each key and its next key
+	 */
+	public static <K, V> PairTestResult<K> testCompact(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureSeries("testCompact", map, metrics -> applyPredicateToConsecutiveElementsAsBitSet(map, metrics.timePredicate(biPredicate)));
+	}
+	
+	/**
+	 * Apply a predicate to consecutive values in an ordered map, storing the results in a bit set.
+	 * The keys are copied into an array, see {@link PairTestResult} for the footprint of the result.
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the keys of the input map in their order and the result of the predicate applied to each key and its next key
+	 */
+	public static <K, V> PairTestResult<K> testCompact(SortedMap<K, V> map, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		checkNotSingleEntry(map);
+		
+		return CallMetrics.measureSeries("testCompact", map, metrics -> applyPredicateToConsecutiveElementsAsBitSet(map, metrics.timePredicate(biPredicate)));
+	}
+	
+	/**
+	 * Apply a function to consecutive values of ordered entries lazily
+	 * @param entries an iterator of entries in the order of their keys, consumed lazily
+	 * @param biFunction the function to apply to consecutive values
+	 * @param <K> the key type of the entries
+	 * @param <V> the value type of the entries
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a sequential stream of the result of the function applied to each key and its next key, empty if there are less than two entries
+	 */
+	public static <K, V, R> Stream<Operation<K, R>> applyStream(Iterator<? extends Map.Entry<K, V>> entries, BiFunction<V, V, R> biFunction) {
+		Objects.requireNonNull(entries);
+		Objects.requireNonNull(biFunction);
+		
+		return streamConsecutiveElements(entries, (key, nextKey, value, nextValue) -> new Operation<K, R>(key, nextKey, biFunction.apply(value, nextValue)));
+	}
+	
+	/**
+	 * Apply a function to consecutive values of ordered entries lazily
+	 * @param entries a stream of entries in the order of their keys, consumed lazily and closed with the returned stream
+	 * @param biFunction the function to apply to consecutive values
+	 * @param <K> the key type of the entries
+	 * @param <V> the value type of the entries
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a sequential stream of the result of the function applied to each key and its next key, empty if there are less than two entries
+	 */
+	public static <K, V, R> Stream<Operation<K, R>> applyStream(Stream<? extends Map.Entry<K, V>> entries, BiFunction<V, V, R> biFunction) {
+		Objects.requireNonNull(entries);
+		Objects.requireNonNull(biFunction);
+		
+		return applyStream(entries.iterator(), biFunction).onClose(entries::close);
+	}
+	
+	/**
+	 * Test a predicate on consecutive values of ordered entries lazily
+	 * @param entries an iterator of entries in the order of their keys, consumed lazily
+	 * @param biPredicate the predicate to test on consecutive values
+	 * @param <K> the key type of the entries
+	 * @param <V> the value type of the entries
+	 * @return a sequential stream of the result of the predicate tested on each key and its next key, empty if there are less than two entries
+	 */
+	public static <K, V> Stream<Operation<K, Boolean>> testStream(Iterator<? extends Map.Entry<K, V>> entries, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(entries);
+		Objects.requireNonNull(biPredicate);
+		
+		return streamConsecutiveTests(entries, biPredicate);
+	}
+	
+	/**
+	 * Test a predicate on consecutive values of ordered entries lazily
+	 * @param entries a stream of entries in the order of their keys, consumed lazily and closed with the returned stream
+	 * @param biPredicate the predicate to test on consecutive values
+	 * @param <K> the key type of the entries
+	 * @param <V> the value type of the entries
+	 * @return a sequential stream of the result of the predicate tested on each key and its next key, empty if there are less than two entries
+	 */
+	public static <K, V> Stream<Operation<K, Boolean>> testStream(Stream<? extends Map.Entry<K, V>> entries, BiPredicate<V, V> biPredicate) {
+		Objects.requireNonNull(entries);
+		Objects.requireNonNull(biPredicate);
+		
+		return testStream(entries.iterator(), biPredicate).onClose(entries::close);
+	}
+	
+	/**
+	 * Find lazily all keys and its successors of ordered entries for which the values match or do not match a predicate
+	 * @param entries an iterator of entries in the order of their keys, consumed lazily
+	 * @param biPredicate the predicate to test on consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the entries
+	 * @param <V> the value type of the entries
+	 * @return a sequential stream of keys and its successor for which the values match or do not match the predicate
+	 */
+	public static <K, V> Stream<KeyPair<K>> filterTestsStream(Iterator<? extends Map.Entry<K, V>> entries, BiPredicate<V, V> biPredicate, boolean filter) {
+		Objects.requireNonNull(entries);
+		Objects.requireNonNull(biPredicate);
+		
+		return streamConsecutiveTests(entries, biPredicate).filter(test -> test.getResult() == filter).map(test -> new KeyPair<K>(test.getKey(), test.getNextKey()));
+	}
+	
+	/**
+	 * Find lazily all keys and its successors of ordered entries for which the values match or do not match a predicate
+	 * @param entries a stream of entries in the order of their keys, consumed lazily and closed with the returned stream
+	 * @param biPredicate the predicate to test on consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the entries
+	 * @param <V> the value type of the entries
+	 * @return a sequential stream of keys and its successor for which the values match or do not match the predicate
+	 */
+	public static <K, V> Stream<KeyPair<K>> filterTestsStream(Stream<? extends Map.Entry<K, V>> entries, BiPredicate<V, V> biPredicate, boolean filter) {
+		Objects.requireNonNull(entries);
+		Objects.requireNonNull(biPredicate);
+		
+		return filterTestsStream(entries.iterator(), biPredicate, filter).onClose(entries::close);
+	}
+	
+	/**
+	 * Find lazily all groups of keys and its successors of ordered entries for which the values match or do not match consecutively a predicate.
+	 * Only the current group is held in memory
+	 * @param entries an iterator of entries in the order of their keys, consumed lazily
+	 * @param biPredicate the predicate to test on consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the entries
+	 * @param <V> the value type of the entries
+	 * @return a sequential stream of list of keys and its successor for which the values match or do not match consecutively the predicate
+	 */
+	public static <K, V> Stream<List<KeyPair<K>>> filterGroupedConsecutiveTestsStream(Iterator<? extends Map.Entry<K, V>> entries, BiPredicate<V, V> biPredicate, boolean filter) {
+		Objects.requireNonNull(entries);
+		Objects.requireNonNull(biPredicate);
+		
+		return toStream(new GroupedConsecutiveTestIterator<>(streamConsecutiveTests(entries, biPredicate).iterator(), filter));
+	}
+	
+	/**
+	 * Find lazily all groups of keys and its successors of ordered entries for which the values match or do not match consecutively a predicate.
+	 * Only the current group is held in memory
+	 * @param entries a stream of entries in the order of their keys, consumed lazily and closed with the returned stream
+	 * @param biPredicate the predicate to test on consecutive values
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the entries
+	 * @param <V> the value type of the entries
+	 * @return a sequential stream of list of keys and its successor for which the values match or do not match consecutively the predicate
+	 */
+	public static <K, V> Stream<List<KeyPair<K>>> filterGroupedConsecutiveTestsStream(Stream<? extends Map.Entry<K, V>> entries, BiPredicate<V, V> biPredicate, boolean filter) {
+		Objects.requireNonNull(entries);
+		Objects.requireNonNull(biPredicate);
+		
+		return filterGroupedConsecutiveTestsStream(entries.iterator(), biPredicate, filter).onClose(entries::close);
+	}
+	
+	/**
+	 * Stream the results of a function applied to consecutive values in a navigable map.
+	 * The stream can be made parallel: it splits by ranges of keys, the pair of keys across two ranges being kept.
+	 * The map must not be modified while the stream is consumed.
+	 * @param map the navigable map
+	 * @param biFunction the function to apply to consecutive values in the navigable map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a sequential stream of the result of the function applied to each key and its next key, in the order of the keys
+	 */
+	public static <K, V, R> Stream<Operation<K, R>> pairs(NavigableMap<K, V> map, BiFunction<V, V, R> biFunction) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		checkNotSingleEntry(map);
+		
+		return StreamSupport.stream(new ConsecutivePairSpliterator<>(map.entrySet().spliterator(), biFunction), false);
+	}
+	
+	/**
+	 * Stream the results of a function applied to consecutive values in an ordered map.
+	 * The stream is backed by a snapshot of the keys and the values taken by this call, 
+	 * and it can be made parallel: it splits by ranges of indexes, the pair of keys across two ranges being kept.
+	 * @param map the ordered map
+	 * @param biFunction the function to apply to consecutive values in the ordered map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a sequential stream of the result of the function applied to each key and its next key, in the order of the keys
+	 */
+	public static <K, V, R> Stream<Operation<K, R>> pairs(LinkedHashMap<K, V> map, BiFunction<V, V, R> biFunction) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biFunction);
+		checkNotSingleEntry(map);
+		
+		Object[] keys = new Object[map.size()];
+		Object[] values = new Object[map.size()];
+		int index = 0;
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			keys[index] = entry.getKey();
+			values[index] = entry.getValue();
+			index++;
+		}
+		return StreamSupport.stream(new SnapshotPairSpliterator<K, V, R>(keys, values, biFunction, 0, Math.max(keys.length - 1, 0)), false);
+	}
+	
+	/**
+	 * Create a batch of independent sorted maps on which the same operation is run concurrently
+	 * @param series the sorted maps by series id, the results of the batch being in the order of this map
+	 * @param <S> the type of the series id
+	 * @param <K> the key type of the maps
+	 * @param <V> the value type of the maps
+	 * @return a batch of the sorted maps running the operations on the common fork/join pool
+	 */
+	public static <S, K, V> SeriesBatch<S, K, V> batch(Map<S, ? extends SortedMap<K, V>> series) {
+		Objects.requireNonNull(series);
+		
+		return SeriesBatch.of(series);
+	}
+	
+	/**
+	 * Sort a map by key and build a LinkedHashMap
+	 * @deprecated use {@link #toLinkedHashMap(Map)} instead
+	 * @param map a map
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return an ordered map sorted by key as a LinkedHashMap
+	 */
+	@Deprecated
+	public static <K extends Comparable<? super K>, V> LinkedHashMap<K, V> sortByKey(Map<K, V> map) {
+		return toLinkedHashMap(map);
+	}
+	
+	/**
+	 * Sort a map by key and build a LinkedHashMap
+	 * @param map a map
 	 * @param <K> the key type of the map
 	 * @param <V> the value type of the map
 	 * @return an ordered map sorted by key as a LinkedHashMap
@@ -469,143 +2012,690 @@ public class OrderedMapUtils {
 		return new TreeMap<K, V>(map);
 	}
 	
-	private static <K, V, R> Map<K, Operation<K, R>> applyFunctionToConsecutiveElements(Map<K, V> map, BiFunction<V, V, R> biFunction) {
-		@SuppressWarnings("unchecked")
-		Supplier<Map<K, Operation<K, R>>> mapSupplier = () -> {
-			try {
-				return map.getClass().getDeclaredConstructor().newInstance();
-			} catch (InstantiationException | IllegalAccessException |IllegalArgumentException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
-				throw new IllegalArgumentException(e);
-			} 
-		};
-		
-		return StreamsUtils.roll(map.entrySet().stream(), 2) // Roll the map
-							.map(e -> e.collect(Collectors.toList())).collect(Collectors.toList()) // Convert to List<List<Map.Entry<K, V>>> 
-							.stream()
-							.collect( // Apply function and build result map
-								Collectors.toMap(
-									e -> e.get(0).getKey(), 
-									e -> new Operation<K, R>(e.get(0).getKey(), e.get(1).getKey(), biFunction.apply(e.get(0).getValue(), e.get(1).getValue())),
-									(e1, e2) -> e1, mapSupplier
-								)
-							);
-	}
-	
-	private static <K, V> Map<K, Operation<K, Boolean>> applyPredicateToConsecutiveElements(Map<K, V> map, BiPredicate<V, V> biPredicate) {
-		@SuppressWarnings("unchecked")
-		Supplier<Map<K, Operation<K, Boolean>>> mapSupplier = () -> {
-			try {
-				return map.getClass().getDeclaredConstructor().newInstance();
-			} catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
-				throw new IllegalArgumentException(e);
-			} 
-		};
-		
-		return StreamsUtils.roll(map.entrySet().stream(), 2) // Roll the map
-			.map(e -> e.collect(Collectors.toList())).collect(Collectors.toList()) // Convert to List<List<Map.Entry<K, V>>> 
-			.stream()
-			.collect( // Apply predicate and build a map<K, Boolean>
-				Collectors.toMap(
-					e -> e.get(0).getKey(), 
-					e -> new Operation<K, Boolean>(e.get(0).getKey(), e.get(1).getKey(), biPredicate.test(e.get(0).getValue(), e.get(1).getValue())),
-					(e1, e2) -> e1, mapSupplier
-				)
-			);
-	}
-	
-	private static <K> List<KeyPair<K>> filterTests(Map<K, Operation<K, Boolean>> map, boolean filter) {
-		return map.entrySet()
-				.stream()
-				.filter(e -> e.getValue().getResult().booleanValue() == filter)
-				.map(e -> new KeyPair<K>(e.getKey(), e.getValue().getNextKey()))
-				.collect(Collectors.toList());
+	/*
+	 * Find the first key and its successor whose values match or do not match the predicate, null if there is none
+	 */
+	private static <K, V> KeyPair<K> findFirstTest(Map<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		Iterator<Map.Entry<K, V>> iterator = map.entrySet().iterator();
+		if (!iterator.hasNext())
+			return null;
+		
+		Map.Entry<K, V> entry = iterator.next();
+		K key = entry.getKey();
+		V value = entry.getValue();
+		while (iterator.hasNext()) {
+			Map.Entry<K, V> nextEntry = iterator.next();
+			if (biPredicate.test(value, nextEntry.getValue()) == filter)
+				return new KeyPair<K>(key, nextEntry.getKey());
+			key = nextEntry.getKey();
+			value = nextEntry.getValue();
+		}
+		return null;
+	}
+	
+	/*
+	 * Find the last key and its successor whose values match the predicate, null if there is none
+	 */
+	private static <K, V> KeyPair<K> findLastTest(Map<K, V> map, BiPredicate<V, V> biPredicate) {
+		if (!(map instanceof NavigableMap)) {
+			List<KeyPair<K>> lastTest = new ArrayList<>(1);
+			forEachConsecutiveElements(map, (key, nextKey, value, nextValue) -> {
+				if (biPredicate.test(value, nextValue)) {
+					lastTest.clear();
+					lastTest.add(new KeyPair<K>(key, nextKey));
+				}
+			});
+			return lastTest.isEmpty() ? null : lastTest.get(0);
+		}
+		
+		Iterator<Map.Entry<K, V>> iterator = ((NavigableMap<K, V>) map).descendingMap().entrySet().iterator();
+		if (!iterator.hasNext())
+			return null;
+		
+		Map.Entry<K, V> nextEntry = iterator.next();
+		K nextKey = nextEntry.getKey();
+		V nextValue = nextEntry.getValue();
+		while (iterator.hasNext()) {
+			Map.Entry<K, V> entry = iterator.next();
+			if (biPredicate.test(entry.getValue(), nextValue))
+				return new KeyPair<K>(entry.getKey(), nextKey);
+			nextKey = entry.getKey();
+			nextValue = entry.getValue();
+		}
+		return null;
+	}
+	
+	private static <K, V, T> Stream<T> streamConsecutiveElements(Iterator<? extends Map.Entry<K, V>> entries, ConsecutivePairIterator.PairFunction<K, V, T> pairFunction) {
+		return toStream(new ConsecutivePairIterator<>(entries, pairFunction));
+	}
+	
+	private static <K, V> Stream<Operation<K, Boolean>> streamConsecutiveTests(Iterator<? extends Map.Entry<K, V>> entries, BiPredicate<V, V> biPredicate) {
+		return streamConsecutiveElements(entries, (key, nextKey, value, nextValue) -> new Operation<K, Boolean>(key, nextKey, biPredicate.test(value, nextValue)));
+	}
+	
+	private static <T> Stream<T> toStream(Iterator<T> iterator) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+	
+	private static <K, V, R> Map<K, Operation<K, R>> applyFunctionToConsecutiveElements(Map<K, V> map, BiFunction<V, V, R> biFunction, ResultMapFactory resultMapFactory) {
+		Map<K, Operation<K, R>> resultMap = resultMapFactory.create(map, map.size() - 1);
+		forEachConsecutiveElements(map, (key, nextKey, value, nextValue) -> resultMap.put(key, new Operation<K, R>(key, nextKey, biFunction.apply(value, nextValue))));
+		return resultMapFactory.complete(resultMap);
+	}
+	
+	private static <K, V, R> OperationSeries<K, R> applyFunctionToConsecutiveElementsAsSeries(Map<K, V> map, BiFunction<V, V, R> biFunction, boolean sorted, Comparator<? super K> comparator) {
+		Object[] keys = new Object[map.size()];
+		Object[] results = new Object[Math.max(keys.length - 1, 0)];
+		int index = 0;
+		V previousValue = null;
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			V value = entry.getValue();
+			if (index > 0) {
+				results[index - 1] = biFunction.apply(previousValue, value);
+			}
+			keys[index++] = entry.getKey();
+			previousValue = value;
+		}
+		return new OperationSeries<K, R>(keys, results, sorted, comparator);
+	}
+	
+	private static <K, V, R> Map<K, Operation<K, R>> applyFunctionToConsecutiveRanges(SortedMap<K, V> map, BiFunction<V, V, R> biFunction, ForkJoinPool pool, int rangeSize) {
+		int size = map.size() - 1;
+		Object[] boundaries = rangeBoundaries(map, rangeSize);
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Operation<K, R>[] results = new Operation[size];
+		pool.invoke(new ConsecutiveRangeAction<>(map, biFunction, boundaries, rangeSize, results, 0, boundaries.length));
+		
+		Object[] keys = new Object[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = results[i].getKey();
+		}
+		return toSameTypeSortedMap(map, new SortedArrayMap<K, Operation<K, R>>(map.comparator(), keys, results));
+	}
+	
+	/*
+	 * Copy results sorted by key into a map of the type of the input map,
+	 * tree maps and skip list maps being built from the sorted entries in linear time instead of putting each entry
+	 */
+	private static <K, T> Map<K, T> toSameTypeSortedMap(SortedMap<K, ?> map, SortedMap<K, T> sortedResults) {
+		Class<?> mapClass = map.getClass();
+		if (mapClass == TreeMap.class)
+			return new TreeMap<>(sortedResults);
+		if (mapClass == ConcurrentSkipListMap.class)
+			return new ConcurrentSkipListMap<>(sortedResults);
+		
+		Map<K, T> resultMap = ResultMapFactory.sameType().create(map, sortedResults.size());
+		resultMap.putAll(sortedResults);
+		return resultMap;
+	}
+	
+	private static <K, V> List<RunSpan<K>> findConsecutiveRunsParallel(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter, int minGroupSize, int maxGroupSize, ForkJoinPool pool, int rangeSize) {
+		int size = map.size() - 1;
+		if (size <= rangeSize) {
+			return findConsecutiveRuns(map, biPredicate, filter, minGroupSize, maxGroupSize);
+		}
+		Object[] boundaries = rangeBoundaries(map, rangeSize);
+		return pool.invoke(new ConsecutiveRunsTask<>(map, biPredicate, filter, minGroupSize, maxGroupSize, boundaries, rangeSize, size, 0, boundaries.length)).getRuns();
+	}
+	
+	/*
+	 * The first key of each range of rangeSize consecutive pairs of keys
+	 */
+	private static <K, V> Object[] rangeBoundaries(SortedMap<K, V> map, int rangeSize) {
+		int size = map.size() - 1;
+		Object[] boundaries = new Object[(size + rangeSize - 1) / rangeSize];
+		int index = 0;
+		for (K key : map.keySet()) {
+			if (index % rangeSize == 0 && index < size) {
+				boundaries[index / rangeSize] = key;
+			}
+			index++;
+		}
+		return boundaries;
+	}
+	
+	private static <K, V> Map<K, Operation<K, Boolean>> applyPredicateToConsecutiveElements(Map<K, V> map, BiPredicate<V, V> biPredicate, ResultMapFactory resultMapFactory) {
+		Map<K, Operation<K, Boolean>> resultMap = resultMapFactory.create(map, map.size() - 1);
+		forEachConsecutiveElements(map, (key, nextKey, value, nextValue) -> resultMap.put(key, new Operation<K, Boolean>(key, nextKey, biPredicate.test(value, nextValue))));
+		return resultMapFactory.complete(resultMap);
+	}
+	
+	private static <K, V> PairTestResult<K> applyPredicateToConsecutiveElementsAsBitSet(Map<K, V> map, BiPredicate<V, V> biPredicate) {
+		Object[] keys = new Object[map.size()];
+		BitSet results = new BitSet(Math.max(keys.length - 1, 0));
+		int index = 0;
+		V previousValue = null;
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			V value = entry.getValue();
+			if (index > 0 && biPredicate.test(previousValue, value)) {
+				results.set(index - 1);
+			}
+			keys[index++] = entry.getKey();
+			previousValue = value;
+		}
+		return new PairTestResult<K>(keys, results);
+	}
+	
+	private static <K, V> List<KeyPair<K>> findTests(Map<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		List<KeyPair<K>> result = new ArrayList<>();
+		forEachConsecutiveElements(map, (key, nextKey, value, nextValue) -> {
+			if (biPredicate.test(value, nextValue) == filter) {
+				result.add(new KeyPair<K>(key, nextKey));
+			}
+		});
+		return result;
+	}
+	
+	/*
+	 * Keep the groups with the maximum (sign 1) or the minimum (sign -1) size while scanning
+	 */
+	private static <K, V> List<List<KeyPair<K>>> findExtremeConsecutiveTests(Map<K, V> map, BiPredicate<V, V> biPredicate, boolean filter, int sign) {
+		ExtremeGroupCollector<K> extremeGroupCollector = new ExtremeGroupCollector<>(sign);
+		GroupingConsumer<K, V> groupingConsumer = new GroupingConsumer<>(biPredicate, filter, extremeGroupCollector::add);
+		forEachConsecutiveElements(map, groupingConsumer);
+		groupingConsumer.closeGroup();
+		return extremeGroupCollector.getGroups();
 	}
 	
 	private static <K, V> List<List<KeyPair<K>>> findConsecutiveTests(Map<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
-		Map<K, Operation<K, Boolean>> resultMap = applyPredicateToConsecutiveElements(map, biPredicate);
-		return groupConsecutiveTests(resultMap, filter);
+		return findConsecutiveTests(map, biPredicate, filter, 1, Integer.MAX_VALUE);
 	}
 	
 	private static <K, V> List<List<KeyPair<K>>> findConsecutiveTests(Map<K, V> map, BiPredicate<V, V> biPredicate, boolean filter, int minGroupSize, int maxGroupSize) {
-		return findConsecutiveTests(map, biPredicate, filter)
-				.stream()
-				.filter(e -> e.size() >= minGroupSize && e.size() <= maxGroupSize)
-				.collect(Collectors.toList());
-	}
-		
-	private static <K> List<List<KeyPair<K>>> groupConsecutiveTests(Map<K, Operation<K, Boolean>> map, boolean filter) {
-		return  StreamsUtils.group(
-							map.entrySet().stream(),
-							e -> e.getValue().getResult().booleanValue() == filter,
-							true, 
-							e -> ! e.getValue().getResult(),
-							false
-						)
-				.map (
-					s -> s.map(e -> new KeyPair<K>(e.getKey(), e.getValue().getNextKey())).collect(Collectors.toList())
-				)
-				.collect(Collectors.toList());
-	}
-	
-	private static <K> List<List<KeyPair<K>>> findLongestLists(List<List<KeyPair<K>>> list) {
-		return StreamsUtils.filteringAllMax(list.stream(), (e1, e2) -> (e1.size() - e2.size()))
-				.collect(Collectors.toList());
-	}
-	
-	private static <K> List<List<KeyPair<K>>> findShortestLists(List<List<KeyPair<K>>> list) {
-		int sizeShortestList = list.stream().min((e1, e2) -> (e1.size() - e2.size())).orElse(new ArrayList<>()).size();
-		return list.stream()
-				.filter(e -> e.size() == sizeShortestList)
-				.collect(Collectors.toList());
-	}
-	
-	private static <K> double averageListSize(List<List<KeyPair<K>>> list) {
-		return list.stream()
-					.map(e -> (Number) e.size())
-					.mapToDouble(Number::doubleValue)
-					.average()
-					.orElse(0);
-	}
-	
-	private static <K, R extends Comparable<? super R>> List<Operation<K, R>> filterMaxResults(Map<K, Operation<K, R>> map) {
-		return StreamsUtils.filteringAllMax(
-					map.entrySet().stream(), 
-					(e1, e2) -> e1.getValue().getResult().compareTo(e2.getValue().getResult())
-				)
-				.map(e -> e.getValue())
-				.collect(Collectors.toList());
-	}
-	
-	private static <K, R extends Comparable<? super R>> List<Operation<K, R>> filterMinResults(Map<K, Operation<K, R>> map) {
-		R minValue = map.entrySet()
-						.stream()
-						.map(e -> e.getValue().getResult())
-						.min((e1, e2) -> e1.compareTo(e2))
-						.orElse(null);
-						
-		if (minValue == null) {
-			return new ArrayList<Operation<K, R>>();
-		}
-		
-		return map.entrySet()
-				.stream()
-				.filter(e -> (e.getValue().getResult().compareTo(minValue) == 0))
-				.map(e -> e.getValue())
-				.collect(Collectors.toList());
-	}
-	
-	private static <K, R extends Number> double averageResults(Map<K, Operation<K, R>> map) {
-		return map.entrySet()
-				.stream()
-				.map(e -> (Number) e.getValue().getResult())
-				.mapToDouble(Number::doubleValue)
-				.average()
-				.orElse(0);
+		List<List<KeyPair<K>>> groups = new ArrayList<>();
+		GroupingConsumer<K, V> groupingConsumer = new GroupingConsumer<>(biPredicate, filter, group -> {
+			if (group.size() >= minGroupSize && group.size() <= maxGroupSize) {
+				groups.add(group);
+			}
+		});
+		forEachConsecutiveElements(map, groupingConsumer);
+		groupingConsumer.closeGroup();
+		return groups;
+	}
+	
+	private static <K, V> List<RunSpan<K>> findConsecutiveRuns(Map<K, V> map, BiPredicate<V, V> biPredicate, boolean filter, int minGroupSize, int maxGroupSize) {
+		List<RunSpan<K>> runs = new ArrayList<>();
+		RunSpanConsumer<K, V> runSpanConsumer = new RunSpanConsumer<>(biPredicate, filter, (startKey, endKey, length) -> {
+			if (length >= minGroupSize && length <= maxGroupSize) {
+				runs.add(new RunSpan<K>(startKey, endKey, length));
+			}
+		});
+		forEachConsecutiveElements(map, runSpanConsumer);
+		runSpanConsumer.closeRun();
+		return runs;
+	}
+	
+	/*
+	 * Keep the runs with the maximum (sign 1) or the minimum (sign -1) length while scanning
+	 */
+	private static <K, V> List<RunSpan<K>> findExtremeConsecutiveRuns(Map<K, V> map, BiPredicate<V, V> biPredicate, boolean filter, int sign) {
+		List<RunSpan<K>> runs = new ArrayList<>();
+		RunSpanConsumer<K, V> runSpanConsumer = new RunSpanConsumer<>(biPredicate, filter, (startKey, endKey, length) -> {
+			int comparison = runs.isEmpty() ? 1 : Integer.compare(length, runs.get(0).getLength()) * sign;
+			if (comparison > 0) {
+				runs.clear();
+			}
+			if (comparison >= 0) {
+				runs.add(new RunSpan<K>(startKey, endKey, length));
+			}
+		});
+		forEachConsecutiveElements(map, runSpanConsumer);
+		runSpanConsumer.closeRun();
+		return runs;
+	}
+	
+	/*
+	 * Keep the runs with the maximum (sign 1) or the minimum (sign -1) length
+	 */
+	private static <K> List<RunSpan<K>> filterExtremeRuns(List<RunSpan<K>> runs, int sign) {
+		List<RunSpan<K>> extremes = new ArrayList<>();
+		for (RunSpan<K> run : runs) {
+			int comparison = extremes.isEmpty() ? 1 : Integer.compare(run.getLength(), extremes.get(0).getLength()) * sign;
+			if (comparison > 0) {
+				extremes.clear();
+			}
+			if (comparison >= 0) {
+				extremes.add(run);
+			}
+		}
+		return extremes;
+	}
+	
+	private static <K> double averageRunLength(List<RunSpan<K>> runs) {
+		long totalLength = 0;
+		for (RunSpan<K> run : runs) {
+			totalLength += run.getLength();
+		}
+		return runs.isEmpty() ? 0 : (double) totalLength / runs.size();
+	}
+	
+	/*
+	 * Walk the entries of the map once, keeping only the previous key and value, 
+	 * and give each key, its next key and their values to the consumer
+	 */
+	private static <K, V> void forEachConsecutiveElements(Map<K, V> map, PairConsumer<K, V> consumer) {
+		Iterator<Map.Entry<K, V>> iterator = map.entrySet().iterator();
+		if (!iterator.hasNext()) {
+			return;
+		}
+		
+		Map.Entry<K, V> entry = iterator.next();
+		K key = entry.getKey();
+		V value = entry.getValue();
+		while (iterator.hasNext()) {
+			entry = iterator.next();
+			K nextKey = entry.getKey();
+			V nextValue = entry.getValue();
+			consumer.accept(key, nextKey, value, nextValue);
+			key = nextKey;
+			value = nextValue;
+		}
+	}
+	
+	private static <K, V extends Number> void forEachConsecutiveDoubleElements(Map<K, V> map, DoublePairConsumer<K> consumer) {
+		Iterator<Map.Entry<K, V>> iterator = map.entrySet().iterator();
+		if (!iterator.hasNext()) {
+			return;
+		}
+		
+		Map.Entry<K, V> entry = iterator.next();
+		K key = entry.getKey();
+		double value = entry.getValue().doubleValue();
+		while (iterator.hasNext()) {
+			entry = iterator.next();
+			K nextKey = entry.getKey();
+			double nextValue = entry.getValue().doubleValue();
+			consumer.accept(key, nextKey, value, nextValue);
+			key = nextKey;
+			value = nextValue;
+		}
 	}
+	
+	private static <K, V extends Number> void forEachConsecutiveLongElements(Map<K, V> map, LongPairConsumer<K> consumer) {
+		Iterator<Map.Entry<K, V>> iterator = map.entrySet().iterator();
+		if (!iterator.hasNext()) {
+			return;
+		}
 		
+		Map.Entry<K, V> entry = iterator.next();
+		K key = entry.getKey();
+		long value = entry.getValue().longValue();
+		while (iterator.hasNext()) {
+			entry = iterator.next();
+			K nextKey = entry.getKey();
+			long nextValue = entry.getValue().longValue();
+			consumer.accept(key, nextKey, value, nextValue);
+			key = nextKey;
+			value = nextValue;
+		}
+	}
+	
+	private static <K, V> double averageGroupSize(Map<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		GroupSizeConsumer<K, V> groupSizeConsumer = new GroupSizeConsumer<>(biPredicate, filter);
+		forEachConsecutiveElements(map, groupSizeConsumer);
+		return groupSizeConsumer.getAverageGroupSize();
+	}
+	
+	private static <K, V, R> List<Operation<K, R>> filterAllExtremes(Map<K, V> map, BiFunction<V, V, R> biFunction, Comparator<? super R> comparator) {
+		ExtremeCollector<K, R> extremeCollector = new ExtremeCollector<>(comparator);
+		forEachConsecutiveElements(map, (key, nextKey, value, nextValue) -> extremeCollector.add(key, nextKey, biFunction.apply(value, nextValue)));
+		return extremeCollector.getExtremes();
+	}
+	
+	private static <K, V, R> List<Operation<K, R>> filterTopResults(Map<K, V> map, BiFunction<V, V, R> biFunction, int k, Comparator<? super R> comparator) {
+		TopCollector<Operation<K, R>, R> topCollector = new TopCollector<>(k, Operation::getResult, comparator);
+		forEachConsecutiveElements(map, new TopConsumer<>(biFunction, topCollector));
+		return topCollector.getTop();
+	}
+	
+	private static <K, V, R extends Number> double averageResults(Map<K, V> map, BiFunction<V, V, R> biFunction) {
+		CompensatedSum sum = new CompensatedSum();
+		forEachConsecutiveElements(map, (key, nextKey, value, nextValue) -> sum.add(biFunction.apply(value, nextValue).doubleValue()));
+		return sum.getAverage();
+	}
+	
+	private static <K, V extends Number> DoubleOperationSeries<K> applyDoubleOperatorToConsecutiveElements(Map<K, V> map, DoubleBinaryOperator operator) {
+		Object[] keys = new Object[map.size()];
+		double[] results = new double[Math.max(keys.length - 1, 0)];
+		int index = 0;
+		double previousValue = 0;
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			double value = entry.getValue().doubleValue();
+			if (index > 0) {
+				results[index - 1] = operator.applyAsDouble(previousValue, value);
+			}
+			keys[index++] = entry.getKey();
+			previousValue = value;
+		}
+		return new DoubleOperationSeries<K>(keys, results);
+	}
+	
+	private static <K, V extends Number> BooleanOperationSeries<K> applyDoublePredicateToConsecutiveElements(Map<K, V> map, DoubleBiPredicate predicate) {
+		Object[] keys = new Object[map.size()];
+		boolean[] results = new boolean[Math.max(keys.length - 1, 0)];
+		int index = 0;
+		double previousValue = 0;
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			double value = entry.getValue().doubleValue();
+			if (index > 0) {
+				results[index - 1] = predicate.test(previousValue, value);
+			}
+			keys[index++] = entry.getKey();
+			previousValue = value;
+		}
+		return new BooleanOperationSeries<K>(keys, results);
+	}
+	
+	private static <K, V extends Number> double averageDoubleResults(Map<K, V> map, DoubleBinaryOperator operator) {
+		CompensatedSum sum = new CompensatedSum();
+		boolean first = true;
+		double previousValue = 0;
+		for (V v : map.values()) {
+			double value = v.doubleValue();
+			if (!first) {
+				sum.add(operator.applyAsDouble(previousValue, value));
+			}
+			first = false;
+			previousValue = value;
+		}
+		return sum.getAverage();
+	}
+	
+	private static <K, V extends Number> LongOperationSeries<K> applyLongOperatorToConsecutiveElements(Map<K, V> map, LongBinaryOperator operator) {
+		Object[] keys = new Object[map.size()];
+		long[] results = new long[Math.max(keys.length - 1, 0)];
+		int index = 0;
+		long previousValue = 0;
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			long value = entry.getValue().longValue();
+			if (index > 0) {
+				results[index - 1] = operator.applyAsLong(previousValue, value);
+			}
+			keys[index++] = entry.getKey();
+			previousValue = value;
+		}
+		return new LongOperationSeries<K>(keys, results);
+	}
+	
+	private static <K, V extends Number> BooleanOperationSeries<K> applyLongPredicateToConsecutiveElements(Map<K, V> map, LongBiPredicate predicate) {
+		Object[] keys = new Object[map.size()];
+		boolean[] results = new boolean[Math.max(keys.length - 1, 0)];
+		int index = 0;
+		long previousValue = 0;
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			long value = entry.getValue().longValue();
+			if (index > 0) {
+				results[index - 1] = predicate.test(previousValue, value);
+			}
+			keys[index++] = entry.getKey();
+			previousValue = value;
+		}
+		return new BooleanOperationSeries<K>(keys, results);
+	}
+	
+	private static <K, V extends Number> double averageLongResults(Map<K, V> map, LongBinaryOperator operator) {
+		CompensatedSum sum = new CompensatedSum();
+		boolean first = true;
+		long previousValue = 0;
+		for (V v : map.values()) {
+			long value = v.longValue();
+			if (!first) {
+				sum.add(operator.applyAsLong(previousValue, value));
+			}
+			first = false;
+			previousValue = value;
+		}
+		return sum.getAverage();
+	}
+	
+	private static <K, V extends Number, R> Map<K, Operation<K, R>> applyFunctionToWindows(Map<K, V> map, int windowSize, Function<Window<K, V>, R> function) {
+		Map<K, Operation<K, R>> resultMap = ResultMapFactory.sameType().create(map, Math.max(0, map.size() - windowSize + 1));
+		forEachWindow(map, windowSize, window -> resultMap.put(window.getFirstKey(), new Operation<K, R>(window.getFirstKey(), window.getLastKey(), function.apply(window))));
+		return resultMap;
+	}
+	
+	private static <K, V extends Number, R> List<Operation<K, R>> filterAllWindowExtremes(Map<K, V> map, int windowSize, Function<Window<K, V>, R> function, Comparator<? super R> comparator) {
+		ExtremeCollector<K, R> extremeCollector = new ExtremeCollector<>(comparator);
+		forEachWindow(map, windowSize, window -> extremeCollector.add(window.getFirstKey(), window.getLastKey(), function.apply(window)));
+		return extremeCollector.getExtremes();
+	}
+	
+	private static <K, V extends Number, R extends Number> double averageWindowResults(Map<K, V> map, int windowSize, Function<Window<K, V>, R> function) {
+		CompensatedSum sum = new CompensatedSum();
+		forEachWindow(map, windowSize, window -> sum.add(function.apply(window).doubleValue()));
+		return sum.getAverage();
+	}
+	
+	/*
+	 * Slide a window over the entries of the map once and give each full window to the consumer
+	 */
+	private static <K, V extends Number> void forEachWindow(Map<K, V> map, int windowSize, Consumer<Window<K, V>> consumer) {
+		Window<K, V> window = new Window<>(windowSize);
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			window.add(entry.getKey(), entry.getValue());
+			if (window.isFull()) {
+				consumer.accept(window);
+			}
+		}
+	}
+	
 	private static void checkNotSingleEntry(@SuppressWarnings("rawtypes") Map map) {
 		if (map.size() == 1)
 			throw new IllegalArgumentException("Map cannot contain one single entry");
 	}
+	
+	private static void checkWindowSize(@SuppressWarnings("rawtypes") Map map, int windowSize) {
+		if (windowSize < 2)
+			throw new IllegalArgumentException("Window size must be at least 2");
+		if (map.size() > 0 && map.size() < windowSize)
+			throw new IllegalArgumentException("Map cannot contain less entries than the window size");
+	}
+	
+	/*
+	 * Group consecutive keys and their successors for which the values match or do not match the predicate, 
+	 * each group being given to the group action when it is closed
+	 */
+	private static final class GroupingConsumer<K, V> implements PairConsumer<K, V> {
+		
+		private final BiPredicate<V, V> biPredicate;
+		private final boolean filter;
+		private final Consumer<List<KeyPair<K>>> groupAction;
+		private List<KeyPair<K>> currentGroup;
+		
+		private GroupingConsumer(BiPredicate<V, V> biPredicate, boolean filter, Consumer<List<KeyPair<K>>> groupAction) {
+			this.biPredicate = biPredicate;
+			this.filter = filter;
+			this.groupAction = groupAction;
+		}
+
+		@Override
+		public void accept(K key, K nextKey, V value, V nextValue) {
+			if (biPredicate.test(value, nextValue) == filter) {
+				if (currentGroup == null) {
+					currentGroup = new ArrayList<>();
+				}
+				currentGroup.add(new KeyPair<K>(key, nextKey));
+			} else {
+				closeGroup();
+			}
+		}
+		
+		private void closeGroup() {
+			if (currentGroup != null) {
+				groupAction.accept(currentGroup);
+			}
+			currentGroup = null;
+		}
+		
+	}
+	
+	/*
+	 * Give the first key, the last key and the number of pairs of keys of each group of consecutive keys and their successors 
+	 * for which the values match or do not match the predicate, without keeping the pairs of the group
+	 */
+	private static final class RunSpanConsumer<K, V> implements PairConsumer<K, V> {
+		
+		private final BiPredicate<V, V> biPredicate;
+		private final boolean filter;
+		private final RunAction<K> runAction;
+		private K startKey;
+		private K endKey;
+		private int length;
+		
+		private RunSpanConsumer(BiPredicate<V, V> biPredicate, boolean filter, RunAction<K> runAction) {
+			this.biPredicate = biPredicate;
+			this.filter = filter;
+			this.runAction = runAction;
+		}
+		
+		@Override
+		public void accept(K key, K nextKey, V value, V nextValue) {
+			if (biPredicate.test(value, nextValue) == filter) {
+				if (length == 0) {
+					startKey = key;
+				}
+				endKey = nextKey;
+				length++;
+			} else {
+				closeRun();
+			}
+		}
+		
+		private void closeRun() {
+			if (length > 0) {
+				runAction.accept(startKey, endKey, length);
+			}
+			startKey = null;
+			endKey = null;
+			length = 0;
+		}
+		
+	}
+	
+	@FunctionalInterface
+	private interface RunAction<K> {
+		
+		void accept(K startKey, K endKey, int length);
+		
+	}
+	
+	/*
+	 * Keep the groups with the maximum (sign 1) or the minimum (sign -1) size, in the order of the map
+	 */
+	private static final class ExtremeGroupCollector<K> {
+		
+		private final int sign;
+		private final List<List<KeyPair<K>>> groups = new ArrayList<>();
+		
+		private ExtremeGroupCollector(int sign) {
+			this.sign = sign;
+		}
+		
+		private void add(List<KeyPair<K>> group) {
+			int comparison = groups.isEmpty() ? 1 : Integer.compare(group.size(), groups.get(0).size()) * sign;
+			if (comparison > 0) {
+				groups.clear();
+			}
+			if (comparison >= 0) {
+				groups.add(group);
+			}
+		}
+		
+		private List<List<KeyPair<K>>> getGroups() {
+			return groups;
+		}
+		
+	}
+	
+	/*
+	 * Count the groups of consecutive keys and their successors for which the values match or do not match the predicate, 
+	 * and the number of keys and their successors in the groups
+	 */
+	private static final class GroupSizeConsumer<K, V> implements PairConsumer<K, V> {
+		
+		private final BiPredicate<V, V> biPredicate;
+		private final boolean filter;
+		private boolean inGroup;
+		private long groupCount;
+		private long totalGroupSize;
+		
+		private GroupSizeConsumer(BiPredicate<V, V> biPredicate, boolean filter) {
+			this.biPredicate = biPredicate;
+			this.filter = filter;
+		}
+
+		@Override
+		public void accept(K key, K nextKey, V value, V nextValue) {
+			boolean matches = biPredicate.test(value, nextValue) == filter;
+			if (matches) {
+				if (!inGroup) {
+					groupCount++;
+				}
+				totalGroupSize++;
+			}
+			inGroup = matches;
+		}
+		
+		private double getAverageGroupSize() {
+			return groupCount == 0 ? 0 : (double) totalGroupSize / groupCount;
+		}
+		
+	}
+	
+	/*
+	 * Keep the operations with the greatest result according to the comparator, in the order of the map
+	 */
+	private static final class ExtremeCollector<K, R> {
+		
+		private final Comparator<? super R> comparator;
+		private final List<Operation<K, R>> extremes = new ArrayList<>();
+		private R extreme;
+		
+		private ExtremeCollector(Comparator<? super R> comparator) {
+			this.comparator = comparator;
+		}
+
+		private void add(K key, K nextKey, R result) {
+			int comparison = extremes.isEmpty() ? 1 : comparator.compare(result, extreme);
+			if (comparison > 0) {
+				extremes.clear();
+				extreme = result;
+			}
+			if (comparison >= 0) {
+				extremes.add(new Operation<K, R>(key, nextKey, result));
+			}
+		}
+		
+		private List<Operation<K, R>> getExtremes() {
+			return extremes;
+		}
+		
+	}
+	
+	/*
+	 * Offer the result of each pair to a top collector, the position of a pair being its index in the map, 
+	 * the operation being only created when it is kept
+	 */
+	private static final class TopConsumer<K, V, R> implements PairConsumer<K, V> {
+		
+		private final BiFunction<V, V, R> biFunction;
+		private final TopCollector<Operation<K, R>, R> topCollector;
+		private long position;
+		
+		private TopConsumer(BiFunction<V, V, R> biFunction, TopCollector<Operation<K, R>, R> topCollector) {
+			this.biFunction = biFunction;
+			this.topCollector = topCollector;
+		}
+		
+		@Override
+		public void accept(K key, K nextKey, V value, V nextValue) {
+			R result = biFunction.apply(value, nextValue);
+			long currentPosition = position++;
+			if (topCollector.accepts(result, currentPosition)) {
+				topCollector.add(new Operation<K, R>(key, nextKey, result), currentPosition);
+			}
+		}
+		
+	}
 
 }
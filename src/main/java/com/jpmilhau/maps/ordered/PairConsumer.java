@@ -0,0 +1,44 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Consumer of a key, its next key and their values in an ordered map.
+ * The components are given directly so that no object is created for each pair.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the value
+ */
+@FunctionalInterface
+public interface PairConsumer<K, V> {
+	
+	/**
+	 * Consume a key, its next key and their values
+	 * @param key the key
+	 * @param nextKey the next key
+	 * @param value the value of the key
+	 * @param nextValue the value of the next key
+	 */
+	void accept(K key, K nextKey, V value, V nextValue);
+	
+}
@@ -0,0 +1,179 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Class to store the results of a predicate applied to the values of each key and its next key in an ordered map.
+ * The keys are stored in their order and the results in a bit set, the result of a pair being the bit at the index of its key.
+ * The keys are referenced from an array, which takes 4 or 8 bytes per key depending on compressed references, 
+ * so a result of 10 million keys takes about 40 to 80 MB plus 1.25 MB for the bits: 
+ * much less than the map of operations returned by {@link OrderedMapUtils#test}, but not the size of a bit set alone.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of a key
+ */
+public final class PairTestResult<K> extends AbstractOperationSeries<K> {
+	
+	private final BitSet results;
+	
+	PairTestResult(Object[] keys, BitSet results) {
+		super(keys);
+		this.results = results;
+	}
+	
+	/**
+	 * Get the result of a test
+	 * @param index the index of the test
+	 * @return the result of the test
+	 */
+	public boolean getResult(int index) {
+		checkIndex(index);
+		return results.get(index);
+	}
+	
+	/**
+	 * Get a test
+	 * @param index the index of the test
+	 * @return the test with its key, its next key and its result
+	 */
+	public Operation<K, Boolean> getOperation(int index) {
+		return new Operation<K, Boolean>(getKey(index), getNextKey(index), getResult(index));
+	}
+	
+	/**
+	 * Count the tests with a result
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return the number of tests with the result
+	 */
+	public int count(boolean filter) {
+		int count = results.cardinality();
+		return filter ? count : size() - count;
+	}
+	
+	/**
+	 * Get the key and the next key of the tests with a result, in the order of the keys.
+	 * The key pairs are created while iterating.
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return the key pairs of the tests with the result
+	 */
+	public Iterable<KeyPair<K>> keyPairs(boolean filter) {
+		return () -> new KeyPairIterator(filter);
+	}
+	
+	/**
+	 * Filter the key and the next key of the tests with a result
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return a list of the key pairs of the tests with the result
+	 */
+	public List<KeyPair<K>> filterTests(boolean filter) {
+		List<KeyPair<K>> keyPairs = new ArrayList<>(count(filter));
+		for (KeyPair<K> keyPair : keyPairs(filter)) {
+			keyPairs.add(keyPair);
+		}
+		return keyPairs;
+	}
+	
+	/**
+	 * Find all groups of consecutive tests with a result
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group
+	 */
+	public List<RunSpan<K>> filterGroupedConsecutiveRuns(boolean filter) {
+		return filterGroupedConsecutiveRuns(filter, 1, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Find all groups of consecutive tests with a result.
+	 * The groups must have a minimum and a maximum size.
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param minGroupSize minimum size of the group
+	 * @param maxGroupSize maximum size of the group
+	 * @return a list of the first key, the last key and the number of pairs of keys of each group matching min and max size
+	 */
+	public List<RunSpan<K>> filterGroupedConsecutiveRuns(boolean filter, int minGroupSize, int maxGroupSize) {
+		List<RunSpan<K>> runs = new ArrayList<>();
+		int size = size();
+		int start = nextResult(0, filter);
+		while (start < size) {
+			int end = Math.min(nextResult(start, !filter), size);
+			int length = end - start;
+			if (length >= minGroupSize && length <= maxGroupSize) {
+				runs.add(new RunSpan<K>(getKey(start), getNextKey(end - 1), length));
+			}
+			start = end < size ? nextResult(end, filter) : size;
+		}
+		return runs;
+	}
+	
+	/**
+	 * Get a copy of the results, the bit at the index of a test being its result
+	 * @return a copy of the results
+	 */
+	public BitSet toBitSet() {
+		return (BitSet) results.clone();
+	}
+	
+	@Override
+	public String toString() {
+		return "PairTestResult [size=" + size() + ", count=" + results.cardinality() + "]";
+	}
+	
+	/*
+	 * Index of the next test with the result from an index, the size of the series if there is none
+	 */
+	private int nextResult(int fromIndex, boolean filter) {
+		int index = filter ? results.nextSetBit(fromIndex) : results.nextClearBit(fromIndex);
+		return index < 0 ? size() : Math.min(index, size());
+	}
+	
+	private final class KeyPairIterator implements Iterator<KeyPair<K>> {
+		
+		private final boolean filter;
+		private int next;
+		
+		private KeyPairIterator(boolean filter) {
+			this.filter = filter;
+			this.next = nextResult(0, filter);
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return next < size();
+		}
+		
+		@Override
+		public KeyPair<K> next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			KeyPair<K> keyPair = getKeyPair(next);
+			next = nextResult(next + 1, filter);
+			return keyPair;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,377 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache of the results of operations on ordered maps, so that a query repeated on a map which has not changed is not computed again.
+ * A result is cached by the identity of the map, the key of the operation and the version of the map given by the caller, 
+ * for example a counter incremented at each update of the map: a query with another version computes the result again and replaces the cached one.
+ * The maps are weakly referenced, so the results of a map are dropped when the map is garbage collected.
+ * The least recently used results are evicted when the total weight of the results exceeds the maximum weight, 
+ * the weight of a map, a collection or a series being its size and the weight of another result being 1.
+ * The cache is thread safe, a result being computed without lock so that two threads missing the same result may both compute it.
+ * A cached result is the same instance for all the callers, so it must not be modified.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public final class ResultCache {
+	
+	private final long maximumWeight;
+	private final ToLongFunction<Object> weigher;
+	private final ReferenceQueue<Map<?, ?>> collectedMaps = new ReferenceQueue<>();
+	// in access order, the eldest entry being the least recently used
+	private final LinkedHashMap<EntryKey, CachedResult> results = new LinkedHashMap<>(16, 0.75f, true);
+	private long weight;
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+	
+	private ResultCache(long maximumWeight, ToLongFunction<Object> weigher) {
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+	}
+	
+	/**
+	 * Create a cache weighing the results by their size
+	 * @param maximumWeight the maximum total weight of the cached results
+	 * @return an empty cache
+	 */
+	public static ResultCache create(long maximumWeight) {
+		return create(maximumWeight, ResultCache::defaultWeight);
+	}
+	
+	/**
+	 * Create a cache weighing the results with a function
+	 * @param maximumWeight the maximum total weight of the cached results
+	 * @param weigher the function giving the weight of a result, at least 1
+	 * @return an empty cache
+	 */
+	public static ResultCache create(long maximumWeight, ToLongFunction<Object> weigher) {
+		Objects.requireNonNull(weigher);
+		if (maximumWeight < 1)
+			throw new IllegalArgumentException("Maximum weight must be positive");
+		return new ResultCache(maximumWeight, weigher);
+	}
+	
+	/**
+	 * Get the result of an operation on a version of a map, computing and caching it if it is not cached, for example 
+	 * {@code cache.get(map, version, MAX_DELTA, () -> OrderedMapUtils.filterAllMax(map, (v1, v2) -> v2 - v1))}.
+	 * The result is shared with the other callers getting it from the cache and must not be modified.
+	 * @param map the map given to the operation
+	 * @param version the version of the map, changed by the caller when the map is updated
+	 * @param key the key of the operation, which must give the same result on the same version of a map
+	 * @param operation the operation computing the result
+	 * @param <R> the type of the result
+	 * @return the cached result if it has been computed on the same version of the map, the computed result otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> R get(Map<?, ?> map, long version, CacheKey<R> key, Supplier<? extends R> operation) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(key);
+		Objects.requireNonNull(operation);
+		
+		EntryKey lookupKey = new EntryKey(map, key, null);
+		synchronized (this) {
+			expungeCollectedMaps();
+			CachedResult cachedResult = results.get(lookupKey);
+			if (cachedResult != null && cachedResult.version == version) {
+				hitCount++;
+				// the results of a key are all of its type
+				return (R) cachedResult.result;
+			}
+			missCount++;
+		}
+		
+		R result = Objects.requireNonNull(operation.get());
+		long resultWeight = weigher.applyAsLong(result);
+		if (resultWeight < 1)
+			throw new IllegalArgumentException("Weight must be positive");
+		synchronized (this) {
+			CachedResult cachedResult = results.get(lookupKey);
+			// a result of a newer version cached by another thread is kept
+			if (cachedResult != null && cachedResult.version > version)
+				return result;
+			if (cachedResult != null)
+				remove(lookupKey);
+			if (resultWeight <= maximumWeight) {
+				results.put(new EntryKey(map, key, collectedMaps), new CachedResult(version, result, resultWeight));
+				weight += resultWeight;
+				evict();
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Remove the result of an operation on a map
+	 * @param map the map given to the operation
+	 * @param key the key of the operation
+	 */
+	public synchronized void invalidate(Map<?, ?> map, CacheKey<?> key) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(key);
+		
+		expungeCollectedMaps();
+		remove(new EntryKey(map, key, null));
+	}
+	
+	/**
+	 * Remove the results of all the operations on a map
+	 * @param map the map given to the operations
+	 */
+	public synchronized void invalidate(Map<?, ?> map) {
+		Objects.requireNonNull(map);
+		
+		expungeCollectedMaps();
+		removeIf(key -> key.get() == map);
+	}
+	
+	/**
+	 * Remove all the results
+	 */
+	public synchronized void invalidateAll() {
+		results.clear();
+		weight = 0;
+		while (collectedMaps.poll() != null) {
+			// the results of the collected maps are already removed
+		}
+	}
+	
+	/**
+	 * @return the statistics of the cache since its creation
+	 */
+	public synchronized Statistics getStatistics() {
+		expungeCollectedMaps();
+		return new Statistics(hitCount, missCount, evictionCount, results.size(), weight);
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return "ResultCache [size=" + results.size() + ", weight=" + weight + ", maximumWeight=" + maximumWeight + "]";
+	}
+	
+	private static long defaultWeight(Object result) {
+		if (result instanceof Map)
+			return Math.max(((Map<?, ?>) result).size(), 1);
+		if (result instanceof Collection)
+			return Math.max(((Collection<?>) result).size(), 1);
+		if (result instanceof AbstractOperationSeries)
+			return Math.max(((AbstractOperationSeries<?>) result).size(), 1);
+		return 1;
+	}
+	
+	private void evict() {
+		Iterator<CachedResult> iterator = results.values().iterator();
+		while (weight > maximumWeight && iterator.hasNext()) {
+			weight -= iterator.next().weight;
+			iterator.remove();
+			evictionCount++;
+		}
+	}
+	
+	private void remove(EntryKey key) {
+		CachedResult cachedResult = results.remove(key);
+		if (cachedResult != null) {
+			weight -= cachedResult.weight;
+		}
+	}
+	
+	private void removeIf(Predicate<EntryKey> predicate) {
+		Iterator<Map.Entry<EntryKey, CachedResult>> iterator = results.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<EntryKey, CachedResult> entry = iterator.next();
+			if (predicate.test(entry.getKey())) {
+				weight -= entry.getValue().weight;
+				iterator.remove();
+			}
+		}
+	}
+	
+	/*
+	 * Remove the results of the maps which have been garbage collected
+	 */
+	private void expungeCollectedMaps() {
+		if (collectedMaps.poll() == null)
+			return;
+		while (collectedMaps.poll() != null) {
+			// all the collected maps are removed at once
+		}
+		removeIf(key -> key.get() == null);
+	}
+	
+	/*
+	 * Weak reference to a map compared by identity with the key of an operation
+	 */
+	private static final class EntryKey extends WeakReference<Map<?, ?>> {
+		
+		private final CacheKey<?> key;
+		private final int hash;
+		
+		private EntryKey(Map<?, ?> map, CacheKey<?> key, ReferenceQueue<Map<?, ?>> queue) {
+			super(map, queue);
+			this.key = key;
+			this.hash = 31 * System.identityHashCode(map) + System.identityHashCode(key);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof EntryKey))
+				return false;
+			EntryKey other = (EntryKey) obj;
+			Map<?, ?> map = get();
+			return map != null && map == other.get() && key == other.key;
+		}
+		
+	}
+	
+	private static final class CachedResult {
+		
+		private final long version;
+		private final Object result;
+		private final long weight;
+		
+		private CachedResult(long version, Object result, long weight) {
+			this.version = version;
+			this.result = result;
+			this.weight = weight;
+		}
+		
+	}
+	
+	/**
+	 * Key of an operation whose results are cached, giving the type of its results.
+	 * Keys are compared by identity, so a key is created once, for example as a constant, and two keys never share results.
+	 * 
+	 * @param <R> the type of the results of the operation
+	 */
+	public static final class CacheKey<R> {
+		
+		private final String name;
+		
+		private CacheKey(String name) {
+			this.name = name;
+		}
+		
+		/**
+		 * Create the key of an operation
+		 * @param name the name of the operation, only used to describe the key
+		 * @param <R> the type of the results of the operation
+		 * @return a new key
+		 */
+		public static <R> CacheKey<R> of(String name) {
+			return new CacheKey<>(Objects.requireNonNull(name));
+		}
+		
+		@Override
+		public String toString() {
+			return "CacheKey [name=" + name + "]";
+		}
+		
+	}
+	
+	/**
+	 * Statistics of a cache
+	 */
+	public static final class Statistics {
+		
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+		private final int size;
+		private final long weight;
+		
+		private Statistics(long hitCount, long missCount, long evictionCount, int size, long weight) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.size = size;
+			this.weight = weight;
+		}
+		
+		/**
+		 * @return the number of results found in the cache
+		 */
+		public long getHitCount() {
+			return hitCount;
+		}
+		
+		/**
+		 * @return the number of results computed because they were not in the cache
+		 */
+		public long getMissCount() {
+			return missCount;
+		}
+		
+		/**
+		 * @return the ratio of results found in the cache, 0 if there were no queries
+		 */
+		public double getHitRate() {
+			long queryCount = hitCount + missCount;
+			return queryCount == 0 ? 0 : (double) hitCount / queryCount;
+		}
+		
+		/**
+		 * @return the number of results removed because the maximum weight was exceeded
+		 */
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+		
+		/**
+		 * @return the number of cached results
+		 */
+		public int getSize() {
+			return size;
+		}
+		
+		/**
+		 * @return the total weight of the cached results
+		 */
+		public long getWeight() {
+			return weight;
+		}
+
+		@Override
+		public String toString() {
+			return "Statistics [hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount + ", size=" + size + ", weight=" + weight + "]";
+		}
+		
+	}
+	
+}
@@ -0,0 +1,116 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Built-in factories of result maps
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+enum ResultMapFactories implements ResultMapFactory {
+	
+	SAME_TYPE {
+		@Override
+		public <K, T> Map<K, T> create(Map<K, ?> map, int expectedSize) {
+			Class<?> mapClass = map.getClass();
+			if (mapClass == LinkedHashMap.class)
+				return newLinkedHashMap(expectedSize);
+			if (mapClass == TreeMap.class)
+				return new TreeMap<>(comparator(map));
+			if (mapClass == ConcurrentSkipListMap.class)
+				return new ConcurrentSkipListMap<>(comparator(map));
+			
+			Constructor<?> constructor = NO_ARGUMENT_CONSTRUCTORS.get(mapClass);
+			if (constructor != null) {
+				try {
+					@SuppressWarnings("unchecked")
+					Map<K, T> resultMap = (Map<K, T>) constructor.newInstance();
+					return resultMap;
+				} catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+					throw new IllegalArgumentException(e);
+				}
+			}
+			// views such as unmodifiable maps or sub maps
+			return map instanceof SortedMap ? new TreeMap<>(comparator(map)) : newLinkedHashMap(expectedSize);
+		}
+	},
+	
+	LINKED_HASH_MAP {
+		@Override
+		public <K, T> Map<K, T> create(Map<K, ?> map, int expectedSize) {
+			return newLinkedHashMap(expectedSize);
+		}
+	},
+	
+	TREE_MAP {
+		@Override
+		public <K, T> Map<K, T> create(Map<K, ?> map, int expectedSize) {
+			return new TreeMap<>(comparator(map));
+		}
+	},
+	
+	SORTED_ARRAY_MAP {
+		@Override
+		public <K, T> Map<K, T> create(Map<K, ?> map, int expectedSize) {
+			if (!(map instanceof SortedMap))
+				throw new IllegalArgumentException("Map must be a sorted map");
+			return new SortedArrayMap<>(comparator(map), expectedSize);
+		}
+		
+		@Override
+		public <K, T> Map<K, T> complete(Map<K, T> resultMap) {
+			((SortedArrayMap<K, T>) resultMap).freeze();
+			return resultMap;
+		}
+	};
+	
+	// the public no-argument constructor of each map class, null if there is none
+	private static final ClassValue<Constructor<?>> NO_ARGUMENT_CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+		@Override
+		protected Constructor<?> computeValue(Class<?> type) {
+			try {
+				return type.getConstructor();
+			} catch (NoSuchMethodException | SecurityException e) {
+				return null;
+			}
+		}
+	};
+	
+	private static <K, T> Map<K, T> newLinkedHashMap(int expectedSize) {
+		return new LinkedHashMap<>((int) Math.min(Integer.MAX_VALUE, (long) (expectedSize / 0.75f) + 1));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <K> Comparator<? super K> comparator(Map<K, ?> map) {
+		return map instanceof SortedMap ? ((SortedMap<K, ?>) map).comparator() : null;
+	}
+	
+}
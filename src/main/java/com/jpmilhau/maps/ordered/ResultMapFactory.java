@@ -0,0 +1,90 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+
+/**
+ * Factory of the maps receiving the results of the functions and predicates applied to consecutive values of an ordered map.
+ * The results are put in the order of the keys of the ordered map.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public interface ResultMapFactory {
+	
+	/**
+	 * Create an empty map receiving the results
+	 * @param map the ordered map whose consecutive values are processed
+	 * @param expectedSize the number of results which will be put in the map
+	 * @param <K> the key type of the map
+	 * @param <T> the type of the results
+	 * @return an empty map keeping the order of the keys put
+	 */
+	<K, T> Map<K, T> create(Map<K, ?> map, int expectedSize);
+	
+	/**
+	 * Complete a map once all the results are put, by default the map itself
+	 * @param resultMap the map created by {@link #create(Map, int)} and containing all the results
+	 * @param <K> the key type of the map
+	 * @param <T> the type of the results
+	 * @return the map returned to the caller
+	 */
+	default <K, T> Map<K, T> complete(Map<K, T> resultMap) {
+		return resultMap;
+	}
+	
+	/**
+	 * Factory of a map of the type of the ordered map: a pre-sized {@link java.util.LinkedHashMap} for a LinkedHashMap, 
+	 * a {@link java.util.TreeMap} with the same comparator for a TreeMap, 
+	 * an instance of the class created by its no-argument constructor for other types, 
+	 * or else a LinkedHashMap or a TreeMap with the same comparator for a sorted map
+	 * @return the factory used by default
+	 */
+	static ResultMapFactory sameType() {
+		return ResultMapFactories.SAME_TYPE;
+	}
+	
+	/**
+	 * @return the factory of a {@link java.util.LinkedHashMap} pre-sized for the number of results
+	 */
+	static ResultMapFactory linkedHashMap() {
+		return ResultMapFactories.LINKED_HASH_MAP;
+	}
+	
+	/**
+	 * @return the factory of a {@link java.util.TreeMap} with the comparator of the ordered map when it is a sorted map
+	 */
+	static ResultMapFactory treeMap() {
+		return ResultMapFactories.TREE_MAP;
+	}
+	
+	/**
+	 * Factory of a read-only sorted map backed by arrays, with the comparator of the ordered map.
+	 * It is the most compact and the fastest to build, and it is searched by binary search. 
+	 * The ordered map must be a sorted map.
+	 * @return the factory of a read-only sorted map backed by arrays
+	 */
+	static ResultMapFactory sortedArrayMap() {
+		return ResultMapFactories.SORTED_ARRAY_MAP;
+	}
+	
+}
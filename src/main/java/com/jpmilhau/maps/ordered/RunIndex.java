@@ -0,0 +1,240 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiPredicate;
+
+/**
+ * Index of the groups of keys and their successors in an ordered map for which the values match or do not match consecutively a predicate.
+ * The groups are stored as runs of pairs of keys with a histogram of their lengths, 
+ * so that the longest, the shortest and the average run and the runs within a range of lengths 
+ * are found without building a list of pairs of keys for each group.
+ * The index copies the keys of the map, so it pays off when the runs are queried several times, 
+ * the methods of {@link OrderedMapUtils} answering a single query with one scan of the map.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the key type of the map
+ */
+public final class RunIndex<K> {
+	
+	private final Object[] keys;
+	private final int[] runStarts;
+	private final int[] runLengths;
+	private final long totalLength;
+	private final NavigableMap<Integer, int[]> runsByLength;
+	
+	private RunIndex(Object[] keys, int[] runStarts, int[] runLengths) {
+		this.keys = keys;
+		this.runStarts = runStarts;
+		this.runLengths = runLengths;
+		
+		long totalLength = 0;
+		NavigableMap<Integer, int[]> runCounts = new TreeMap<>();
+		for (int runLength : runLengths) {
+			totalLength += runLength;
+			runCounts.computeIfAbsent(runLength, l -> new int[1])[0]++;
+		}
+		this.totalLength = totalLength;
+		
+		this.runsByLength = new TreeMap<>();
+		for (Map.Entry<Integer, int[]> runCount : runCounts.entrySet()) {
+			runsByLength.put(runCount.getKey(), new int[runCount.getValue()[0]]);
+		}
+		for (int run = runLengths.length - 1; run >= 0; run--) {
+			runsByLength.get(runLengths[run])[--runCounts.get(runLengths[run])[0]] = run;
+		}
+	}
+	
+	/**
+	 * Build the index of the groups of keys and their successors in an ordered map for which the values match or do not match consecutively a predicate
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the index
+	 */
+	public static <K, V> RunIndex<K> of(LinkedHashMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		return build(map, biPredicate, filter);
+	}
+	
+	/**
+	 * Build the index of the groups of keys and their successors in an ordered map for which the values match or do not match consecutively a predicate
+	 * @param map the ordered map
+	 * @param biPredicate the predicate to apply to consecutive values in the ordered map
+	 * @param filter whether the result must be positive (true) or negative (false)
+	 * @param <K> the key type of the map
+	 * @param <V> the value type of the map
+	 * @return the index
+	 */
+	public static <K, V> RunIndex<K> of(SortedMap<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		return build(map, biPredicate, filter);
+	}
+	
+	/**
+	 * Get the number of runs
+	 * @return the number of runs
+	 */
+	public int getRunCount() {
+		return runLengths.length;
+	}
+	
+	/**
+	 * Get all runs
+	 * @return the runs in the order of the map
+	 */
+	public List<RunSpan<K>> getRuns() {
+		List<RunSpan<K>> runs = new ArrayList<>(runLengths.length);
+		for (int run = 0; run < runLengths.length; run++) {
+			runs.add(getRun(run));
+		}
+		return runs;
+	}
+	
+	/**
+	 * Get the runs with a minimum and a maximum length
+	 * @param minLength minimum length of the runs
+	 * @param maxLength maximum length of the runs
+	 * @return the runs matching min and max length in the order of the map
+	 */
+	public List<RunSpan<K>> getRuns(int minLength, int maxLength) {
+		if (minLength > maxLength) {
+			return new ArrayList<>();
+		}
+		
+		// the runs of each length are in the order of the map, so they are merged instead of sorted
+		Collection<int[]> runsOfLengths = runsByLength.subMap(minLength, true, maxLength, true).values();
+		PriorityQueue<int[]> cursors = new PriorityQueue<>(Math.max(runsOfLengths.size(), 1), Comparator.comparingInt(cursor -> cursor[0]));
+		int runCount = 0;
+		for (int[] runs : runsOfLengths) {
+			// the next run of the length and the index of the array of runs of the length
+			cursors.add(new int[] {runs[0], cursors.size(), 0});
+			runCount += runs.length;
+		}
+		int[][] runArrays = runsOfLengths.toArray(new int[0][]);
+		
+		List<RunSpan<K>> result = new ArrayList<>(runCount);
+		while (!cursors.isEmpty()) {
+			int[] cursor = cursors.poll();
+			result.add(getRun(cursor[0]));
+			int[] runs = runArrays[cursor[1]];
+			if (++cursor[2] < runs.length) {
+				cursor[0] = runs[cursor[2]];
+				cursors.add(cursor);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Get all runs with maximum length
+	 * @return the longest runs in the order of the map
+	 */
+	public List<RunSpan<K>> getLongestRuns() {
+		return runsByLength.isEmpty() ? new ArrayList<>() : getRuns(runsByLength.lastEntry().getValue());
+	}
+	
+	/**
+	 * Get all runs with minimum length
+	 * @return the shortest runs in the order of the map
+	 */
+	public List<RunSpan<K>> getShortestRuns() {
+		return runsByLength.isEmpty() ? new ArrayList<>() : getRuns(runsByLength.firstEntry().getValue());
+	}
+	
+	/**
+	 * Get the average length of the runs
+	 * @return the average length of the runs, or 0 if there is no run
+	 */
+	public double getAverageRunLength() {
+		return runLengths.length == 0 ? 0 : (double) totalLength / runLengths.length;
+	}
+	
+	/**
+	 * Get the histogram of the lengths of the runs
+	 * @return an unmodifiable sorted map with the length of the runs as key and the number of runs of this length as value
+	 */
+	public SortedMap<Integer, Integer> getHistogram() {
+		SortedMap<Integer, Integer> histogram = new TreeMap<>();
+		for (Map.Entry<Integer, int[]> runs : runsByLength.entrySet()) {
+			histogram.put(runs.getKey(), runs.getValue().length);
+		}
+		return Collections.unmodifiableSortedMap(histogram);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private RunSpan<K> getRun(int run) {
+		return new RunSpan<K>((K) keys[runStarts[run]], (K) keys[runStarts[run] + runLengths[run]], runLengths[run]);
+	}
+	
+	private List<RunSpan<K>> getRuns(int[] runs) {
+		List<RunSpan<K>> result = new ArrayList<>(runs.length);
+		for (int run : runs) {
+			result.add(getRun(run));
+		}
+		return result;
+	}
+	
+	private static <K, V> RunIndex<K> build(Map<K, V> map, BiPredicate<V, V> biPredicate, boolean filter) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(biPredicate);
+		if (map.size() == 1)
+			throw new IllegalArgumentException("Map cannot contain one single entry");
+		
+		Object[] keys = new Object[map.size()];
+		Runs runs = new Runs();
+		int runStart = -1;
+		int index = 0;
+		V previousValue = null;
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			if (index > 0) {
+				if (biPredicate.test(previousValue, entry.getValue()) == filter) {
+					if (runStart < 0) {
+						runStart = index - 1;
+					}
+				} else if (runStart >= 0) {
+					runs.add(runStart, index - 1 - runStart);
+					runStart = -1;
+				}
+			}
+			keys[index++] = entry.getKey();
+			previousValue = entry.getValue();
+		}
+		if (runStart >= 0) {
+			runs.add(runStart, index - 1 - runStart);
+		}
+		return new RunIndex<>(keys, runs.getStarts(), runs.getLengths());
+	}
+	
+}
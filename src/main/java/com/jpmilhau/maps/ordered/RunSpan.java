@@ -0,0 +1,93 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Class to store a group of consecutive keys in an ordered map by its first key, its last key and its number of pairs of keys
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of the key
+ */
+public final class RunSpan<K> {
+	
+	private final K startKey;
+	private final K endKey;
+	private final int length;
+	
+	public RunSpan(K startKey, K endKey, int length) {
+		this.startKey = startKey;
+		this.endKey = endKey;
+		this.length = length;
+	}
+
+	public K getStartKey() {
+		return startKey;
+	}
+
+	public K getEndKey() {
+		return endKey;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((startKey == null) ? 0 : startKey.hashCode());
+		result = prime * result + ((endKey == null) ? 0 : endKey.hashCode());
+		result = prime * result + length;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		RunSpan<?> other = (RunSpan<?>) obj;
+		if (startKey == null) {
+			if (other.startKey != null)
+				return false;
+		} else if (!startKey.equals(other.startKey))
+			return false;
+		if (endKey == null) {
+			if (other.endKey != null)
+				return false;
+		} else if (!endKey.equals(other.endKey))
+			return false;
+		if (length != other.length)
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "RunSpan [startKey=" + startKey + ", endKey=" + endKey + ", length=" + length + "]";
+	}
+	
+}
@@ -0,0 +1,67 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * Growable list of the start index and the length of groups of consecutive pairs of keys
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+final class Runs {
+	
+	private int[] starts = new int[16];
+	private int[] lengths = new int[16];
+	private int size;
+	
+	void add(int start, int length) {
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+			lengths = Arrays.copyOf(lengths, size * 2);
+		}
+		starts[size] = start;
+		lengths[size] = length;
+		size++;
+	}
+	
+	int size() {
+		return size;
+	}
+	
+	int getStart(int run) {
+		return starts[run];
+	}
+	
+	int getLength(int run) {
+		return lengths[run];
+	}
+	
+	int[] getStarts() {
+		return Arrays.copyOf(starts, size);
+	}
+	
+	int[] getLengths() {
+		return Arrays.copyOf(lengths, size);
+	}
+	
+}
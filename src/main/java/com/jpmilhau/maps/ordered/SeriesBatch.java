@@ -0,0 +1,220 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Batch of independent sorted maps, identified by a series id, on which the same operation is run concurrently.
+ * The series are submitted to the executor from the largest to the smallest so that the longest tasks do not finish last, 
+ * and the results are given in the order of the series ids.
+ * Any executor can be used, for example a fork/join pool (the common pool by default) or an executor of virtual threads.
+ * The maps must not be modified during a call.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <S> the type of the series id
+ * @param <K> the key type of the maps
+ * @param <V> the value type of the maps
+ */
+public final class SeriesBatch<S, K, V> {
+	
+	private final Object[] ids;
+	private final Object[] series;
+	private final Integer[] largestFirst;
+	private final Executor executor;
+	
+	private SeriesBatch(Object[] ids, Object[] series, Integer[] largestFirst, Executor executor) {
+		this.ids = ids;
+		this.series = series;
+		this.largestFirst = largestFirst;
+		this.executor = executor;
+	}
+	
+	static <S, K, V> SeriesBatch<S, K, V> of(Map<S, ? extends SortedMap<K, V>> seriesById) {
+		Object[] ids = new Object[seriesById.size()];
+		Object[] series = new Object[seriesById.size()];
+		int index = 0;
+		for (Map.Entry<S, ? extends SortedMap<K, V>> entry : seriesById.entrySet()) {
+			ids[index] = entry.getKey();
+			series[index++] = Objects.requireNonNull(entry.getValue());
+		}
+		
+		int[] sizes = new int[series.length];
+		Integer[] largestFirst = new Integer[series.length];
+		for (int i = 0; i < series.length; i++) {
+			sizes[i] = ((SortedMap<?, ?>) series[i]).size();
+			largestFirst[i] = i;
+		}
+		Arrays.sort(largestFirst, (i1, i2) -> Integer.compare(sizes[i2], sizes[i1]));
+		return new SeriesBatch<>(ids, series, largestFirst, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Get a batch of the same series running the operations with an executor
+	 * @param executor the executor running the operation of each series
+	 * @return a batch of the same series using the executor
+	 */
+	public SeriesBatch<S, K, V> withExecutor(Executor executor) {
+		Objects.requireNonNull(executor);
+		return new SeriesBatch<>(ids, series, largestFirst, executor);
+	}
+	
+	/**
+	 * Get the number of series in the batch
+	 * @return the number of series
+	 */
+	public int size() {
+		return series.length;
+	}
+	
+	/**
+	 * Run an operation on each series, for example 
+	 * {@code batch.apply(map -> OrderedMapUtils.average(map, (v1, v2) -> v2 - v1))}
+	 * @param operation the operation to run on a series
+	 * @param <R> the type of the result of the operation
+	 * @return a map with the series ids in their order and the result of the operation on each series
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> LinkedHashMap<S, R> apply(Function<? super SortedMap<K, V>, ? extends R> operation) {
+		Objects.requireNonNull(operation);
+		
+		Object[] results = new Object[series.length];
+		forEachSeries(index -> results[index] = operation.apply(getSeries(index)));
+		
+		LinkedHashMap<S, R> resultMap = new LinkedHashMap<>(series.length * 4 / 3 + 1);
+		for (int i = 0; i < series.length; i++) {
+			resultMap.put((S) ids[i], (R) results[i]);
+		}
+		return resultMap;
+	}
+	
+	/**
+	 * Filter the k greatest results after a function be applied to consecutive values in all the series.
+	 * Only the k greatest operations of each series are merged into the k greatest operations of the batch, 
+	 * so that the results of the series are not all kept.
+	 * @param biFunction the function to apply to consecutive values in the series
+	 * @param k the maximum number of operations to return
+	 * @param comparator the comparator of the results
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a list of at most k series ids and operations sorted from the greatest to the smallest result, 
+	 * equal results being in the order of the series and of their keys
+	 */
+	public <R> List<Map.Entry<S, Operation<K, R>>> topK(BiFunction<V, V, R> biFunction, int k, Comparator<? super R> comparator) {
+		Objects.requireNonNull(biFunction);
+		Objects.requireNonNull(comparator);
+		if (k < 0)
+			throw new IllegalArgumentException("k cannot be negative");
+		
+		return filterTopResults(biFunction, k, comparator);
+	}
+	
+	/**
+	 * Filter the k smallest results after a function be applied to consecutive values in all the series.
+	 * Only the k smallest operations of each series are merged into the k smallest operations of the batch, 
+	 * so that the results of the series are not all kept.
+	 * @param biFunction the function to apply to consecutive values in the series
+	 * @param k the maximum number of operations to return
+	 * @param comparator the comparator of the results
+	 * @param <R> the type of the result of the function applied to two consecutive values
+	 * @return a list of at most k series ids and operations sorted from the smallest to the greatest result, 
+	 * equal results being in the order of the series and of their keys
+	 */
+	public <R> List<Map.Entry<S, Operation<K, R>>> bottomK(BiFunction<V, V, R> biFunction, int k, Comparator<? super R> comparator) {
+		Objects.requireNonNull(biFunction);
+		Objects.requireNonNull(comparator);
+		if (k < 0)
+			throw new IllegalArgumentException("k cannot be negative");
+		
+		return filterTopResults(biFunction, k, (r1, r2) -> comparator.compare(r2, r1));
+	}
+	
+	@Override
+	public String toString() {
+		return "SeriesBatch [size=" + series.length + "]";
+	}
+	
+	private <R> List<Map.Entry<S, Operation<K, R>>> filterTopResults(BiFunction<V, V, R> biFunction, int k, Comparator<? super R> comparator) {
+		TopCollector<Map.Entry<S, Operation<K, R>>, R> topCollector = new TopCollector<>(k, entry -> entry.getValue().getResult(), comparator);
+		forEachSeries(index -> {
+			SortedMap<K, V> map = getSeries(index);
+			// a series without pairs of keys has no result
+			if (map.size() < 2)
+				return;
+			
+			List<Operation<K, R>> operations = OrderedMapUtils.topK(map, biFunction, k, comparator);
+			synchronized (topCollector) {
+				for (int rank = 0; rank < operations.size(); rank++) {
+					// equal results are ranked by the index of the series then by the rank of the operation in its series
+					if (!topCollector.add(new AbstractMap.SimpleImmutableEntry<>(getId(index), operations.get(rank)), ((long) index << 32) | rank)) {
+						// the next operations of the series are not greater
+						break;
+					}
+				}
+			}
+		});
+		return topCollector.getTop();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private S getId(int index) {
+		return (S) ids[index];
+	}
+	
+	@SuppressWarnings("unchecked")
+	private SortedMap<K, V> getSeries(int index) {
+		return (SortedMap<K, V>) series[index];
+	}
+	
+	/*
+	 * Run the task of each series index on the executor, the largest series first, and wait for all of them
+	 */
+	private void forEachSeries(IntConsumer task) {
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[series.length];
+		for (int i = 0; i < largestFirst.length; i++) {
+			int index = largestFirst[i];
+			futures[i] = CompletableFuture.runAsync(() -> task.accept(index), executor);
+		}
+		try {
+			CompletableFuture.allOf(futures).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw e;
+		}
+	}
+	
+}
@@ -0,0 +1,93 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Sum of double values which can be added and removed. 
+ * The finite values are summed with a Neumaier compensation, so that a large value removed from the sum does not take the small ones with it, 
+ * and the non-finite values are counted apart, so that removing an infinite value does not leave NaN.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+final class SlidingSum {
+	
+	private double sum;
+	private double compensation;
+	private int nanCount;
+	private int positiveInfinityCount;
+	private int negativeInfinityCount;
+	
+	void add(double value) {
+		update(value, 1);
+	}
+	
+	void remove(double value) {
+		update(value, -1);
+	}
+	
+	void clear() {
+		sum = 0;
+		compensation = 0;
+		nanCount = 0;
+		positiveInfinityCount = 0;
+		negativeInfinityCount = 0;
+	}
+	
+	double getSum() {
+		if (nanCount > 0 || (positiveInfinityCount > 0 && negativeInfinityCount > 0))
+			return Double.NaN;
+		if (positiveInfinityCount > 0)
+			return Double.POSITIVE_INFINITY;
+		if (negativeInfinityCount > 0)
+			return Double.NEGATIVE_INFINITY;
+		return sum + compensation;
+	}
+	
+	/*
+	 * Add (sign 1) or remove (sign -1) a value
+	 */
+	private void update(double value, int sign) {
+		if (Double.isNaN(value)) {
+			nanCount += sign;
+		} else if (value == Double.POSITIVE_INFINITY) {
+			positiveInfinityCount += sign;
+		} else if (value == Double.NEGATIVE_INFINITY) {
+			negativeInfinityCount += sign;
+		} else {
+			addFinite(sign * value);
+		}
+	}
+	
+	/*
+	 * Neumaier summation, the compensation keeping the low-order bits lost by the sum
+	 */
+	private void addFinite(double value) {
+		double newSum = sum + value;
+		if (Math.abs(sum) >= Math.abs(value)) {
+			compensation += (sum - newSum) + value;
+		} else {
+			compensation += (value - newSum) + sum;
+		}
+		sum = newSum;
+	}
+	
+}
@@ -0,0 +1,96 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator of the operations on consecutive entries of a snapshot of the keys and the values of an ordered map.
+ * The pairs of keys are split by index, a prefix ending with the first key of the suffix.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @param <R> the type of the results
+ */
+final class SnapshotPairSpliterator<K, V, R> implements Spliterator<Operation<K, R>> {
+	
+	private final Object[] keys;
+	private final Object[] values;
+	private final BiFunction<V, V, R> biFunction;
+	// the index of the next pair and the index after the last pair
+	private int origin;
+	private final int fence;
+	
+	SnapshotPairSpliterator(Object[] keys, Object[] values, BiFunction<V, V, R> biFunction, int origin, int fence) {
+		this.keys = keys;
+		this.values = values;
+		this.biFunction = biFunction;
+		this.origin = origin;
+		this.fence = fence;
+	}
+	
+	@Override
+	public boolean tryAdvance(Consumer<? super Operation<K, R>> action) {
+		if (origin >= fence)
+			return false;
+		action.accept(operation(origin++));
+		return true;
+	}
+	
+	@Override
+	public void forEachRemaining(Consumer<? super Operation<K, R>> action) {
+		for (int i = origin; i < fence; i++) {
+			action.accept(operation(i));
+		}
+		origin = fence;
+	}
+	
+	@Override
+	public Spliterator<Operation<K, R>> trySplit() {
+		int middle = (origin + fence) >>> 1;
+		if (middle <= origin)
+			return null;
+		
+		SnapshotPairSpliterator<K, V, R> prefix = new SnapshotPairSpliterator<>(keys, values, biFunction, origin, middle);
+		origin = middle;
+		return prefix;
+	}
+	
+	@Override
+	public long estimateSize() {
+		return fence - origin;
+	}
+	
+	@Override
+	public int characteristics() {
+		return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private Operation<K, R> operation(int index) {
+		return new Operation<K, R>((K) keys[index], (K) keys[index + 1], biFunction.apply((V) values[index], (V) values[index + 1]));
+	}
+	
+}
@@ -0,0 +1,290 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Sorted map backed by arrays of keys and values, built by putting the keys in increasing order and then read-only.
+ * Sub maps are read-only views.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class SortedArrayMap<K, V> extends AbstractMap<K, V> implements SortedMap<K, V> {
+	
+	private final Comparator<? super K> comparator;
+	private Object[] keys;
+	private Object[] values;
+	private int size;
+	private boolean frozen;
+	// bounds of the entries of a view
+	private final SortedArrayMap<K, V> backingMap;
+	private final int from;
+	private final int to;
+	// key bounds of a view, as given to subMap, headMap or tailMap
+	private final boolean lowBounded;
+	private final Object lowKey;
+	private final boolean highBounded;
+	private final Object highKey;
+	
+	SortedArrayMap(Comparator<? super K> comparator, int expectedSize) {
+		this.comparator = comparator;
+		this.keys = new Object[Math.max(expectedSize, 1)];
+		this.values = new Object[keys.length];
+		this.backingMap = this;
+		this.from = 0;
+		this.to = -1;
+		this.lowBounded = false;
+		this.lowKey = null;
+		this.highBounded = false;
+		this.highKey = null;
+	}
+	
+	/*
+	 * Read-only map of keys already sorted, the arrays being used without copy
+	 */
+	SortedArrayMap(Comparator<? super K> comparator, Object[] sortedKeys, Object[] values) {
+		this.comparator = comparator;
+		this.keys = sortedKeys;
+		this.values = values;
+		this.size = sortedKeys.length;
+		this.frozen = true;
+		this.backingMap = this;
+		this.from = 0;
+		this.to = -1;
+		this.lowBounded = false;
+		this.lowKey = null;
+		this.highBounded = false;
+		this.highKey = null;
+	}
+	
+	private SortedArrayMap(SortedArrayMap<K, V> backingMap, int from, int to, boolean lowBounded, Object lowKey, boolean highBounded, Object highKey) {
+		this.comparator = backingMap.comparator;
+		this.backingMap = backingMap;
+		this.from = from;
+		this.to = to;
+		this.lowBounded = lowBounded;
+		this.lowKey = lowKey;
+		this.highBounded = highBounded;
+		this.highKey = highKey;
+		this.frozen = true;
+	}
+	
+	/**
+	 * Make the map read-only
+	 */
+	void freeze() {
+		if (!frozen) {
+			keys = Arrays.copyOf(keys, size);
+			values = Arrays.copyOf(values, size);
+			frozen = true;
+		}
+	}
+	
+	@Override
+	public V put(K key, V value) {
+		if (frozen)
+			throw new UnsupportedOperationException("Map is read-only");
+		if (size > 0 && compare(key, keys[size - 1]) <= 0)
+			throw new IllegalArgumentException("Keys must be put in increasing order");
+		
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+		keys[size] = key;
+		values[size] = value;
+		size++;
+		return null;
+	}
+	
+	@Override
+	public int size() {
+		return end() - start();
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : (V) backingMap.values[index];
+	}
+	
+	@Override
+	public Comparator<? super K> comparator() {
+		return comparator;
+	}
+	
+	@Override
+	public SortedMap<K, V> subMap(K fromKey, K toKey) {
+		if (compare(fromKey, toKey) > 0)
+			throw new IllegalArgumentException("fromKey > toKey");
+		if (!inRange(fromKey))
+			throw new IllegalArgumentException("fromKey out of range");
+		if (!inRange(toKey))
+			throw new IllegalArgumentException("toKey out of range");
+		return view(lowerBound(fromKey), lowerBound(toKey), true, fromKey, true, toKey);
+	}
+	
+	@Override
+	public SortedMap<K, V> headMap(K toKey) {
+		if (!inRange(toKey))
+			throw new IllegalArgumentException("toKey out of range");
+		return view(start(), lowerBound(toKey), lowBounded, lowKey, true, toKey);
+	}
+	
+	@Override
+	public SortedMap<K, V> tailMap(K fromKey) {
+		if (!inRange(fromKey))
+			throw new IllegalArgumentException("fromKey out of range");
+		return view(lowerBound(fromKey), end(), true, fromKey, highBounded, highKey);
+	}
+	
+	@Override
+	public K firstKey() {
+		if (size() == 0)
+			throw new NoSuchElementException();
+		return key(start());
+	}
+	
+	@Override
+	public K lastKey() {
+		if (size() == 0)
+			throw new NoSuchElementException();
+		return key(end() - 1);
+	}
+	
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return new AbstractSet<Map.Entry<K, V>>() {
+			
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator() {
+				int end = end();
+				return new Iterator<Map.Entry<K, V>>() {
+					
+					private int index = start();
+					
+					@Override
+					public boolean hasNext() {
+						return index < end;
+					}
+					
+					@Override
+					@SuppressWarnings("unchecked")
+					public Map.Entry<K, V> next() {
+						if (index >= end)
+							throw new NoSuchElementException();
+						Map.Entry<K, V> entry = new SimpleImmutableEntry<>(key(index), (V) backingMap.values[index]);
+						index++;
+						return entry;
+					}
+					
+				};
+			}
+			
+			@Override
+			public int size() {
+				return SortedArrayMap.this.size();
+			}
+			
+		};
+	}
+	
+	private SortedArrayMap<K, V> view(int from, int to, boolean lowBounded, Object lowKey, boolean highBounded, Object highKey) {
+		backingMap.freeze();
+		return new SortedArrayMap<>(backingMap, from, to, lowBounded, lowKey, highBounded, highKey);
+	}
+	
+	/*
+	 * Whether the key can bound a view of this map, the bounds of this map included as in TreeMap
+	 */
+	private boolean inRange(Object key) {
+		return (!lowBounded || compare(key, lowKey) >= 0) && (!highBounded || compare(key, highKey) <= 0);
+	}
+	
+	private int start() {
+		return from;
+	}
+	
+	private int end() {
+		return backingMap == this ? size : to;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private K key(int index) {
+		return (K) backingMap.keys[index];
+	}
+	
+	/*
+	 * Index of the key in the backing arrays, negative if the key is not in this map
+	 */
+	private int indexOf(Object key) {
+		int index = lowerBound(key);
+		return index < end() && index >= start() && compare(key, backingMap.keys[index]) == 0 ? index : -1;
+	}
+	
+	/*
+	 * Index of the first key greater than or equal to the key in the backing arrays
+	 */
+	private int lowerBound(Object key) {
+		int low = 0;
+		int high = backingMap.backingSize() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compare(backingMap.keys[middle], key);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return low;
+	}
+	
+	private int backingSize() {
+		return size;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private int compare(Object key1, Object key2) {
+		return comparator == null ? ((Comparable<Object>) key1).compareTo(key2) : comparator.compare((K) key1, (K) key2);
+	}
+	
+}
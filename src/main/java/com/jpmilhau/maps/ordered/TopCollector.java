@@ -0,0 +1,111 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Bounded heap keeping the k elements with the greatest results according to a comparator, 
+ * equal results being ranked by the position given with each element, the smallest position first.
+ * The head of the heap is the element to drop first. The collector is not thread-safe.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <T> the type of the elements
+ * @param <R> the type of the results of the elements
+ */
+final class TopCollector<T, R> {
+	
+	private final int k;
+	private final Function<? super T, ? extends R> resultFunction;
+	private final Comparator<? super R> comparator;
+	private final Comparator<RankedElement<T, R>> rankComparator;
+	private final PriorityQueue<RankedElement<T, R>> heap;
+	
+	TopCollector(int k, Function<? super T, ? extends R> resultFunction, Comparator<? super R> comparator) {
+		this.k = k;
+		this.resultFunction = resultFunction;
+		this.comparator = comparator;
+		this.rankComparator = (e1, e2) -> compare(e1.result, e1.position, e2);
+		this.heap = new PriorityQueue<>(Math.max(k, 1), rankComparator);
+	}
+	
+	/*
+	 * Whether an element with the result at the position would be kept, 
+	 * so that the element is only created when it is kept
+	 */
+	boolean accepts(R result, long position) {
+		if (heap.size() < k)
+			return true;
+		return k > 0 && compare(result, position, heap.peek()) > 0;
+	}
+	
+	/*
+	 * Add an element at a position, returning whether it is kept
+	 */
+	boolean add(T element, long position) {
+		R result = resultFunction.apply(element);
+		if (!accepts(result, position))
+			return false;
+		if (heap.size() == k) {
+			heap.poll();
+		}
+		heap.add(new RankedElement<>(element, result, position));
+		return true;
+	}
+	
+	/*
+	 * The kept elements from the greatest to the smallest result
+	 */
+	List<T> getTop() {
+		List<RankedElement<T, R>> rankedElements = new ArrayList<>(heap);
+		rankedElements.sort(rankComparator.reversed());
+		List<T> top = new ArrayList<>(rankedElements.size());
+		for (RankedElement<T, R> rankedElement : rankedElements) {
+			top.add(rankedElement.element);
+		}
+		return top;
+	}
+	
+	private int compare(R result, long position, RankedElement<T, R> rankedElement) {
+		int comparison = comparator.compare(result, rankedElement.result);
+		return comparison != 0 ? comparison : Long.compare(rankedElement.position, position);
+	}
+	
+	private static final class RankedElement<T, R> {
+		
+		private final T element;
+		private final R result;
+		private final long position;
+		
+		private RankedElement(T element, R result, long position) {
+			this.element = element;
+			this.result = result;
+			this.position = position;
+		}
+		
+	}
+	
+}
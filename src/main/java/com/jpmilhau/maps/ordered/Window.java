@@ -0,0 +1,203 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Window of consecutive keys and their numeric values sliding over an ordered map.
+ * The sum, the average, the minimum and the maximum of the values are maintained incrementally 
+ * so that they are available in O(1) whatever the size of the window.
+ * The same instance is reused when the window slides to the next key, so it must not be kept by the function given the window.
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the value
+ */
+public final class Window<K, V extends Number> {
+	
+	private final int capacity;
+	private final Object[] keys;
+	private final Object[] values;
+	private final double[] numericValues;
+	private final long[] maxQueue;
+	private final long[] minQueue;
+	private long count;
+	private long maxHead;
+	private long maxTail;
+	private long minHead;
+	private long minTail;
+	private final SlidingSum sum = new SlidingSum();
+	
+	Window(int capacity) {
+		this.capacity = capacity;
+		this.keys = new Object[capacity];
+		this.values = new Object[capacity];
+		this.numericValues = new double[capacity];
+		this.maxQueue = new long[capacity];
+		this.minQueue = new long[capacity];
+	}
+	
+	/**
+	 * Get the number of keys in the window
+	 * @return the size of the window
+	 */
+	public int size() {
+		return (int) Math.min(count, capacity);
+	}
+	
+	/**
+	 * Get a key of the window
+	 * @param index the index of the key, 0 being the first key of the window
+	 * @return the key
+	 */
+	@SuppressWarnings("unchecked")
+	public K getKey(int index) {
+		return (K) keys[slot(index)];
+	}
+	
+	/**
+	 * Get a value of the window
+	 * @param index the index of the key, 0 being the first key of the window
+	 * @return the value of the key
+	 */
+	@SuppressWarnings("unchecked")
+	public V getValue(int index) {
+		return (V) values[slot(index)];
+	}
+	
+	/**
+	 * Get the first key of the window
+	 * @return the first key
+	 */
+	public K getFirstKey() {
+		return getKey(0);
+	}
+	
+	/**
+	 * Get the last key of the window
+	 * @return the last key
+	 */
+	public K getLastKey() {
+		return getKey(size() - 1);
+	}
+	
+	/**
+	 * Get the value of the first key of the window
+	 * @return the first value
+	 */
+	public V getFirstValue() {
+		return getValue(0);
+	}
+	
+	/**
+	 * Get the value of the last key of the window
+	 * @return the last value
+	 */
+	public V getLastValue() {
+		return getValue(size() - 1);
+	}
+	
+	/**
+	 * Get the sum of the values of the window
+	 * @return the sum of the values
+	 */
+	public double getSum() {
+		return sum.getSum();
+	}
+	
+	/**
+	 * Get the average of the values of the window
+	 * @return the average of the values
+	 */
+	public double getAverage() {
+		return sum.getSum() / size();
+	}
+	
+	/**
+	 * Get the maximum of the values of the window
+	 * @return the maximum of the values
+	 */
+	public double getMax() {
+		return numericValues[(int) (maxQueue[(int) (maxHead % capacity)] % capacity)];
+	}
+	
+	/**
+	 * Get the minimum of the values of the window
+	 * @return the minimum of the values
+	 */
+	public double getMin() {
+		return numericValues[(int) (minQueue[(int) (minHead % capacity)] % capacity)];
+	}
+	
+	boolean isFull() {
+		return count >= capacity;
+	}
+	
+	/*
+	 * Slide the window to a new key. The monotonic queues hold the positions of the candidates 
+	 * for the maximum and the minimum, the oldest one being the maximum or the minimum of the window.
+	 */
+	void add(K key, V value) {
+		long position = count;
+		int slot = (int) (position % capacity);
+		double numericValue = value.doubleValue();
+		
+		if (maxHead < maxTail && maxQueue[(int) (maxHead % capacity)] <= position - capacity) {
+			maxHead++;
+		}
+		if (minHead < minTail && minQueue[(int) (minHead % capacity)] <= position - capacity) {
+			minHead++;
+		}
+		if (isFull()) {
+			sum.remove(numericValues[slot]);
+		}
+		
+		keys[slot] = key;
+		values[slot] = value;
+		numericValues[slot] = numericValue;
+		sum.add(numericValue);
+		count++;
+		
+		while (maxHead < maxTail && numericValues[(int) (maxQueue[(int) ((maxTail - 1) % capacity)] % capacity)] <= numericValue) {
+			maxTail--;
+		}
+		maxQueue[(int) (maxTail++ % capacity)] = position;
+		while (minHead < minTail && numericValues[(int) (minQueue[(int) ((minTail - 1) % capacity)] % capacity)] >= numericValue) {
+			minTail--;
+		}
+		minQueue[(int) (minTail++ % capacity)] = position;
+		
+		// the compensation of each removal has its own rounding error, the sum is rebuilt once per window length so that they do not add up over a long map
+		if (count % capacity == 0) {
+			sum.clear();
+			for (double v : numericValues) {
+				sum.add(v);
+			}
+		}
+	}
+	
+	private int slot(int index) {
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		return (int) ((count - size() + index) % capacity);
+	}
+	
+}
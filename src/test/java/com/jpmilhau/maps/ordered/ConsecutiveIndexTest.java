@@ -0,0 +1,144 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 
+ * Test of ConsecutiveIndex
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public class ConsecutiveIndexTest {
+	
+	@Test
+	public void buildTest() {
+		TreeMap<Date, Float> temperatures = new TreeMap<>(TestData.getInstance().getTemperaturesAsSortedMap());
+		ConsecutiveIndex<Date, Float, Float> index = ConsecutiveIndex.of(temperatures, (t1, t2) -> Math.abs(t2 - t1));
+		
+		assertEquals(365, index.size());
+		assertEquals(OrderedMapUtils.apply(temperatures, (t1, t2) -> Math.abs(t2 - t1)), index.getResults());
+		assertEquals(OrderedMapUtils.filterAllMax(temperatures, (t1, t2) -> Math.abs(t2 - t1)), index.filterAllMax());
+		assertEquals(OrderedMapUtils.filterAllMin(temperatures, (t1, t2) -> Math.abs(t2 - t1)), index.filterAllMin());
+		assertEquals(2.187d, index.average(), 0.001d);
+	}
+	
+	@Test
+	public void updateTest() {
+		TreeMap<Integer, Integer> values = new TreeMap<>();
+		ConsecutiveIndex<Integer, Integer, Integer> index = ConsecutiveIndex.of(values, (v1, v2) -> v2 - v1);
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			int key = random.nextInt(50);
+			if (random.nextInt(3) == 0) {
+				index.remove(key);
+			} else {
+				index.put(key, random.nextInt(10));
+			}
+			
+			TreeMap<Integer, Integer> expectedValues = new TreeMap<>(index.getMap());
+			if (expectedValues.size() != 1) {
+				assertEquals(OrderedMapUtils.apply(expectedValues, (v1, v2) -> v2 - v1), index.getResults());
+				assertEquals(OrderedMapUtils.filterAllMax(expectedValues, (v1, v2) -> v2 - v1), index.filterAllMax());
+				assertEquals(OrderedMapUtils.filterAllMin(expectedValues, (v1, v2) -> v2 - v1), index.filterAllMin());
+				assertEquals(OrderedMapUtils.average(expectedValues, (v1, v2) -> v2 - v1), index.average(), 0.000001d);
+			}
+		}
+	}
+	
+	@Test
+	public void averageRestoredValueTest() {
+		TreeMap<Integer, Double> values = new TreeMap<>();
+		ConsecutiveIndex<Integer, Double, Double> index = ConsecutiveIndex.of(values, (v1, v2) -> v2);
+		index.put(0, 1d);
+		index.put(1, 1d);
+		index.put(2, 1d);
+		
+		index.put(1, Double.POSITIVE_INFINITY);
+		assertEquals(Double.POSITIVE_INFINITY, index.average(), 0d);
+		index.put(2, Double.NEGATIVE_INFINITY);
+		assertTrue(Double.isNaN(index.average()));
+		index.put(1, Double.NaN);
+		assertTrue(Double.isNaN(index.average()));
+		index.put(1, 1d);
+		index.put(2, 1d);
+		assertEquals(1d, index.average(), 0d);
+		
+		index.put(1, 1e17);
+		assertEquals(5e16, index.average(), 1d);
+		index.put(1, 1d);
+		assertEquals(1d, index.average(), 0d);
+		
+		for (int i = 3; i < 100; i++) {
+			index.put(i, i % 2 == 0 ? 1e300 : -1e300);
+		}
+		for (int i = 3; i < 100; i++) {
+			index.remove(i);
+		}
+		assertEquals(1d, index.average(), 0d);
+	}
+	
+	@Test
+	public void averageNearZeroTest() {
+		// the differences between a first and a last value which are equal sum to zero
+		TreeMap<Integer, Double> values = new TreeMap<>();
+		Random random = new Random(7);
+		for (int i = 0; i <= 1000; i++) {
+			values.put(i, i == 0 || i == 1000 ? 5d : random.nextDouble() * 100);
+		}
+		ConsecutiveIndex<Integer, Double, Double> index = ConsecutiveIndex.of(values, (v1, v2) -> v2 - v1);
+		
+		for (int i = 0; i < 200; i++) {
+			index.put(1 + random.nextInt(999), random.nextDouble() * 100);
+			assertEquals(0d, index.average(), 1e-12);
+		}
+		assertEquals(0, index.getSumRecomputations());
+	}
+	
+	@Test
+	public void filterTestsTest() {
+		TreeMap<Integer, Integer> values = new TreeMap<>();
+		ConsecutiveIndex<Integer, Integer, Boolean> index = ConsecutiveIndex.ofPredicate(values, (v1, v2) -> v2 > v1);
+		index.put(1, 1);
+		index.put(3, 3);
+		index.put(5, 2);
+		index.put(2, 0);
+		
+		List<KeyPair<Integer>> results = index.filterTests(true);
+		assertEquals(1, results.size());
+		assertEquals(new KeyPair<Integer>(2, 3), results.get(0));
+		assertEquals(2, index.filterTests(false).size());
+		
+		index.remove(3);
+		assertEquals(new KeyPair<Integer>(2, 5), index.filterTests(true).get(0));
+		assertEquals(new KeyPair<Integer>(1, 2), index.filterTests(false).get(0));
+	}
+	
+}
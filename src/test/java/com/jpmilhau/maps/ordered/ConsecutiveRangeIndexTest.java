@@ -0,0 +1,113 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 
+ * Test of ConsecutiveRangeIndex
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public class ConsecutiveRangeIndexTest {
+	
+	private final static SimpleDateFormat formatter = new SimpleDateFormat("dd/MM/yyyy");
+	
+	@Test
+	public void temperaturesTest() throws ParseException {
+		SortedMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsSortedMap();
+		ConsecutiveRangeIndex<Date, Float> index = ConsecutiveRangeIndex.of(temperatures, (t1, t2) -> Math.abs(t2 - t1));
+		Date firstDay = formatter.parse("01/01/2016");
+		Date lastDay = formatter.parse("31/12/2016");
+		
+		assertEquals(365, index.size());
+		assertEquals(OrderedMapUtils.filterAllMax(temperatures, (t1, t2) -> Math.abs(t2 - t1)), index.filterAllMax(firstDay, lastDay));
+		assertEquals(OrderedMapUtils.filterAllMin(temperatures, (t1, t2) -> Math.abs(t2 - t1)), index.filterAllMin(firstDay, lastDay));
+		assertEquals(2.187d, index.average(firstDay, lastDay), 0.001d);
+		
+		List<Operation<Date, Float>> results = index.filterAllMin(formatter.parse("01/06/2016"), formatter.parse("01/09/2016"));
+		assertEquals(2, results.size());
+		assertEquals(formatter.parse("29/06/2016"), results.get(0).getKey());
+		assertEquals(formatter.parse("24/08/2016"), results.get(1).getKey());
+		
+		ConsecutiveRangeIndex<Date, Boolean> tests = ConsecutiveRangeIndex.ofPredicate(temperatures, (t1, t2) -> Math.abs(t2 - t1) >= 8f);
+		assertEquals(3, tests.countTests(firstDay, lastDay, true));
+		assertEquals(2, tests.countTests(formatter.parse("13/05/2016"), formatter.parse("01/06/2016"), true));
+		assertEquals(0, tests.countTests(formatter.parse("14/05/2016"), formatter.parse("21/05/2016"), true));
+		assertEquals(7, tests.countTests(formatter.parse("14/05/2016"), formatter.parse("21/05/2016"), false));
+	}
+	
+	@Test
+	public void randomRangesTest() {
+		Random random = new Random(7);
+		TreeMap<Integer, Integer> values = new TreeMap<>();
+		for (int i = 0; i < 200; i++) {
+			values.put(random.nextInt(1000), random.nextInt(20));
+		}
+		ConsecutiveRangeIndex<Integer, Integer> index = ConsecutiveRangeIndex.of(values, (v1, v2) -> v2 - v1);
+		Collection<Operation<Integer, Integer>> operations = OrderedMapUtils.apply(values, (v1, v2) -> v2 - v1).values();
+		
+		for (int i = 0; i < 500; i++) {
+			int fromKey = random.nextInt(1100) - 50;
+			int toKey = fromKey + random.nextInt(400);
+			
+			List<Operation<Integer, Integer>> range = new ArrayList<>();
+			for (Operation<Integer, Integer> operation : operations) {
+				if (operation.getKey() >= fromKey && operation.getKey() < toKey) {
+					range.add(operation);
+				}
+			}
+			
+			assertEquals(filterAll(range, true), index.filterAllMax(fromKey, toKey));
+			assertEquals(filterAll(range, false), index.filterAllMin(fromKey, toKey));
+			assertEquals(range.stream().mapToInt(Operation::getResult).sum(), index.sum(fromKey, toKey), 0.000001d);
+		}
+	}
+	
+	private static List<Operation<Integer, Integer>> filterAll(List<Operation<Integer, Integer>> operations, boolean max) {
+		List<Operation<Integer, Integer>> extremes = new ArrayList<>();
+		for (Operation<Integer, Integer> operation : operations) {
+			int comparison = extremes.isEmpty() ? 1 : operation.getResult().compareTo(extremes.get(0).getResult()) * (max ? 1 : -1);
+			if (comparison > 0) {
+				extremes.clear();
+			}
+			if (comparison >= 0) {
+				extremes.add(operation);
+			}
+		}
+		return extremes;
+	}
+	
+}
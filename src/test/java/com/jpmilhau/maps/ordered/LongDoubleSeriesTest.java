@@ -0,0 +1,143 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 
+ * Test of LongDoubleSeries
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public class LongDoubleSeriesTest {
+	
+	private final static SimpleDateFormat formatter = new SimpleDateFormat("dd/MM/yyyy");
+	
+	@Test
+	public void applyTest() throws ParseException {
+		LongDoubleSeries results = getTemperatures().apply((t1, t2) -> (t2 - t1));
+		assertEquals(365, results.size());
+		assertEquals(formatter.parse("01/01/2016").getTime(), results.getKey(0));
+		assertEquals(1.1d, results.getValue(0), 0.001d);
+		assertEquals(formatter.parse("30/12/2016").getTime(), results.getKey(364));
+		assertEquals(-1.3d, results.getValue(364), 0.001d);
+	}
+	
+	@Test
+	public void filterAllMaxTest() throws ParseException {
+		List<Operation<Long, Double>> results = getTemperatures().filterAllMax((t1, t2) -> Math.abs(t2 - t1));
+		assertEquals(1, results.size());
+		assertEquals(Long.valueOf(formatter.parse("02/04/2016").getTime()), results.get(0).getKey());
+		assertEquals(Long.valueOf(formatter.parse("03/04/2016").getTime()), results.get(0).getNextKey());
+		assertEquals(10d, results.get(0).getResult(), 0.001d);
+	}
+	
+	@Test
+	public void filterAllMinTest() throws ParseException {
+		List<Operation<Long, Double>> results = getTemperatures().filterAllMin((t1, t2) -> Math.abs(t2 - t1));
+		assertEquals(6, results.size());
+		assertEquals(Long.valueOf(formatter.parse("27/03/2016").getTime()), results.get(0).getKey());
+		assertEquals(Long.valueOf(formatter.parse("07/12/2016").getTime()), results.get(5).getNextKey());
+	}
+	
+	@Test
+	public void averageTest() {
+		assertEquals(2.187d, getTemperatures().average((t1, t2) -> Math.abs(t2 - t1)), 0.001d);
+	}
+	
+	@Test
+	public void testTest() throws ParseException {
+		LongDoubleSeries temperatures = getTemperatures();
+		BitSet results = temperatures.test((t1, t2) -> Math.abs(t2 - t1) >= 8d);
+		assertEquals(3, results.cardinality());
+		assertEquals(formatter.parse("02/04/2016").getTime(), temperatures.getKey(results.nextSetBit(0)));
+		
+		List<KeyPair<Long>> filteredResults = temperatures.filterTests((t1, t2) -> Math.abs(t2 - t1) >= 8d, true);
+		assertEquals(3, filteredResults.size());
+		assertEquals(Long.valueOf(formatter.parse("21/05/2016").getTime()), filteredResults.get(2).getKey());
+	}
+	
+	@Test
+	public void groupedConsecutiveTestsTest() throws ParseException {
+		LongDoubleSeries temperatures = getTemperatures();
+		SortedMap<Date, Float> temperaturesAsSortedMap = TestData.getInstance().getTemperaturesAsSortedMap();
+		
+		assertEquals(
+				OrderedMapUtils.filterGroupedConsecutiveTests(temperaturesAsSortedMap, (t1, t2) -> t2 - t1 > 0f, true).size(), 
+				temperatures.filterGroupedConsecutiveTests((t1, t2) -> t2 - t1 > 0d, true).size());
+		assertEquals(
+				OrderedMapUtils.filterGroupedConsecutiveTests(temperaturesAsSortedMap, (t1, t2) -> t2 - t1 > 0f, false).size(), 
+				temperatures.filterGroupedConsecutiveTests((t1, t2) -> t2 - t1 > 0d, false).size());
+		
+		List<List<KeyPair<Long>>> results1 = temperatures.filterGroupedConsecutiveTests((t1, t2) -> t2 - t1 > 0d, true, 5, 5);
+		assertEquals(1, results1.size());
+		assertEquals(Long.valueOf(formatter.parse("19/09/2016").getTime()), results1.get(0).get(0).getKey());
+		assertEquals(Long.valueOf(formatter.parse("24/09/2016").getTime()), results1.get(0).get(4).getNextKey());
+		
+		List<List<KeyPair<Long>>> results2 = temperatures.filterAllMaxGroupedConsecutiveTests((t1, t2) -> t2 - t1 > 0d, true);
+		assertEquals(2, results2.size());
+		assertEquals(Long.valueOf(formatter.parse("20/12/2016").getTime()), results2.get(1).get(0).getKey());
+		
+		assertEquals(55, temperatures.filterAllMinGroupedConsecutiveTests((t1, t2) -> t2 - t1 > 0d, true).size());
+		assertEquals(1.814d, temperatures.averageGroupedConsecutiveTests((t1, t2) -> t2 - t1 > 0d, true), 0.001d);
+	}
+	
+	@Test
+	public void forEachPairTest() {
+		LongDoubleSeries temperatures = getTemperatures();
+		LongDoubleSeries results = temperatures.apply((t1, t2) -> (t2 - t1));
+		int[] index = new int[1];
+		temperatures.forEachPair((key, nextKey, t1, t2) -> {
+			assertEquals(results.getKey(index[0]), key);
+			assertEquals(temperatures.getKey(index[0] + 1), nextKey);
+			assertEquals(results.getValue(index[0]), t2 - t1, 0d);
+			index[0]++;
+		});
+		assertEquals(results.size(), index[0]);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void unsortedKeysTest() {
+		LongDoubleSeries.of(new long[] {2, 1}, new double[] {1d, 2d});
+	}
+	
+	private static LongDoubleSeries getTemperatures() {
+		TreeMap<Long, Double> temperatures = new TreeMap<>();
+		for (Map.Entry<Date, Float> entry : TestData.getInstance().getTemperaturesAsSortedMap().entrySet()) {
+			temperatures.put(entry.getKey().getTime(), entry.getValue().doubleValue());
+		}
+		return LongDoubleSeries.of(temperatures);
+	}
+	
+}
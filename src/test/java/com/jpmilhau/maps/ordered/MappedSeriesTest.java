@@ -0,0 +1,150 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 
+ * Test of MappedSeries
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public class MappedSeriesTest {
+	
+	// small chunks so that the operations cross the boundaries of the mappings
+	private static final int RECORDS_PER_CHUNK = 7;
+	
+	@Test
+	public void mappedSeriesTest() throws IOException {
+		long[] keys = new long[100];
+		double[] values = new double[keys.length];
+		Random random = new Random(15);
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = i * 3L + random.nextInt(3);
+			values[i] = random.nextInt(20) - 10;
+		}
+		LongDoubleSeries expectedSeries = LongDoubleSeries.of(keys, values);
+		
+		for (ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+			Path path = write(keys, values, byteOrder);
+			Path target = Files.createTempFile("mapped-series", ".bin");
+			try {
+				MappedSeries series = MappedSeries.open(path, byteOrder, RECORDS_PER_CHUNK);
+				assertEquals(keys.length, series.size());
+				for (int i = 0; i < keys.length; i++) {
+					assertEquals(keys[i], series.getKey(i));
+					assertEquals(values[i], series.getValue(i), 0);
+					assertEquals(i, series.indexOf(keys[i]));
+				}
+				assertEquals(-1, series.indexOf(keys[0] - 1));
+				assertEquals(-keys.length - 1, series.indexOf(keys[keys.length - 1] + 1));
+				
+				LongDoubleSeries expectedResults = expectedSeries.apply((v1, v2) -> (v2 - v1));
+				LongDoubleSeries results = series.apply((v1, v2) -> (v2 - v1), target).toLongDoubleSeries();
+				assertEquals(expectedResults.size(), results.size());
+				for (int i = 0; i < results.size(); i++) {
+					assertEquals(expectedResults.getKey(i), results.getKey(i));
+					assertEquals(expectedResults.getValue(i), results.getValue(i), 0);
+				}
+				
+				assertEquals(expectedSeries.filterAllMax((v1, v2) -> (v2 - v1)), series.filterAllMax((v1, v2) -> (v2 - v1)));
+				assertEquals(expectedSeries.filterAllMin((v1, v2) -> (v2 - v1)), series.filterAllMin((v1, v2) -> (v2 - v1)));
+				assertEquals(expectedSeries.average((v1, v2) -> (v2 - v1)), series.average((v1, v2) -> (v2 - v1)), 0);
+				assertEquals(expectedSeries.test((v1, v2) -> v2 > v1), series.test((v1, v2) -> v2 > v1));
+				assertEquals(expectedSeries.filterTests((v1, v2) -> v2 > v1, false), series.filterTests((v1, v2) -> v2 > v1, false));
+				assertEquals(expectedSeries.filterTests((v1, v2) -> v2 > v1, true).size(), series.countTests((v1, v2) -> v2 > v1, true));
+				
+				for (boolean filter : new boolean[] { true, false }) {
+					checkRuns(expectedSeries.filterGroupedConsecutiveTests((v1, v2) -> v2 > v1, filter), series.filterGroupedConsecutiveRuns((v1, v2) -> v2 > v1, filter));
+					checkRuns(expectedSeries.filterGroupedConsecutiveTests((v1, v2) -> v2 > v1, filter, 2, 3), series.filterGroupedConsecutiveRuns((v1, v2) -> v2 > v1, filter, 2, 3));
+					checkRuns(expectedSeries.filterAllMaxGroupedConsecutiveTests((v1, v2) -> v2 > v1, filter), series.filterAllMaxGroupedConsecutiveRuns((v1, v2) -> v2 > v1, filter));
+					checkRuns(expectedSeries.filterAllMinGroupedConsecutiveTests((v1, v2) -> v2 > v1, filter), series.filterAllMinGroupedConsecutiveRuns((v1, v2) -> v2 > v1, filter));
+					assertEquals(expectedSeries.averageGroupedConsecutiveTests((v1, v2) -> v2 > v1, filter), series.averageGroupedConsecutiveTests((v1, v2) -> v2 > v1, filter), 0);
+				}
+			} finally {
+				Files.delete(path);
+				Files.delete(target);
+			}
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void truncatedFileTest() throws IOException {
+		Path path = Files.createTempFile("mapped-series", ".bin");
+		try {
+			Files.write(path, new byte[MappedSeries.RECORD_SIZE + 1]);
+			MappedSeries.open(path);
+		} finally {
+			Files.delete(path);
+		}
+	}
+	
+	@Test
+	public void applyToOwnFileTest() throws IOException {
+		Path path = write(new long[] {1, 2, 3}, new double[] {1d, 4d, 9d}, ByteOrder.BIG_ENDIAN);
+		try {
+			MappedSeries series = MappedSeries.open(path);
+			try {
+				series.apply((v1, v2) -> v2 - v1, path.getParent().resolve(".").resolve(path.getFileName()));
+				fail("the file of the series must not be replaced");
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+			assertEquals(3, series.size());
+			assertEquals(9d, series.getValue(2), 0d);
+		} finally {
+			Files.delete(path);
+		}
+	}
+	
+	private static void checkRuns(List<List<KeyPair<Long>>> expectedGroups, List<RunSpan<Long>> runs) {
+		assertEquals(expectedGroups.size(), runs.size());
+		for (int i = 0; i < runs.size(); i++) {
+			List<KeyPair<Long>> group = expectedGroups.get(i);
+			assertEquals(group.get(0).getKey(), runs.get(i).getStartKey());
+			assertEquals(group.get(group.size() - 1).getNextKey(), runs.get(i).getEndKey());
+			assertEquals(group.size(), runs.get(i).getLength());
+		}
+	}
+	
+	private static Path write(long[] keys, double[] values, ByteOrder byteOrder) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(keys.length * MappedSeries.RECORD_SIZE).order(byteOrder);
+		for (int i = 0; i < keys.length; i++) {
+			buffer.putLong(keys[i]).putDouble(values[i]);
+		}
+		Path path = Files.createTempFile("mapped-series", ".bin");
+		Files.write(path, buffer.array());
+		return path;
+	}
+	
+}
@@ -0,0 +1,122 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 
+ * Test of OrderedMapMetrics
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public class OrderedMapMetricsTest {
+	
+	@Test
+	public void scopedRecorderTest() {
+		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		SortedMap<Date, Float> temperatures2 = TestData.getInstance().getTemperaturesAsSortedMap();
+		InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+		
+		OrderedMapMetrics.record(recorder, () -> OrderedMapUtils.apply(temperatures1, (t1, t2) -> (t2 - t1)));
+		OrderedMapMetrics.record(recorder, () -> OrderedMapUtils.apply(temperatures2, (t1, t2) -> (t2 - t1)));
+		double average = OrderedMapMetrics.recordAsDouble(recorder, () -> OrderedMapUtils.average(temperatures2, (t1, t2) -> (t2 - t1)));
+		assertEquals(OrderedMapUtils.average(temperatures2, (t1, t2) -> (t2 - t1)), average, 0);
+		
+		InMemoryMetricsRecorder.Statistics statistics = recorder.getStatistics("apply", LinkedHashMap.class);
+		assertEquals(1, statistics.getCallCount());
+		assertEquals(temperatures1.size(), statistics.getEntriesScanned());
+		assertEquals(temperatures1.size() - 1, statistics.getPairsEvaluated());
+		assertEquals(temperatures1.size() - 1, statistics.getResultsEmitted());
+		assertTrue(statistics.getFunctionNanos() <= statistics.getTotalNanos());
+		assertEquals(statistics.getTotalNanos() - statistics.getFunctionNanos(), statistics.getLibraryNanos());
+		
+		assertEquals(1, recorder.getStatistics("apply", TreeMap.class).getCallCount());
+		assertEquals(2, recorder.getStatistics("apply").getCallCount());
+		assertEquals(1, recorder.getStatistics("average", TreeMap.class).getResultsEmitted());
+		
+		long histogramCount = 0;
+		for (long bucketCount : recorder.getStatistics("apply").getLatencyHistogram()) {
+			histogramCount += bucketCount;
+		}
+		assertEquals(2, histogramCount);
+		assertTrue(recorder.getStatistics("apply").getLatencyPercentile(100) >= recorder.getStatistics("apply").getLatencyPercentile(50));
+		
+		// outside the scope nothing is recorded
+		OrderedMapUtils.apply(temperatures1, (t1, t2) -> (t2 - t1));
+		assertEquals(2, recorder.getStatistics("apply").getCallCount());
+		assertEquals(0, recorder.getStatistics("test").getCallCount());
+	}
+	
+	@Test
+	public void shortCircuitEntriesTest() {
+		SortedMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsSortedMap();
+		InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+		
+		// an empty map has no entry scanned
+		OrderedMapMetrics.record(recorder, () -> OrderedMapUtils.anyMatch(new TreeMap<Date, Float>(), (t1, t2) -> true));
+		assertEquals(0, recorder.getStatistics("anyMatch").getEntriesScanned());
+		assertEquals(0, recorder.getStatistics("anyMatch").getPairsEvaluated());
+		
+		OrderedMapMetrics.record(recorder, () -> OrderedMapUtils.findFirst(temperatures, (t1, t2) -> true));
+		assertEquals(2, recorder.getStatistics("findFirst").getEntriesScanned());
+		OrderedMapMetrics.record(recorder, () -> OrderedMapUtils.allMatch(temperatures, (t1, t2) -> true));
+		assertEquals(temperatures.size(), recorder.getStatistics("allMatch").getEntriesScanned());
+	}
+	
+	@Test
+	public void globalRecorderTest() {
+		SortedMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsSortedMap();
+		InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+		OrderedMapMetrics.setGlobalRecorder(recorder);
+		try {
+			List<List<KeyPair<Date>>> groups = OrderedMapUtils.filterGroupedConsecutiveTests(temperatures, (t1, t2) -> t2 - t1 > 0f, true);
+			InMemoryMetricsRecorder.Statistics statistics = recorder.getStatistics("filterGroupedConsecutiveTests", TreeMap.class);
+			assertEquals(1, statistics.getCallCount());
+			assertEquals(temperatures.size() - 1, statistics.getPairsEvaluated());
+			assertEquals(groups.size(), statistics.getResultsEmitted());
+			
+			// a scoped recorder takes precedence over the global recorder
+			InMemoryMetricsRecorder scopedRecorder = new InMemoryMetricsRecorder();
+			OrderedMapMetrics.record(scopedRecorder, () -> OrderedMapUtils.filterTests(temperatures, (t1, t2) -> t2 - t1 > 0f, true));
+			assertEquals(0, recorder.getStatistics("filterTests").getCallCount());
+			assertEquals(1, scopedRecorder.getStatistics("filterTests").getCallCount());
+			
+			recorder.reset();
+			assertEquals(0, recorder.getStatistics("filterGroupedConsecutiveTests").getCallCount());
+		} finally {
+			OrderedMapMetrics.setGlobalRecorder(OrderedMapMetrics.noOp());
+		}
+		
+		OrderedMapUtils.filterGroupedConsecutiveTests(temperatures, (t1, t2) -> t2 - t1 > 0f, true);
+		assertEquals(0, recorder.getStatistics("filterGroupedConsecutiveTests").getCallCount());
+	}
+	
+}
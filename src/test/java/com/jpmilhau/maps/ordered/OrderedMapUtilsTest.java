@@ -23,11 +23,27 @@ package com.jpmilhau.maps.ordered;
 import java.text.MessageFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.junit.Test;
 
@@ -59,6 +75,26 @@ public class OrderedMapUtilsTest {
 		checkApplyResults(results2);
 	}
 	
+	@Test
+	public void applyParallelTest() throws ParseException {
+		SortedMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsSortedMap();
+		SortedMap<Date, Operation<Date, Float>> expectedResults = OrderedMapUtils.apply(temperatures, (t1, t2) -> (t2 - t1));
+		
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int threshold : new int[] {1, 7, 100, 364, 365}) {
+				SortedMap<Date, Operation<Date, Float>> results = OrderedMapUtils.applyParallel(temperatures, (t1, t2) -> (t2 - t1), pool, threshold);
+				checkApplyResults(results);
+				assertEquals(expectedResults, results);
+				assertEquals(expectedResults.getClass(), results.getClass());
+			}
+		} finally {
+			pool.shutdown();
+		}
+		
+		checkApplyResults(OrderedMapUtils.applyParallel(temperatures, (t1, t2) -> (t2 - t1)));
+	}
+	
 	@Test
 	public void filterAllMaxTest() throws ParseException {
 		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
@@ -81,6 +117,17 @@ public class OrderedMapUtilsTest {
 		checkFilterAllMinResults(results2);
 	}
 	
+	@Test
+	public void averageNonFiniteTest() {
+		SortedMap<Integer, Double> values = new TreeMap<>();
+		for (int i = 0; i < 4; i++) {
+			values.put(i, (double) i);
+		}
+		assertEquals(Double.POSITIVE_INFINITY, OrderedMapUtils.average(values, (v1, v2) -> Double.POSITIVE_INFINITY), 0d);
+		assertEquals(Double.NEGATIVE_INFINITY, OrderedMapUtils.averageAsDouble(values, (v1, v2) -> Double.NEGATIVE_INFINITY), 0d);
+		assertTrue(Double.isNaN(OrderedMapUtils.average(values, (v1, v2) -> v1 == 0d ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY)));
+	}
+	
 	@Test
 	public void averageTest() throws ParseException {
 		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
@@ -131,6 +178,28 @@ public class OrderedMapUtilsTest {
 		checkFilterGroupedConsecutiveTestsResults2(results2);
 	}
 	
+	@Test
+	public void testFilterGroupedConsecutiveFailedTests() {
+		LinkedHashMap<Integer, Integer> values = new LinkedHashMap<>();
+		values.put(1, 1);
+		values.put(2, 2);
+		values.put(3, 3);
+		values.put(4, 2);
+		values.put(5, 1);
+		values.put(6, 2);
+		
+		List<List<KeyPair<Integer>>> results1 = OrderedMapUtils.filterGroupedConsecutiveTests(values, (v1, v2) -> v2 > v1, false);
+		assertEquals(1, results1.size());
+		assertEquals(2, results1.get(0).size());
+		assertEquals(new KeyPair<Integer>(3, 4), results1.get(0).get(0));
+		assertEquals(new KeyPair<Integer>(4, 5), results1.get(0).get(1));
+		
+		List<List<KeyPair<Integer>>> results2 = OrderedMapUtils.filterGroupedConsecutiveTests(OrderedMapUtils.toTreeMap(values), (v1, v2) -> v2 > v1, true);
+		assertEquals(2, results2.size());
+		assertEquals(2, results2.get(0).size());
+		assertEquals(new KeyPair<Integer>(5, 6), results2.get(1).get(0));
+	}
+	
 	@Test
 	public void testFilterAllMaxGroupedConsecutiveTests() throws ParseException {
 		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
@@ -164,6 +233,472 @@ public class OrderedMapUtilsTest {
 		checkAverageGroupedConsecutiveTestsResult(result2);
 	}
 	
+	@Test
+	public void applyAsDoubleTest() throws ParseException {
+		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		DoubleOperationSeries<Date> results1 = OrderedMapUtils.applyAsDouble(temperatures1, (t1, t2) -> (t2 - t1));
+		checkApplyAsDoubleResults(results1);
+		
+		SortedMap<Date, Float> temperatures2 = TestData.getInstance().getTemperaturesAsSortedMap();
+		DoubleOperationSeries<Date> results2 = OrderedMapUtils.applyAsDouble(temperatures2, (t1, t2) -> (t2 - t1));
+		checkApplyAsDoubleResults(results2);
+	}
+	
+	@Test
+	public void averageAsDoubleTest() {
+		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		checkAverageResult(OrderedMapUtils.averageAsDouble(temperatures1, (t1, t2) -> Math.abs(t2 - t1)));
+		
+		SortedMap<Date, Float> temperatures2 = TestData.getInstance().getTemperaturesAsSortedMap();
+		checkAverageResult(OrderedMapUtils.averageAsDouble(temperatures2, (t1, t2) -> Math.abs(t2 - t1)));
+	}
+	
+	@Test
+	public void testDoubleTest() throws ParseException {
+		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		BooleanOperationSeries<Date> results1 = OrderedMapUtils.testDouble(temperatures1, (t1, t2) -> Math.abs(t2 - t1) >= 8f);
+		checkTestDoubleResults(results1);
+		
+		SortedMap<Date, Float> temperatures2 = TestData.getInstance().getTemperaturesAsSortedMap();
+		BooleanOperationSeries<Date> results2 = OrderedMapUtils.testDouble(temperatures2, (t1, t2) -> Math.abs(t2 - t1) >= 8f);
+		checkTestDoubleResults(results2);
+	}
+	
+	@Test
+	public void longOperationsTest() {
+		LinkedHashMap<Integer, Long> values = new LinkedHashMap<>();
+		values.put(1, 10L);
+		values.put(2, 15L);
+		values.put(3, 12L);
+		
+		LongOperationSeries<Integer> results = OrderedMapUtils.applyAsLong(values, (v1, v2) -> (v2 - v1));
+		assertEquals(2, results.size());
+		assertEquals(5L, results.getResult(0));
+		assertEquals(-3L, results.getResult(1));
+		assertEquals(Integer.valueOf(2), results.getKey(1));
+		assertEquals(Integer.valueOf(3), results.getNextKey(1));
+		
+		assertDoubleEquality(1d, OrderedMapUtils.averageAsLong(OrderedMapUtils.toTreeMap(values), (v1, v2) -> (v2 - v1)));
+		
+		BooleanOperationSeries<Integer> tests = OrderedMapUtils.testLong(values, (v1, v2) -> v2 > v1);
+		assertTrue(tests.getResult(0));
+		assertFalse(tests.getResult(1));
+	}
+	
+	@Test
+	public void applyAsSeriesTest() {
+		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		LinkedHashMap<Date, Operation<Date, Float>> expectedResults1 = OrderedMapUtils.apply(temperatures1, (t1, t2) -> (t2 - t1));
+		OperationSeries<Date, Float> series1 = OrderedMapUtils.applyAsSeries(temperatures1, (t1, t2) -> (t2 - t1));
+		assertEquals(expectedResults1, series1.toLinkedHashMap());
+		assertEquals(new ArrayList<>(expectedResults1.values()), series1.asList());
+		
+		SortedMap<Date, Float> temperatures2 = TestData.getInstance().getTemperaturesAsSortedMap();
+		SortedMap<Date, Operation<Date, Float>> expectedResults2 = OrderedMapUtils.apply(temperatures2, (t1, t2) -> (t2 - t1));
+		OperationSeries<Date, Float> series2 = OrderedMapUtils.applyAsSeries(temperatures2, (t1, t2) -> (t2 - t1));
+		assertEquals(expectedResults2, series2.toTreeMap());
+		assertEquals(expectedResults2.size(), series2.size());
+		
+		int index = 0;
+		for (Operation<Date, Float> operation : expectedResults2.values()) {
+			assertEquals(operation.getKey(), series2.getKey(index));
+			assertEquals(operation.getNextKey(), series2.getNextKey(index));
+			assertEquals(operation.getResult(), series2.getResult(index));
+			assertEquals(index, series2.indexOf(operation.getKey()));
+			assertEquals(index, series1.indexOf(operation.getKey()));
+			assertEquals(operation, series2.getOperation(operation.getKey()));
+			index++;
+		}
+		
+		// the last key has no operation
+		assertEquals(-1, series1.indexOf(temperatures2.lastKey()));
+		assertEquals(-1, series2.indexOf(temperatures2.lastKey()));
+		assertNull(series2.getOperation(temperatures2.lastKey()));
+	}
+	
+	@Test
+	public void streamTest() {
+		SortedMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsSortedMap();
+		
+		assertEquals(new ArrayList<>(OrderedMapUtils.apply(temperatures, (t1, t2) -> (t2 - t1)).values()), 
+				OrderedMapUtils.applyStream(temperatures.entrySet().iterator(), (t1, t2) -> (t2 - t1)).collect(Collectors.toList()));
+		assertEquals(new ArrayList<>(OrderedMapUtils.test(temperatures, (t1, t2) -> t2 > t1).values()), 
+				OrderedMapUtils.testStream(temperatures.entrySet().stream(), (t1, t2) -> t2 > t1).collect(Collectors.toList()));
+		for (boolean filter : new boolean[] { true, false }) {
+			assertEquals(OrderedMapUtils.filterTests(temperatures, (t1, t2) -> t2 > t1, filter), 
+					OrderedMapUtils.filterTestsStream(temperatures.entrySet().stream(), (t1, t2) -> t2 > t1, filter).collect(Collectors.toList()));
+			assertEquals(OrderedMapUtils.filterGroupedConsecutiveTests(temperatures, (t1, t2) -> t2 > t1, filter), 
+					OrderedMapUtils.filterGroupedConsecutiveTestsStream(temperatures.entrySet().iterator(), (t1, t2) -> t2 > t1, filter).collect(Collectors.toList()));
+		}
+		
+		// an unbounded source is consumed lazily
+		Stream<Map.Entry<Integer, Integer>> squares = IntStream.iterate(0, i -> i + 1).mapToObj(i -> new AbstractMap.SimpleEntry<>(i, i * i));
+		List<Operation<Integer, Integer>> differences = OrderedMapUtils.applyStream(squares, (v1, v2) -> (v2 - v1)).limit(3).collect(Collectors.toList());
+		assertEquals(3, differences.size());
+		assertEquals(new Operation<Integer, Integer>(2, 3, 5), differences.get(2));
+		
+		boolean[] closed = new boolean[1];
+		OrderedMapUtils.filterTestsStream(temperatures.entrySet().stream().onClose(() -> closed[0] = true), (t1, t2) -> t2 > t1, true).close();
+		assertTrue(closed[0]);
+		
+		assertEquals(0, OrderedMapUtils.applyStream(Collections.singletonMap(1, 1).entrySet().iterator(), (Integer v1, Integer v2) -> (v2 - v1)).count());
+	}
+	
+	@Test
+	public void matchTest() {
+		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		SortedMap<Date, Float> temperatures2 = TestData.getInstance().getTemperaturesAsSortedMap();
+		List<KeyPair<Date>> tests = OrderedMapUtils.filterTests(temperatures1, (t1, t2) -> Math.abs(t2 - t1) >= 8f, true);
+		
+		assertTrue(OrderedMapUtils.anyMatch(temperatures1, (t1, t2) -> Math.abs(t2 - t1) >= 8f));
+		assertFalse(OrderedMapUtils.allMatch(temperatures2, (t1, t2) -> Math.abs(t2 - t1) >= 8f));
+		assertTrue(OrderedMapUtils.allMatch(temperatures1, (t1, t2) -> Math.abs(t2 - t1) < 1000f));
+		assertTrue(OrderedMapUtils.noneMatch(temperatures2, (t1, t2) -> Math.abs(t2 - t1) >= 1000f));
+		
+		assertEquals(tests.get(0), OrderedMapUtils.findFirst(temperatures1, (t1, t2) -> Math.abs(t2 - t1) >= 8f).get());
+		assertEquals(tests.get(0), OrderedMapUtils.findFirst(temperatures2, (t1, t2) -> Math.abs(t2 - t1) >= 8f).get());
+		assertEquals(tests.get(tests.size() - 1), OrderedMapUtils.findLast(temperatures1, (t1, t2) -> Math.abs(t2 - t1) >= 8f).get());
+		assertEquals(tests.get(tests.size() - 1), OrderedMapUtils.findLast(temperatures2, (t1, t2) -> Math.abs(t2 - t1) >= 8f).get());
+		assertFalse(OrderedMapUtils.findLast(temperatures2, (t1, t2) -> Math.abs(t2 - t1) >= 1000f).isPresent());
+	}
+	
+	@Test
+	public void forEachPairTest() {
+		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		double[] sum1 = new double[2];
+		OrderedMapUtils.forEachPair(temperatures1, (date, nextDate, t1, t2) -> {
+			sum1[0] += Math.abs(t2 - t1);
+			sum1[1]++;
+		});
+		checkAverageResult(sum1[0] / sum1[1]);
+		
+		SortedMap<Date, Float> temperatures2 = TestData.getInstance().getTemperaturesAsSortedMap();
+		double[] sum2 = new double[2];
+		OrderedMapUtils.forEachDoublePair(temperatures2, (date, nextDate, t1, t2) -> {
+			sum2[0] += Math.abs(t2 - t1);
+			sum2[1]++;
+		});
+		checkAverageResult(sum2[0] / sum2[1]);
+		assertEquals(temperatures2.size() - 1, sum2[1], 0d);
+	}
+	
+	@Test
+	public void testCompactTest() {
+		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		PairTestResult<Date> results1 = OrderedMapUtils.testCompact(temperatures1, (t1, t2) -> Math.abs(t2 - t1) >= 8f);
+		LinkedHashMap<Date, Operation<Date, Boolean>> tests = OrderedMapUtils.test(temperatures1, (t1, t2) -> Math.abs(t2 - t1) >= 8f);
+		assertEquals(tests.size(), results1.size());
+		int index = 0;
+		for (Operation<Date, Boolean> operation : tests.values()) {
+			assertEquals(operation, results1.getOperation(index++));
+		}
+		assertEquals(OrderedMapUtils.filterTests(temperatures1, (t1, t2) -> Math.abs(t2 - t1) >= 8f, true), results1.filterTests(true));
+		assertEquals(OrderedMapUtils.filterTests(temperatures1, (t1, t2) -> Math.abs(t2 - t1) >= 8f, false), results1.filterTests(false));
+		assertEquals(results1.size(), results1.count(true) + results1.count(false));
+		
+		SortedMap<Date, Float> temperatures2 = TestData.getInstance().getTemperaturesAsSortedMap();
+		PairTestResult<Date> results2 = OrderedMapUtils.testCompact(temperatures2, (t1, t2) -> t2 - t1 > 0f);
+		List<List<KeyPair<Date>>> groups = OrderedMapUtils.filterGroupedConsecutiveTests(temperatures2, (t1, t2) -> t2 - t1 > 0f, true, 2, 4);
+		List<RunSpan<Date>> runs = results2.filterGroupedConsecutiveRuns(true, 2, 4);
+		assertEquals(groups.size(), runs.size());
+		for (int i = 0; i < groups.size(); i++) {
+			List<KeyPair<Date>> group = groups.get(i);
+			assertEquals(new RunSpan<Date>(group.get(0).getKey(), group.get(group.size() - 1).getNextKey(), group.size()), runs.get(i));
+		}
+		assertEquals(OrderedMapUtils.filterGroupedConsecutiveTests(temperatures2, (t1, t2) -> t2 - t1 > 0f, false).size(), results2.filterGroupedConsecutiveRuns(false).size());
+	}
+	
+	@Test
+	public void filterGroupedConsecutiveRunsTest() {
+		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		RunIndex<Date> runIndex = RunIndex.of(temperatures1, (t1, t2) -> t2 - t1 > 0f, true);
+		assertEquals(runIndex.getRuns(), OrderedMapUtils.filterGroupedConsecutiveRuns(temperatures1, (t1, t2) -> t2 - t1 > 0f, true));
+		assertEquals(runIndex.getRuns(5, 5), OrderedMapUtils.filterGroupedConsecutiveRuns(temperatures1, (t1, t2) -> t2 - t1 > 0f, true, 5, 5));
+		assertEquals(runIndex.getLongestRuns(), OrderedMapUtils.filterAllMaxGroupedConsecutiveRuns(temperatures1, (t1, t2) -> t2 - t1 > 0f, true));
+		
+		SortedMap<Date, Float> temperatures2 = TestData.getInstance().getTemperaturesAsSortedMap();
+		assertEquals(runIndex.getShortestRuns(), OrderedMapUtils.filterAllMinGroupedConsecutiveRuns(temperatures2, (t1, t2) -> t2 - t1 > 0f, true));
+		List<List<KeyPair<Date>>> groups = OrderedMapUtils.filterGroupedConsecutiveTests(temperatures2, (t1, t2) -> t2 - t1 > 0f, false, 2, 3);
+		List<RunSpan<Date>> runs = OrderedMapUtils.filterGroupedConsecutiveRuns(temperatures2, (t1, t2) -> t2 - t1 > 0f, false, 2, 3);
+		assertEquals(groups.size(), runs.size());
+		for (int i = 0; i < groups.size(); i++) {
+			List<KeyPair<Date>> group = groups.get(i);
+			assertEquals(new RunSpan<Date>(group.get(0).getKey(), group.get(group.size() - 1).getNextKey(), group.size()), runs.get(i));
+		}
+	}
+	
+	@Test
+	public void filterGroupedConsecutiveRunsParallelTest() {
+		SortedMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsSortedMap();
+		SortedMap<Integer, Integer> values = new TreeMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			values.put(i, random.nextInt(4));
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int threshold : new int[] {1, 2, 7, 100, 364, 365}) {
+				for (boolean filter : new boolean[] {true, false}) {
+					assertEquals(OrderedMapUtils.filterGroupedConsecutiveRuns(temperatures, (t1, t2) -> t2 - t1 > 0f, filter), 
+						OrderedMapUtils.filterGroupedConsecutiveRunsParallel(temperatures, (t1, t2) -> t2 - t1 > 0f, filter, 1, Integer.MAX_VALUE, pool, threshold));
+					assertEquals(OrderedMapUtils.filterGroupedConsecutiveRuns(temperatures, (t1, t2) -> t2 - t1 > 0f, filter, 2, 4), 
+						OrderedMapUtils.filterGroupedConsecutiveRunsParallel(temperatures, (t1, t2) -> t2 - t1 > 0f, filter, 2, 4, pool, threshold));
+					assertEquals(OrderedMapUtils.filterAllMaxGroupedConsecutiveRuns(temperatures, (t1, t2) -> t2 - t1 > 0f, filter), 
+						OrderedMapUtils.filterAllMaxGroupedConsecutiveRunsParallel(temperatures, (t1, t2) -> t2 - t1 > 0f, filter, pool, threshold));
+					assertEquals(OrderedMapUtils.filterAllMinGroupedConsecutiveRuns(temperatures, (t1, t2) -> t2 - t1 > 0f, filter), 
+						OrderedMapUtils.filterAllMinGroupedConsecutiveRunsParallel(temperatures, (t1, t2) -> t2 - t1 > 0f, filter, pool, threshold));
+					assertEquals(OrderedMapUtils.averageGroupedConsecutiveTests(temperatures, (t1, t2) -> t2 - t1 > 0f, filter), 
+						OrderedMapUtils.averageGroupedConsecutiveTestsParallel(temperatures, (t1, t2) -> t2 - t1 > 0f, filter, pool, threshold), 0.000001d);
+					
+					assertEquals(OrderedMapUtils.filterGroupedConsecutiveRuns(values, (v1, v2) -> v1 <= v2, filter), 
+						OrderedMapUtils.filterGroupedConsecutiveRunsParallel(values, (v1, v2) -> v1 <= v2, filter, 1, Integer.MAX_VALUE, pool, threshold));
+					assertEquals(OrderedMapUtils.filterGroupedConsecutiveRuns(values, (v1, v2) -> v1 >= 0, filter), 
+						OrderedMapUtils.filterGroupedConsecutiveRunsParallel(values, (v1, v2) -> v1 >= 0, filter, 1, Integer.MAX_VALUE, pool, threshold));
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+		
+		assertEquals(OrderedMapUtils.filterGroupedConsecutiveRuns(temperatures, (t1, t2) -> t2 - t1 > 0f, true), 
+			OrderedMapUtils.filterGroupedConsecutiveRunsParallel(temperatures, (t1, t2) -> t2 - t1 > 0f, true));
+	}
+	
+	@Test
+	public void applyAsyncTest() throws Exception {
+		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		checkApplyResults(OrderedMapUtils.applyAsync(temperatures1, (t1, t2) -> (t2 - t1)).get());
+		
+		SortedMap<Date, Float> temperatures2 = TestData.getInstance().getTemperaturesAsSortedMap();
+		SortedMap<Date, Operation<Date, Float>> expectedResults = OrderedMapUtils.apply(temperatures2, (t1, t2) -> (t2 - t1));
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			AtomicInteger inFlight = new AtomicInteger();
+			AtomicInteger maxInFlight = new AtomicInteger();
+			SortedMap<Date, Operation<Date, Float>> results = OrderedMapUtils.applyAsync(temperatures2, (t1, t2) -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try {
+					return t2 - t1;
+				} finally {
+					inFlight.decrementAndGet();
+				}
+			}, executor, 3).get();
+			assertEquals(expectedResults, results);
+			assertTrue(maxInFlight.get() <= 3);
+			
+			SortedMap<Date, Operation<Date, Float>> partialResults = OrderedMapUtils.applyAsync(temperatures2, (t1, t2) -> {
+				if (t2 - t1 > 0f)
+					throw new IllegalStateException();
+				return t2 - t1;
+			}, executor, 3, AsyncErrorPolicy.SKIP).get();
+			assertEquals(OrderedMapUtils.filterTests(temperatures2, (t1, t2) -> t2 - t1 > 0f, false).size(), partialResults.size());
+			for (Operation<Date, Float> operation : partialResults.values()) {
+				assertEquals(expectedResults.get(operation.getKey()), operation);
+			}
+			
+			try {
+				OrderedMapUtils.applyAsync(temperatures2, (t1, t2) -> {
+					if (t2 - t1 > 0f)
+						throw new IllegalStateException();
+					return t2 - t1;
+				}, executor, 3, AsyncErrorPolicy.FAIL).get();
+				fail();
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void applyAsyncCallerRunsTest() throws Exception {
+		TreeMap<Integer, Integer> values = new TreeMap<>();
+		for (int i = 0; i < 200000; i++) {
+			values.put(i, i % 7);
+		}
+		// each pair is evaluated in the thread submitting it
+		SortedMap<Integer, Operation<Integer, Integer>> results = OrderedMapUtils.applyAsync(values, (v1, v2) -> v2 - v1, Runnable::run, 1).get();
+		assertEquals(OrderedMapUtils.apply(values, (v1, v2) -> v2 - v1), results);
+		
+		assertTrue(OrderedMapUtils.applyAsync(new TreeMap<Integer, Integer>(), (v1, v2) -> v2 - v1).get().isEmpty());
+		assertTrue(OrderedMapUtils.applyAsync(new LinkedHashMap<Integer, Integer>(), (v1, v2) -> v2 - v1, Runnable::run, 1).get().isEmpty());
+	}
+	
+	@Test
+	public void pairsTest() {
+		Random random = new Random(17);
+		TreeMap<Integer, Integer> values = new TreeMap<>();
+		for (int i = 0; i < 10000; i++) {
+			values.put(random.nextInt(), random.nextInt(100));
+		}
+		List<Operation<Integer, Integer>> expectedResults = new ArrayList<>(OrderedMapUtils.apply((SortedMap<Integer, Integer>) values, (v1, v2) -> (v2 - v1)).values());
+		
+		assertEquals(expectedResults, OrderedMapUtils.pairs(values, (v1, v2) -> (v2 - v1)).collect(Collectors.toList()));
+		assertEquals(expectedResults, OrderedMapUtils.pairs(values, (v1, v2) -> (v2 - v1)).parallel().collect(Collectors.toList()));
+		assertEquals(expectedResults, OrderedMapUtils.pairs(new ConcurrentSkipListMap<>(values), (v1, v2) -> (v2 - v1)).parallel().collect(Collectors.toList()));
+		assertEquals(expectedResults, splitAll(OrderedMapUtils.pairs(values, (v1, v2) -> (v2 - v1)).spliterator()));
+		
+		LinkedHashMap<Integer, Integer> linkedValues = new LinkedHashMap<>(values);
+		assertEquals(expectedResults, OrderedMapUtils.pairs(linkedValues, (v1, v2) -> (v2 - v1)).parallel().collect(Collectors.toList()));
+		assertEquals(expectedResults, splitAll(OrderedMapUtils.pairs(linkedValues, (v1, v2) -> (v2 - v1)).spliterator()));
+		
+		Spliterator<Operation<Integer, Integer>> spliterator = OrderedMapUtils.pairs(linkedValues, (v1, v2) -> (v2 - v1)).spliterator();
+		assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED));
+		assertEquals(values.size() - 1, spliterator.getExactSizeIfKnown());
+		assertEquals(values.size() - 1, OrderedMapUtils.pairs(values, (v1, v2) -> (v2 - v1)).spliterator().getExactSizeIfKnown());
+	}
+	
+	/*
+	 * Split a spliterator as much as possible and concatenate the elements of the parts in order
+	 */
+	private static <T> List<T> splitAll(Spliterator<T> spliterator) {
+		List<T> elements = new ArrayList<>();
+		Spliterator<T> prefix = spliterator.trySplit();
+		if (prefix != null) {
+			elements.addAll(splitAll(prefix));
+			elements.addAll(splitAll(spliterator));
+		} else {
+			spliterator.forEachRemaining(elements::add);
+		}
+		return elements;
+	}
+	
+	@Test
+	public void topKTest() {
+		SortedMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsSortedMap();
+		List<Operation<Date, Float>> top = OrderedMapUtils.topK(temperatures1, (t1, t2) -> (t2 - t1), 3, Comparator.naturalOrder());
+		assertEquals(3, top.size());
+		List<Operation<Date, Float>> max = OrderedMapUtils.filterAllMax(temperatures1, (t1, t2) -> (t2 - t1));
+		assertEquals(max.get(0), top.get(0));
+		assertTrue(top.get(0).getResult() >= top.get(1).getResult());
+		assertTrue(top.get(1).getResult() >= top.get(2).getResult());
+		
+		Random random = new Random(13);
+		LinkedHashMap<Integer, Integer> values = new LinkedHashMap<>();
+		for (int i = 0; i < 500; i++) {
+			values.put(i, random.nextInt(10));
+		}
+		List<Operation<Integer, Integer>> operations = new ArrayList<>(OrderedMapUtils.apply(values, (v1, v2) -> (v2 - v1)).values());
+		
+		// a stable sort keeps equal results in the order of the map
+		List<Operation<Integer, Integer>> expectedTop = new ArrayList<>(operations);
+		expectedTop.sort((o1, o2) -> Integer.compare(o2.getResult(), o1.getResult()));
+		List<Operation<Integer, Integer>> expectedBottom = new ArrayList<>(operations);
+		expectedBottom.sort((o1, o2) -> Integer.compare(o1.getResult(), o2.getResult()));
+		
+		for (int k : new int[] { 0, 1, 7, 499, 600 }) {
+			List<Operation<Integer, Integer>> top2 = OrderedMapUtils.topK(values, (v1, v2) -> (v2 - v1), k, Comparator.naturalOrder());
+			List<Operation<Integer, Integer>> bottom2 = OrderedMapUtils.bottomK(values, (v1, v2) -> (v2 - v1), k, Comparator.naturalOrder());
+			assertEquals(expectedTop.subList(0, Math.min(k, 499)), top2);
+			assertEquals(expectedBottom.subList(0, Math.min(k, 499)), bottom2);
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void topKNegativeTest() {
+		SortedMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsSortedMap();
+		OrderedMapUtils.topK(temperatures, (t1, t2) -> (t2 - t1), -1, Comparator.naturalOrder());
+	}
+	
+	@Test
+	public void applyWindowTest() throws ParseException {
+		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		LinkedHashMap<Date, Operation<Date, Float>> results1 = OrderedMapUtils.apply(temperatures1, 2, w -> (w.getLastValue() - w.getFirstValue()));
+		checkApplyResults(results1);
+		
+		SortedMap<Date, Float> temperatures2 = TestData.getInstance().getTemperaturesAsSortedMap();
+		SortedMap<Date, Operation<Date, Float>> results2 = OrderedMapUtils.apply(temperatures2, 2, w -> (w.getLastValue() - w.getFirstValue()));
+		checkApplyResults(results2);
+		
+		assertEquals(
+				OrderedMapUtils.filterAllMax(temperatures2, (t1, t2) -> Math.abs(t2 - t1)), 
+				OrderedMapUtils.filterAllMax(temperatures2, 2, w -> Math.abs(w.getLastValue() - w.getFirstValue())));
+		assertEquals(
+				OrderedMapUtils.filterAllMin(temperatures1, (t1, t2) -> Math.abs(t2 - t1)), 
+				OrderedMapUtils.filterAllMin(temperatures1, 2, w -> Math.abs(w.getLastValue() - w.getFirstValue())));
+		checkAverageResult(OrderedMapUtils.average(temperatures1, 2, w -> w.getMax() - w.getMin()));
+		assertEquals(
+				OrderedMapUtils.test(temperatures2, (t1, t2) -> Math.abs(t2 - t1) >= 8f), 
+				OrderedMapUtils.test(temperatures2, 2, w -> w.getMax() - w.getMin() >= 8f));
+	}
+	
+	@Test
+	public void movingAggregatesTest() {
+		Random random = new Random(3);
+		LinkedHashMap<Integer, Integer> values = new LinkedHashMap<>();
+		for (int i = 0; i < 500; i++) {
+			values.put(i, random.nextInt(100));
+		}
+		
+		for (int windowSize : new int[] {2, 3, 7, 30}) {
+			LinkedHashMap<Integer, Operation<Integer, double[]>> results = OrderedMapUtils.apply(values, windowSize, w -> new double[] {w.getAverage(), w.getMin(), w.getMax()});
+			assertEquals(values.size() - windowSize + 1, results.size());
+			for (Operation<Integer, double[]> operation : results.values()) {
+				assertEquals(operation.getKey() + windowSize - 1, operation.getNextKey().intValue());
+				int sum = 0;
+				int min = Integer.MAX_VALUE;
+				int max = Integer.MIN_VALUE;
+				for (int key = operation.getKey(); key <= operation.getNextKey(); key++) {
+					sum += values.get(key);
+					min = Math.min(min, values.get(key));
+					max = Math.max(max, values.get(key));
+				}
+				assertEquals((double) sum / windowSize, operation.getResult()[0], 0.000001d);
+				assertEquals(min, operation.getResult()[1], 0d);
+				assertEquals(max, operation.getResult()[2], 0d);
+			}
+		}
+	}
+	
+	@Test
+	public void windowEmptyMapTest() {
+		assertTrue(OrderedMapUtils.apply(new LinkedHashMap<Integer, Integer>(), 3, w -> w.getAverage()).isEmpty());
+		assertTrue(OrderedMapUtils.test(new LinkedHashMap<Integer, Integer>(), 4, w -> w.getMax() > 0).isEmpty());
+		assertTrue(OrderedMapUtils.apply(new TreeMap<Integer, Integer>(), 3, w -> w.getAverage()).isEmpty());
+	}
+	
+	@Test
+	public void movingSumNonFiniteTest() {
+		LinkedHashMap<Integer, Double> values = new LinkedHashMap<>();
+		double[] numbers = {1d, Double.POSITIVE_INFINITY, 2d, 3d, 4d, Double.NaN, 5d, 6d, 7d, Double.NEGATIVE_INFINITY, 8d, 9d, 10d};
+		for (int i = 0; i < numbers.length; i++) {
+			values.put(i, numbers[i]);
+		}
+		
+		LinkedHashMap<Integer, Operation<Integer, Double>> results = OrderedMapUtils.apply(values, 3, w -> w.getSum());
+		for (Operation<Integer, Double> operation : results.values()) {
+			double sum = 0;
+			for (int key = operation.getKey(); key <= operation.getNextKey(); key++) {
+				sum += values.get(key);
+			}
+			assertEquals(sum, operation.getResult(), 0d);
+		}
+		assertEquals(3d, OrderedMapUtils.apply(values, 3, w -> w.getAverage()).get(2).getResult(), 0d);
+	}
+	
+	@Test
+	public void movingSumHugeValueTest() {
+		LinkedHashMap<Integer, Double> values = new LinkedHashMap<>();
+		values.put(0, 1e17);
+		for (int i = 1; i < 10; i++) {
+			values.put(i, 1d);
+		}
+		
+		LinkedHashMap<Integer, Operation<Integer, Double>> results = OrderedMapUtils.apply(values, 3, w -> w.getSum());
+		assertEquals(1e17 + 2, results.get(0).getResult(), 0d);
+		for (int key = 1; key < 8; key++) {
+			assertEquals(3d, results.get(key).getResult(), 0d);
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void windowLargerThanMapTest() {
+		LinkedHashMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		OrderedMapUtils.apply(temperatures, 367, w -> w.getAverage());
+	}
+	
 	private void checkApplyResults(Map<Date, Operation<Date, Float>> results) throws ParseException {
 		assertEquals(365, results.size());
 		
@@ -284,6 +819,31 @@ public class OrderedMapUtilsTest {
 		assertDoubleEquality(Double.valueOf(1.814f), result);
 	}
 
+	private void checkApplyAsDoubleResults(DoubleOperationSeries<Date> results) throws ParseException {
+		assertEquals(365, results.size());
+		
+		assertEquals(formatter.parse("01/01/2016"), results.getKey(0));
+		assertEquals(formatter.parse("02/01/2016"), results.getNextKey(0));
+		assertDoubleEquality(1.1d, results.getResult(0));
+		
+		assertEquals(formatter.parse("30/12/2016"), results.getKey(364));
+		assertEquals(formatter.parse("31/12/2016"), results.getNextKey(364));
+		assertDoubleEquality(-1.3d, results.getResult(364));
+	}
+	
+	private void checkTestDoubleResults(BooleanOperationSeries<Date> results) throws ParseException {
+		assertEquals(365, results.size());
+		
+		assertFalse(results.getResult(0));
+		int count = 0;
+		for (int i = 0; i < results.size(); i++) {
+			if (results.getResult(i)) {
+				count++;
+			}
+		}
+		assertEquals(3, count);
+	}
+	
 	private static void assertFloatEquality(Float f1, Float f2) {
 		if (Math.abs(f1 - f2) >= 0.1f) {
 			fail(MessageFormat.format("Expected : {0}, Got: {1}", f1, f2));
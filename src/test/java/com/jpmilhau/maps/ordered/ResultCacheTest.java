@@ -0,0 +1,124 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Date;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 
+ * Test of ResultCache
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public class ResultCacheTest {
+	
+	private static final ResultCache.CacheKey<List<Operation<Date, Float>>> MAX_DELTA = ResultCache.CacheKey.of("maxDelta");
+	private static final ResultCache.CacheKey<Double> AVERAGE = ResultCache.CacheKey.of("average");
+	private static final ResultCache.CacheKey<int[]> A = ResultCache.CacheKey.of("a");
+	private static final ResultCache.CacheKey<SortedMap<Date, Float>> B = ResultCache.CacheKey.of("b");
+	
+	@Test
+	public void getTest() {
+		SortedMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsSortedMap();
+		ResultCache cache = ResultCache.create(1000);
+		AtomicInteger computations = new AtomicInteger();
+		
+		List<Operation<Date, Float>> results = null;
+		for (int i = 0; i < 3; i++) {
+			results = cache.get(temperatures, 1, MAX_DELTA, () -> {
+				computations.incrementAndGet();
+				return OrderedMapUtils.filterAllMax(temperatures, (t1, t2) -> Math.abs(t2 - t1));
+			});
+		}
+		assertEquals(OrderedMapUtils.filterAllMax(temperatures, (t1, t2) -> Math.abs(t2 - t1)), results);
+		assertEquals(1, computations.get());
+		assertEquals(2, cache.getStatistics().getHitCount());
+		assertEquals(1, cache.getStatistics().getMissCount());
+		
+		// a new version of the map computes the result again
+		for (int i = 0; i < 2; i++) {
+			cache.get(temperatures, 2, MAX_DELTA, () -> {
+				computations.incrementAndGet();
+				return OrderedMapUtils.filterAllMax(temperatures, (t1, t2) -> Math.abs(t2 - t1));
+			});
+		}
+		assertEquals(2, computations.get());
+		assertEquals(1, cache.getStatistics().getSize());
+		
+		// keys are compared by identity, so a key with the same name does not share the results
+		cache.get(temperatures, 2, ResultCache.CacheKey.<List<Operation<Date, Float>>>of("maxDelta"), () -> {
+			computations.incrementAndGet();
+			return OrderedMapUtils.filterAllMin(temperatures, (t1, t2) -> Math.abs(t2 - t1));
+		});
+		assertEquals(3, computations.get());
+		assertEquals(results, cache.get(temperatures, 2, MAX_DELTA, () -> null));
+		
+		double average = cache.get(temperatures, 2, AVERAGE, () -> OrderedMapUtils.average(temperatures, (t1, t2) -> Math.abs(t2 - t1)));
+		assertEquals(OrderedMapUtils.average(temperatures, (t1, t2) -> Math.abs(t2 - t1)), average, 0d);
+		assertEquals(3, cache.getStatistics().getSize());
+		
+		cache.invalidate(temperatures, AVERAGE);
+		assertEquals(2, cache.getStatistics().getSize());
+		cache.invalidate(temperatures);
+		assertEquals(0, cache.getStatistics().getSize());
+		assertEquals(0, cache.getStatistics().getWeight());
+	}
+	
+	@Test
+	public void evictionTest() {
+		SortedMap<Integer, Integer> map1 = new TreeMap<>();
+		SortedMap<Integer, Integer> map2 = new TreeMap<>();
+		ResultCache cache = ResultCache.create(10);
+		
+		cache.get(map1, 0, A, () -> new int[0]);
+		cache.get(map2, 0, A, () -> new int[0]);
+		cache.get(map1, 0, B, () -> TestData.getInstance().getTemperaturesAsSortedMap().headMap(new Date(0)));
+		// the least recently used result is evicted
+		cache.get(map1, 0, A, () -> new int[0]);
+		for (int i = 0; i < 8; i++) {
+			cache.get(map1, 0, ResultCache.CacheKey.<int[]>of("c" + i), () -> new int[0]);
+		}
+		assertEquals(10, cache.getStatistics().getWeight());
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+		AtomicInteger computations = new AtomicInteger();
+		cache.get(map2, 0, A, () -> {
+			computations.incrementAndGet();
+			return new int[0];
+		});
+		assertEquals(1, computations.get());
+		
+		// a result heavier than the maximum weight is not cached
+		cache.get(map1, 0, ResultCache.CacheKey.<TreeMap<Date, Float>>of("large"), () -> new TreeMap<>(TestData.getInstance().getTemperaturesAsSortedMap()));
+		assertEquals(10, cache.getStatistics().getWeight());
+		
+		cache.invalidateAll();
+		assertEquals(0, cache.getStatistics().getSize());
+	}
+	
+}
@@ -0,0 +1,160 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 
+ * Test of ResultMapFactory
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public class ResultMapFactoryTest {
+	
+	@Test
+	public void sameTypeTest() {
+		SortedMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsSortedMap();
+		SortedMap<Date, Operation<Date, Float>> expectedResults = OrderedMapUtils.apply(temperatures, (t1, t2) -> (t2 - t1));
+		
+		// the comparator of the map is kept
+		TreeMap<Date, Float> reversedTemperatures = new TreeMap<>(Comparator.reverseOrder());
+		reversedTemperatures.putAll(temperatures);
+		SortedMap<Date, Operation<Date, Float>> reversedResults = OrderedMapUtils.apply(reversedTemperatures, (t1, t2) -> (t2 - t1));
+		assertEquals(reversedTemperatures.comparator(), reversedResults.comparator());
+		assertEquals(temperatures.lastKey(), reversedResults.firstKey());
+		assertEquals(temperatures.size() - 1, reversedResults.size());
+		
+		// views without a no-argument constructor
+		SortedMap<Date, Operation<Date, Float>> unmodifiableResults = OrderedMapUtils.apply(Collections.unmodifiableSortedMap(temperatures), (t1, t2) -> (t2 - t1));
+		assertEquals(expectedResults, unmodifiableResults);
+		assertTrue(unmodifiableResults instanceof TreeMap);
+		
+		SortedMap<Date, Float> subTemperatures = temperatures.headMap(expectedResults.lastKey());
+		SortedMap<Date, Operation<Date, Float>> subResults = OrderedMapUtils.apply(subTemperatures, (t1, t2) -> (t2 - t1));
+		assertEquals(expectedResults.headMap(subTemperatures.lastKey()), subResults);
+		
+		LinkedHashMap<Date, Float> linkedTemperatures = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		Map<Date, Operation<Date, Float>> linkedResults = OrderedMapUtils.apply(linkedTemperatures, (t1, t2) -> (t2 - t1), ResultMapFactory.linkedHashMap());
+		assertEquals(OrderedMapUtils.apply(linkedTemperatures, (t1, t2) -> (t2 - t1)), linkedResults);
+		assertEquals(expectedResults, OrderedMapUtils.apply(temperatures, (t1, t2) -> (t2 - t1), ResultMapFactory.treeMap()));
+	}
+	
+	@Test
+	public void sortedArrayMapTest() {
+		SortedMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsSortedMap();
+		SortedMap<Date, Operation<Date, Float>> expectedResults = OrderedMapUtils.apply(temperatures, (t1, t2) -> (t2 - t1));
+		
+		Map<Date, Operation<Date, Float>> results = OrderedMapUtils.apply(temperatures, (t1, t2) -> (t2 - t1), ResultMapFactory.sortedArrayMap());
+		assertEquals(expectedResults, results);
+		assertEquals(expectedResults.hashCode(), results.hashCode());
+		assertTrue(results instanceof SortedMap);
+		
+		SortedMap<Date, Operation<Date, Float>> sortedResults = (SortedMap<Date, Operation<Date, Float>>) results;
+		assertEquals(expectedResults.firstKey(), sortedResults.firstKey());
+		assertEquals(expectedResults.lastKey(), sortedResults.lastKey());
+		for (Date key : expectedResults.keySet()) {
+			assertEquals(expectedResults.get(key), sortedResults.get(key));
+		}
+		assertNull(sortedResults.get(temperatures.lastKey()));
+		
+		Date fromKey = expectedResults.keySet().stream().skip(10).findFirst().get();
+		Date toKey = expectedResults.keySet().stream().skip(20).findFirst().get();
+		assertEquals(expectedResults.subMap(fromKey, toKey), sortedResults.subMap(fromKey, toKey));
+		assertEquals(expectedResults.headMap(toKey), sortedResults.headMap(toKey));
+		assertEquals(expectedResults.tailMap(fromKey), sortedResults.tailMap(fromKey));
+		assertEquals(expectedResults.tailMap(fromKey).headMap(toKey), sortedResults.tailMap(fromKey).headMap(toKey));
+		assertTrue(sortedResults.headMap(expectedResults.firstKey()).isEmpty());
+		
+		Map<Date, Operation<Date, Boolean>> tests = OrderedMapUtils.test(temperatures, (t1, t2) -> t2 > t1, ResultMapFactory.sortedArrayMap());
+		assertEquals(OrderedMapUtils.test(temperatures, (t1, t2) -> t2 > t1), tests);
+	}
+	
+	@Test
+	public void sortedArrayMapViewTest() {
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		SortedArrayMap<Integer, Integer> map = new SortedArrayMap<>(null, 10);
+		for (int key = 0; key < 10; key += 2) {
+			expected.put(key, key);
+			map.put(key, key);
+		}
+		
+		assertEquals(expected.subMap(1, 7).subMap(3, 7), map.subMap(1, 7).subMap(3, 7));
+		assertEquals(expected.subMap(1, 7).headMap(5).tailMap(1), map.subMap(1, 7).headMap(5).tailMap(1));
+		assertEquals(expected.tailMap(3).subMap(5, 5), map.tailMap(3).subMap(5, 5));
+		assertEquals(0, map.subMap(1, 7).subMap(5, 5).size());
+		assertEquals(Integer.valueOf(4), map.subMap(1, 7).tailMap(3).firstKey());
+		assertEquals(Integer.valueOf(6), map.subMap(1, 7).headMap(7).lastKey());
+		assertFalse(map.headMap(5).containsKey(6));
+		
+		assertSubMapOutOfRange(map.subMap(2, 5), 8, 9);
+		assertSubMapOutOfRange(map.subMap(2, 5), 0, 1);
+		assertSubMapOutOfRange(map.subMap(2, 5), 3, 6);
+		assertSubMapOutOfRange(map.headMap(5), 4, 6);
+		assertSubMapOutOfRange(map.tailMap(5), 4, 6);
+		try {
+			map.subMap(2, 5).headMap(6);
+			fail("toKey out of range");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			map.subMap(2, 5).tailMap(1);
+			fail("fromKey out of range");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+	
+	private static void assertSubMapOutOfRange(SortedMap<Integer, Integer> view, int fromKey, int toKey) {
+		try {
+			view.subMap(fromKey, toKey);
+			fail("subMap(" + fromKey + ", " + toKey + ") out of range");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void sortedArrayMapReadOnlyTest() {
+		SortedMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsSortedMap();
+		Map<Date, Operation<Date, Float>> results = OrderedMapUtils.apply(temperatures, (t1, t2) -> (t2 - t1), ResultMapFactory.sortedArrayMap());
+		results.put(temperatures.lastKey(), null);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void sortedArrayMapOfLinkedHashMapTest() {
+		LinkedHashMap<Date, Float> temperatures = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		OrderedMapUtils.apply(temperatures, (t1, t2) -> (t2 - t1), ResultMapFactory.sortedArrayMap());
+	}
+	
+}
@@ -0,0 +1,99 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.SortedMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 
+ * Test of RunIndex
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public class RunIndexTest {
+	
+	private final static SimpleDateFormat formatter = new SimpleDateFormat("dd/MM/yyyy");
+	
+	@Test
+	public void runsTest() throws ParseException {
+		LinkedHashMap<Date, Float> temperatures1 = TestData.getInstance().getTemperaturesAsLinkedHashMap();
+		checkRunIndex(RunIndex.of(temperatures1, (t1, t2) -> t2 - t1 > 0f, true));
+		
+		SortedMap<Date, Float> temperatures2 = TestData.getInstance().getTemperaturesAsSortedMap();
+		checkRunIndex(RunIndex.of(temperatures2, (t1, t2) -> t2 - t1 > 0f, true));
+	}
+	
+	@Test
+	public void emptyRunsTest() {
+		LinkedHashMap<Integer, Integer> values = new LinkedHashMap<>();
+		values.put(1, 3);
+		values.put(2, 2);
+		values.put(3, 1);
+		
+		RunIndex<Integer> runIndex = RunIndex.of(values, (v1, v2) -> v2 > v1, true);
+		assertEquals(0, runIndex.getRunCount());
+		assertTrue(runIndex.getLongestRuns().isEmpty());
+		assertTrue(runIndex.getShortestRuns().isEmpty());
+		assertEquals(0d, runIndex.getAverageRunLength(), 0d);
+		
+		List<RunSpan<Integer>> runs = RunIndex.of(values, (v1, v2) -> v2 > v1, false).getRuns();
+		assertEquals(1, runs.size());
+		assertEquals(new RunSpan<Integer>(1, 3, 2), runs.get(0));
+	}
+	
+	private void checkRunIndex(RunIndex<Date> runIndex) throws ParseException {
+		assertEquals(102, runIndex.getRunCount());
+		assertEquals(1.814d, runIndex.getAverageRunLength(), 0.001d);
+		assertEquals(Integer.valueOf(55), runIndex.getHistogram().get(1));
+		assertEquals(55, runIndex.getShortestRuns().size());
+		
+		List<RunSpan<Date>> longestRuns = runIndex.getLongestRuns();
+		assertEquals(2, longestRuns.size());
+		assertEquals(new RunSpan<Date>(formatter.parse("13/07/2016"), formatter.parse("19/07/2016"), 6), longestRuns.get(0));
+		assertEquals(new RunSpan<Date>(formatter.parse("20/12/2016"), formatter.parse("26/12/2016"), 6), longestRuns.get(1));
+		
+		List<RunSpan<Date>> runs = runIndex.getRuns(5, 5);
+		assertEquals(1, runs.size());
+		assertEquals(formatter.parse("19/09/2016"), runs.get(0).getStartKey());
+		assertEquals(formatter.parse("24/09/2016"), runs.get(0).getEndKey());
+		
+		List<RunSpan<Date>> longRuns = runIndex.getRuns(5, 6);
+		assertEquals(3, longRuns.size());
+		assertEquals(longestRuns.get(0), longRuns.get(0));
+		assertEquals(runs.get(0), longRuns.get(1));
+		assertEquals(longestRuns.get(1), longRuns.get(2));
+		
+		List<RunSpan<Date>> shortRuns = runIndex.getRuns(1, 3);
+		assertEquals(runIndex.getRuns().stream().filter(run -> run.getLength() <= 3).collect(Collectors.toList()), shortRuns);
+	}
+	
+}
@@ -0,0 +1,122 @@
+package com.jpmilhau.maps.ordered;
+
+/*-
+ * #%L
+ * OrderedMapUtils
+ * %%
+ * Copyright (C) 2016 - 2019 Jean-Pierre Milhau
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 
+ * Test of SeriesBatch
+ * 
+ * @author Jean-Pierre Milhau
+ *
+ */
+public class SeriesBatchTest {
+	
+	@Test
+	public void applyTest() {
+		LinkedHashMap<String, SortedMap<Integer, Integer>> series = getSeries();
+		LinkedHashMap<String, Double> expectedResults = new LinkedHashMap<>();
+		for (Map.Entry<String, SortedMap<Integer, Integer>> entry : series.entrySet()) {
+			expectedResults.put(entry.getKey(), averageVariation(entry.getValue()));
+		}
+		
+		SeriesBatch<String, Integer, Integer> batch = OrderedMapUtils.batch(series);
+		assertEquals(series.size(), batch.size());
+		LinkedHashMap<String, Double> results = batch.apply(SeriesBatchTest::averageVariation);
+		assertEquals(expectedResults, results);
+		assertEquals(new ArrayList<>(series.keySet()), new ArrayList<>(results.keySet()));
+		
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			assertEquals(expectedResults, batch.withExecutor(executor).apply(SeriesBatchTest::averageVariation));
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void topKTest() {
+		LinkedHashMap<String, SortedMap<Integer, Integer>> series = getSeries();
+		List<Map.Entry<String, Operation<Integer, Integer>>> allOperations = new ArrayList<>();
+		for (Map.Entry<String, SortedMap<Integer, Integer>> entry : series.entrySet()) {
+			if (entry.getValue().size() < 2)
+				continue;
+			for (Operation<Integer, Integer> operation : OrderedMapUtils.apply(entry.getValue(), (v1, v2) -> Math.abs(v2 - v1)).values()) {
+				allOperations.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), operation));
+			}
+		}
+		
+		SeriesBatch<String, Integer, Integer> batch = OrderedMapUtils.batch(series);
+		for (int k : new int[] {0, 1, 10, 100, allOperations.size() + 1}) {
+			// the sort is stable so equal results stay in the order of the series and their keys
+			List<Map.Entry<String, Operation<Integer, Integer>>> sortedOperations = new ArrayList<>(allOperations);
+			sortedOperations.sort((e1, e2) -> Integer.compare(e2.getValue().getResult(), e1.getValue().getResult()));
+			assertEquals(sortedOperations.subList(0, Math.min(k, sortedOperations.size())), batch.topK((v1, v2) -> Math.abs(v2 - v1), k, Comparator.naturalOrder()));
+			
+			sortedOperations = new ArrayList<>(allOperations);
+			sortedOperations.sort((e1, e2) -> Integer.compare(e1.getValue().getResult(), e2.getValue().getResult()));
+			assertEquals(sortedOperations.subList(0, Math.min(k, sortedOperations.size())), batch.bottomK((v1, v2) -> Math.abs(v2 - v1), k, Comparator.naturalOrder()));
+		}
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void failedOperationTest() {
+		OrderedMapUtils.batch(getSeries()).apply(map -> {
+			if (map.size() > 100)
+				throw new IllegalStateException();
+			return map.size();
+		});
+	}
+	
+	private static double averageVariation(SortedMap<Integer, Integer> map) {
+		return map.size() < 2 ? 0 : OrderedMapUtils.average(map, (v1, v2) -> (v2 - v1));
+	}
+	
+	private static LinkedHashMap<String, SortedMap<Integer, Integer>> getSeries() {
+		Random random = new Random(42);
+		LinkedHashMap<String, SortedMap<Integer, Integer>> series = new LinkedHashMap<>();
+		for (int i = 0; i < 50; i++) {
+			SortedMap<Integer, Integer> values = new TreeMap<>();
+			// the first series have no pair of keys
+			int size = i < 2 ? i : 2 + random.nextInt(200);
+			for (int j = 0; j < size; j++) {
+				values.put(j, random.nextInt(20));
+			}
+			series.put("sensor-" + i, values);
+		}
+		return series;
+	}
+	
+}